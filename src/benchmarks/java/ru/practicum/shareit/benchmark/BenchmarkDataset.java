@@ -0,0 +1,134 @@
+package ru.practicum.shareit.benchmark;
+
+import lombok.Value;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+// Синтетический набор данных для бенчмарков: пользователи, у каждого одинаковое число вещей,
+// у каждой вещи одинаковое число бронирований, плюс запросы и комментарии.
+// Пользователи и вещи вставляются с явными id подряд, поэтому владелец вещи вычисляется без обращения к базе
+@Value
+public class BenchmarkDataset {
+    private static final int BATCH_SIZE = 1000;
+    private static final long SEED = 42L;
+
+    long firstUserId;
+    int users;
+    long firstItemId;
+    int itemsPerUser;
+    int bookingsPerItem;
+    int requestsPerUser;
+
+    public static BenchmarkDataset seed(JdbcTemplate jdbc,
+                                        int users,
+                                        int itemsPerUser,
+                                        int bookingsPerItem,
+                                        int requestsPerUser) {
+        Random random = new Random(SEED);
+        LocalDateTime now = LocalDateTime.now();
+
+        long firstUserId = nextId(jdbc, "users");
+        List<Object[]> rows = new ArrayList<>();
+        for (int u = 0; u < users; u++) {
+            rows.add(new Object[]{firstUserId + u, "user" + u, "user" + u + "@bench.shareit"});
+        }
+        batch(jdbc, "INSERT INTO users (id, name, email) VALUES (?, ?, ?)", rows);
+        restartSequence(jdbc, "users");
+
+        rows.clear();
+        for (int u = 0; u < users; u++) {
+            for (int r = 0; r < requestsPerUser; r++) {
+                rows.add(new Object[]{firstUserId + u, "request " + r + " of user " + u,
+                        Timestamp.valueOf(now.minusMinutes(random.nextInt(60 * 24 * 30)))});
+            }
+        }
+        batch(jdbc, "INSERT INTO requests (user_id, description, created_at) VALUES (?, ?, ?)", rows);
+
+        rows.clear();
+        long firstItemId = nextId(jdbc, "items");
+        for (int u = 0; u < users; u++) {
+            for (int i = 0; i < itemsPerUser; i++) {
+                rows.add(new Object[]{firstItemId + (long) u * itemsPerUser + i, firstUserId + u, "item " + i + " of user " + u,
+                        "benchmark item number " + i, random.nextInt(10) != 0});
+            }
+        }
+        batch(jdbc, "INSERT INTO items (id, owner_id, name, description, is_available) VALUES (?, ?, ?, ?, ?)", rows);
+        restartSequence(jdbc, "items");
+
+        BenchmarkDataset dataset = new BenchmarkDataset(firstUserId, users, firstItemId,
+                itemsPerUser, bookingsPerItem, requestsPerUser);
+
+        // Интервалы одной вещи идут слотами по три дня и не пересекаются, половина из них в прошлом
+        rows.clear();
+        List<Object[]> comments = new ArrayList<>();
+        LocalDateTime base = now.minusDays(3L * bookingsPerItem / 2);
+        for (long itemId = firstItemId; itemId < firstItemId + dataset.getItemCount(); itemId++) {
+            long ownerId = dataset.ownerOf(itemId);
+            for (int b = 0; b < bookingsPerItem; b++) {
+                long bookerId = dataset.randomUserExcept(random, ownerId);
+                LocalDateTime start = base.plusDays(3L * b);
+                boolean past = start.isBefore(now);
+                String status = past || random.nextBoolean() ? "APPROVED" : "WAITING";
+                rows.add(new Object[]{itemId, bookerId, Timestamp.valueOf(start), Timestamp.valueOf(start.plusDays(2)),
+                        status, Timestamp.valueOf(start.minusDays(7)), ownerId});
+                if (past && b == 0) {
+                    comments.add(new Object[]{itemId, bookerId, "comment on item " + itemId, Timestamp.valueOf(now)});
+                }
+            }
+        }
+        batch(jdbc, "INSERT INTO bookings (item_id, user_id, start_date, end_date, status, created_at, owner_id) "
+                + "VALUES (?, ?, ?, ?, ?, ?, ?)", rows);
+        batch(jdbc, "INSERT INTO comments (item_id, user_id, text, created_at) VALUES (?, ?, ?, ?)", comments);
+
+        return dataset;
+    }
+
+    public int getItemCount() {
+        return users * itemsPerUser;
+    }
+
+    public long ownerOf(long itemId) {
+        return firstUserId + (itemId - firstItemId) / itemsPerUser;
+    }
+
+    public long randomUser(Random random) {
+        return firstUserId + random.nextInt(users);
+    }
+
+    public long randomUserExcept(Random random, long userId) {
+        long candidate = randomUser(random);
+        return candidate == userId ? firstUserId + (candidate - firstUserId + 1) % users : candidate;
+    }
+
+    public long randomItem(Random random) {
+        return firstItemId + random.nextInt(getItemCount());
+    }
+
+    private static long nextId(JdbcTemplate jdbc, String table) {
+        return jdbc.queryForObject("SELECT COALESCE(MAX(id), 0) + 1 FROM " + table, Long.class);
+    }
+
+    // Вставки с явными id не продвигают последовательность <таблица>_seq, сдвигаем ее за максимальный id
+    private static void restartSequence(JdbcTemplate jdbc, String table) {
+        long next = nextId(jdbc, table);
+        String product = jdbc.execute((ConnectionCallback<String>) connection ->
+                connection.getMetaData().getDatabaseProductName());
+        if ("PostgreSQL".equals(product)) {
+            jdbc.queryForObject("SELECT setval('" + table + "_seq', ?, false)", Long.class, next);
+        } else {
+            jdbc.execute("ALTER SEQUENCE " + table + "_seq RESTART WITH " + next);
+        }
+    }
+
+    private static void batch(JdbcTemplate jdbc, String sql, List<Object[]> rows) {
+        for (int from = 0; from < rows.size(); from += BATCH_SIZE) {
+            jdbc.batchUpdate(sql, rows.subList(from, Math.min(from + BATCH_SIZE, rows.size())));
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package ru.practicum.shareit.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.practicum.shareit.booking.storage.BookingJpaRepository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// Стоимость поиска последнего и следующего бронирования от длины истории вещи.
+// Запуск с разной историей: -Djmh.args="BookingLookupBenchmark -p bookingsPerItem=20,200,2000",
+// время на операцию должно оставаться примерно одинаковым
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class BookingLookupBenchmark {
+    @Param({"20"})
+    public int pageSize;
+
+    private final Random random = new Random();
+    private BookingJpaRepository bookingRepository;
+    private BenchmarkDataset dataset;
+
+    @Setup
+    public void setUp(ShareItState state) {
+        bookingRepository = state.getBean(BookingJpaRepository.class);
+        dataset = state.dataset;
+    }
+
+    @Benchmark
+    public Object findLastBookingsForItems() {
+        return bookingRepository.findLastBookingsForItems(randomItems());
+    }
+
+    @Benchmark
+    public Object findNextBookingsForItems() {
+        return bookingRepository.findNextBookingsForItems(randomItems());
+    }
+
+    private List<Long> randomItems() {
+        List<Long> itemIds = new ArrayList<>(pageSize);
+        for (int i = 0; i < pageSize; i++) {
+            itemIds.add(dataset.randomItem(random));
+        }
+        return itemIds;
+    }
+}
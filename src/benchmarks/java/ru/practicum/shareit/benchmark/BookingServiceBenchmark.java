@@ -0,0 +1,65 @@
+package ru.practicum.shareit.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.practicum.shareit.booking.dto.BookingRequest;
+import ru.practicum.shareit.booking.service.BookingService;
+import ru.practicum.shareit.error.ElementAccessException;
+import ru.practicum.shareit.utils.enums.State;
+
+import java.time.LocalDateTime;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+@org.openjdk.jmh.annotations.State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class BookingServiceBenchmark {
+    @Param({"20"})
+    public int pageSize;
+
+    @Param({"ALL", "PAST", "FUTURE"})
+    public State state;
+
+    private final Random random = new Random();
+    private BookingService bookingService;
+    private BenchmarkDataset dataset;
+
+    @Setup
+    public void setUp(ShareItState shareItState) {
+        bookingService = shareItState.getBean(BookingService.class);
+        dataset = shareItState.dataset;
+    }
+
+    // Новые бронирования ложатся через год от текущей даты, после всех подтвержденных интервалов набора
+    @Benchmark
+    public Object create() {
+        long itemId = dataset.randomItem(random);
+        BookingRequest request = new BookingRequest();
+        request.setItemId(itemId);
+        request.setStart(LocalDateTime.now().plusDays(365).plusHours(random.nextInt(24 * 365)));
+        request.setEnd(request.getStart().plusDays(1));
+        try {
+            return bookingService.create(dataset.randomUserExcept(random, dataset.ownerOf(itemId)), request);
+        } catch (ElementAccessException e) {
+            // вещь из набора недоступна для аренды
+            return e;
+        }
+    }
+
+    @Benchmark
+    public Object getBookingsForOwner() {
+        return bookingService.getBookingsForOwner(dataset.randomUser(random), state, 0, pageSize);
+    }
+}
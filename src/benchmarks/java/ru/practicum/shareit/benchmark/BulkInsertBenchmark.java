@@ -0,0 +1,110 @@
+package ru.practicum.shareit.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.shareit.booking.dto.BookingRequest;
+import ru.practicum.shareit.booking.service.BookingService;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.storage.ItemJpaRepository;
+import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.user.storage.UserJpaRepository;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// Пропускная способность массовой вставки, строк в секунду. jdbcBatchSize=0 воспроизводит прежнее поведение
+// с IDENTITY: каждая строка отдельным запросом. jdbcBatchSize=50 - пачки JDBC с id из последовательностей (pooled-lo).
+// Запуск: -Djmh.args="BulkInsertBenchmark", на PostgreSQL дополнительно -Dshareit.benchmark.profile=default
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class BulkInsertBenchmark {
+    private static final int ROWS = 100;
+
+    private final Random random = new Random();
+    private TransactionTemplate transactionTemplate;
+    private ItemJpaRepository itemRepository;
+    private UserJpaRepository userRepository;
+    private BookingService bookingService;
+    private BenchmarkDataset dataset;
+    private List<Long> availableItems;
+
+    @Setup
+    public void setUp(WriteState state) {
+        transactionTemplate = new TransactionTemplate(state.getBean(PlatformTransactionManager.class));
+        itemRepository = state.getBean(ItemJpaRepository.class);
+        userRepository = state.getBean(UserJpaRepository.class);
+        bookingService = state.getBean(BookingService.class);
+        dataset = state.dataset;
+        availableItems = state.getBean(JdbcTemplate.class)
+                .queryForList("SELECT id FROM items WHERE is_available", Long.class);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public Object createItems() {
+        long ownerId = dataset.randomUser(random);
+        return transactionTemplate.execute(status -> {
+            User owner = userRepository.getReferenceById(ownerId);
+            List<Item> items = new ArrayList<>(ROWS);
+            for (int i = 0; i < ROWS; i++) {
+                items.add(Item.builder()
+                        .name("bulk item " + i)
+                        .description("bulk item of user " + ownerId)
+                        .available(true)
+                        .owner(owner)
+                        .build());
+            }
+            return itemRepository.saveAll(items);
+        });
+    }
+
+    // Слоты пакета идут подряд по дню через два года от текущей даты, после всех интервалов набора
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public Object createBookings() {
+        long itemId = availableItems.get(random.nextInt(availableItems.size()));
+        LocalDateTime start = LocalDateTime.now().plusYears(2).plusDays(random.nextInt(365));
+        List<BookingRequest> requests = new ArrayList<>(ROWS);
+        for (int i = 0; i < ROWS; i++) {
+            BookingRequest request = new BookingRequest();
+            request.setItemId(itemId);
+            request.setStart(start.plusDays(i));
+            request.setEnd(start.plusDays(i).plusHours(12));
+            requests.add(request);
+        }
+        return bookingService.createBatch(dataset.randomUserExcept(random, dataset.ownerOf(itemId)), requests);
+    }
+
+    @State(Scope.Benchmark)
+    public static class WriteState extends ShareItState {
+        @Param({"0", "50"})
+        public int jdbcBatchSize;
+
+        @Override
+        protected void configure(SpringApplicationBuilder builder) {
+            builder.properties("spring.jpa.properties.hibernate.jdbc.batch_size=" + jdbcBatchSize,
+                    "spring.jpa.properties.hibernate.order_inserts=" + (jdbcBatchSize > 0));
+        }
+    }
+}
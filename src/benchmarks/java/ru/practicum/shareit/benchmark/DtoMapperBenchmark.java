@@ -0,0 +1,86 @@
+package ru.practicum.shareit.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.item.model.Comment;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.request.model.ItemRequest;
+import ru.practicum.shareit.request.model.Reply;
+import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.utils.DtoMapper;
+import ru.practicum.shareit.utils.enums.BookingStatus;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Преобразования сущностей в DTO на готовых объектах в памяти, без базы
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DtoMapperBenchmark {
+    @Param({"10", "100"})
+    public int comments;
+
+    private Booking booking;
+    private Item item;
+    private User owner;
+    private List<Comment> itemComments;
+    private ItemRequest itemRequest;
+    private Reply reply;
+
+    @Setup
+    public void setUp() {
+        owner = User.builder().id(1L).name("owner").email("owner@bench.shareit").build();
+        User booker = User.builder().id(2L).name("booker").email("booker@bench.shareit").build();
+        item = Item.builder().id(1L).owner(owner).name("drill").description("cordless drill").available(true).build();
+        booking = Booking.builder()
+                .id(1L)
+                .item(item)
+                .booker(booker)
+                .status(BookingStatus.APPROVED)
+                .startDate(LocalDateTime.now())
+                .endDate(LocalDateTime.now().plusDays(1))
+                .build();
+
+        itemComments = new ArrayList<>();
+        for (long i = 0; i < comments; i++) {
+            itemComments.add(Comment.builder().id(i).item(item).user(booker).text("comment " + i)
+                    .createdAt(LocalDateTime.now()).build());
+        }
+
+        itemRequest = ItemRequest.builder().id(1L).applicant(booker).description("need a drill")
+                .createdAt(LocalDateTime.now()).build();
+        reply = Reply.builder().id(1L).itemRequest(itemRequest).item(item).user(owner).build();
+    }
+
+    @Benchmark
+    public Object toBookingDto() {
+        return DtoMapper.toBookingDto(booking);
+    }
+
+    @Benchmark
+    public Object toItemDto() {
+        return DtoMapper.toItemDto(item, owner, null, itemComments);
+    }
+
+    @Benchmark
+    public void toItemRequestResponseDto(Blackhole blackhole) {
+        blackhole.consume(DtoMapper.toItemRequestResponseDto(itemRequest, List.of(DtoMapper.toReplyDto(reply))));
+    }
+}
@@ -0,0 +1,43 @@
+package ru.practicum.shareit.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.practicum.shareit.request.service.ItemRequestService;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class ItemRequestServiceBenchmark {
+    @Param({"20"})
+    public int pageSize;
+
+    private final Random random = new Random();
+    private ItemRequestService itemRequestService;
+    private BenchmarkDataset dataset;
+
+    @Setup
+    public void setUp(ShareItState state) {
+        itemRequestService = state.getBean(ItemRequestService.class);
+        dataset = state.dataset;
+    }
+
+    @Benchmark
+    public Object getAllRequests() {
+        return itemRequestService.getAllRequests(dataset.randomUser(random), 0, pageSize);
+    }
+}
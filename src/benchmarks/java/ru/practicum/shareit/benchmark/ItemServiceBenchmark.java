@@ -0,0 +1,62 @@
+package ru.practicum.shareit.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.practicum.shareit.item.dashboard.OwnerDashboardProjection;
+import ru.practicum.shareit.item.service.ItemService;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class ItemServiceBenchmark {
+    @Param({"20"})
+    public int pageSize;
+
+    @Param({"bench", "number 7"})
+    public String searchText;
+
+    private final Random random = new Random();
+    private ItemService itemService;
+    private OwnerDashboardProjection ownerDashboard;
+    private BenchmarkDataset dataset;
+
+    // Набор данных вставляется после старта контекста, строки read-модели для него достраиваются здесь
+    @Setup
+    public void setUp(ShareItState state) {
+        itemService = state.getBean(ItemService.class);
+        ownerDashboard = state.getBean(OwnerDashboardProjection.class);
+        ownerDashboard.fillMissing();
+        dataset = state.dataset;
+    }
+
+    @Benchmark
+    public Object getItems() {
+        return itemService.getItems(dataset.randomUser(random), 0, pageSize);
+    }
+
+    // Та же страница из owner_item_views, без проверки свежести модели
+    @Benchmark
+    public Object getItemsFromReadModel() {
+        return ownerDashboard.getItems(dataset.randomUser(random), 0, pageSize);
+    }
+
+    @Benchmark
+    public Object findItems() {
+        return itemService.findItems(searchText, 0, pageSize);
+    }
+}
@@ -0,0 +1,68 @@
+package ru.practicum.shareit.benchmark;
+
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.practicum.shareit.ShareItApp;
+
+import java.util.UUID;
+
+// Контекст приложения без веб-слоя поверх заполненной базы. По умолчанию это H2 в памяти (профиль test),
+// -Dshareit.benchmark.profile=default переключает на локальный PostgreSQL из application.properties
+@State(Scope.Benchmark)
+public class ShareItState {
+    @Param({"100"})
+    public int users;
+
+    @Param({"10"})
+    public int itemsPerUser;
+
+    @Param({"20"})
+    public int bookingsPerItem;
+
+    @Param({"5"})
+    public int requestsPerUser;
+
+    public ConfigurableApplicationContext context;
+    public BenchmarkDataset dataset;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        String profile = System.getProperty("shareit.benchmark.profile", "test");
+        SpringApplicationBuilder builder = new SpringApplicationBuilder(ShareItApp.class)
+                .web(WebApplicationType.NONE)
+                .profiles(profile)
+                .properties("spring.jpa.show-sql=false",
+                        "logging.level.root=WARN",
+                        "logging.level.org.springframework.transaction.interceptor=WARN",
+                        "logging.level.org.springframework.orm.jpa.JpaTransactionManager=WARN");
+        if ("test".equals(profile)) {
+            builder.properties("spring.datasource.url=jdbc:h2:mem:bench-" + UUID.randomUUID() + ";LOCK_TIMEOUT=10000");
+        }
+        configure(builder);
+
+        context = builder.run();
+        dataset = BenchmarkDataset.seed(context.getBean(JdbcTemplate.class),
+                users, itemsPerUser, bookingsPerItem, requestsPerUser);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    // Дополнительные свойства контекста для отдельных бенчмарков
+    protected void configure(SpringApplicationBuilder builder) {
+    }
+
+    public <T> T getBean(Class<T> type) {
+        return context.getBean(type);
+    }
+}
@@ -0,0 +1,36 @@
+package ru.practicum.shareit.load;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+// Аргументы вида --key=value
+class CommandLine {
+    private final Map<String, String> values = new HashMap<>();
+
+    CommandLine(String[] args) {
+        for (String arg : args) {
+            if (!arg.startsWith("--") || !arg.contains("=")) {
+                throw new IllegalArgumentException("Ожидается аргумент вида --key=value: " + arg);
+            }
+            int separator = arg.indexOf('=');
+            values.put(arg.substring(2, separator), arg.substring(separator + 1));
+        }
+    }
+
+    String get(String key, String defaultValue) {
+        return values.getOrDefault(key, defaultValue);
+    }
+
+    long getLong(String key, long defaultValue) {
+        return values.containsKey(key) ? Long.parseLong(values.get(key).replace("_", "")) : defaultValue;
+    }
+
+    double getDouble(String key, double defaultValue) {
+        return values.containsKey(key) ? Double.parseDouble(values.get(key)) : defaultValue;
+    }
+
+    Duration getDuration(String key, Duration defaultValue) {
+        return values.containsKey(key) ? Duration.parse("PT" + values.get(key).toUpperCase()) : defaultValue;
+    }
+}
@@ -0,0 +1,251 @@
+package ru.practicum.shareit.load;
+
+import org.flywaydb.core.Flyway;
+import org.postgresql.PGConnection;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Random;
+
+// Наполнение базы синтетическими данными большого объема.
+// Популярность вещей и число вещей у владельца распределены по степенному закону, арендаторы равномерны.
+// Подтвержденные бронирования одной вещи не пересекаются: каждая вещь занимает время цепочкой,
+// а когда горизонт у популярной вещи исчерпан, новые заявки остаются WAITING или REJECTED.
+//
+// mvn -Pbenchmarks test-compile exec:java -Dexec.mainClass=ru.practicum.shareit.load.DataSeeder \
+//     -Dexec.args="--url=jdbc:postgresql://localhost:5432/postgres --user=share --password=share \
+//     --users=1_000_000 --items=10_000_000 --bookings=100_000_000"
+public class DataSeeder {
+    static final String[] WORDS = {"drill", "saw", "hammer", "ladder", "tent", "bike", "kayak", "camera",
+            "tripod", "projector", "speaker", "guitar", "drone", "grill", "mixer", "vacuum", "scooter", "skis",
+            "snowboard", "sled", "stroller", "crib", "table", "chair", "jack", "compressor", "sander", "router",
+            "lawnmower", "trimmer", "pump", "generator", "heater", "fan", "telescope", "binoculars", "console",
+            "helmet", "backpack", "cooler"};
+    private static final int HORIZON_MINUTES = (int) ChronoUnit.MINUTES.between(
+            LocalDateTime.now().minusYears(2), LocalDateTime.now().plusYears(1));
+    private static final int REQUEST_ITEM_EVERY = 20;
+    private static final int PROGRESS_EVERY = 1_000_000;
+
+    private final Random random;
+    private final LocalDateTime origin = LocalDateTime.now().minusYears(2).truncatedTo(ChronoUnit.MINUTES);
+    private final int nowMinutes = (int) ChronoUnit.MINUTES.between(origin, LocalDateTime.now());
+    private final int users;
+    private final int items;
+    private final long bookings;
+    private final int requests;
+    private final PowerLaw ownerDistribution;
+    private final PowerLaw itemPopularity;
+    private final PowerLaw wordDistribution;
+
+    private long firstUserId;
+    private long firstRequestId;
+    private long firstItemId;
+    private long firstBookingId;
+    private long firstCommentId;
+    private long firstReplyId;
+
+    DataSeeder(int users, int items, long bookings, int requests, double skew, long seed) {
+        this.users = users;
+        this.items = items;
+        this.bookings = bookings;
+        this.requests = requests;
+        this.random = new Random(seed);
+        this.ownerDistribution = new PowerLaw(users, skew);
+        this.itemPopularity = new PowerLaw(items, skew);
+        this.wordDistribution = new PowerLaw(WORDS.length, 1.0);
+    }
+
+    public static void main(String[] args) throws SQLException {
+        CommandLine commandLine = new CommandLine(args);
+        String url = commandLine.get("url", "jdbc:h2:file:./target/shareit-load;LOCK_TIMEOUT=10000");
+        String user = commandLine.get("user", "test");
+        String password = commandLine.get("password", "test");
+
+        DataSeeder seeder = new DataSeeder(
+                (int) commandLine.getLong("users", 10_000),
+                (int) commandLine.getLong("items", 100_000),
+                commandLine.getLong("bookings", 1_000_000),
+                (int) commandLine.getLong("requests", 10_000),
+                commandLine.getDouble("skew", 1.1),
+                commandLine.getLong("seed", 42));
+
+        try (Connection connection = DriverManager.getConnection(url, user, password);
+             Connection sideConnection = DriverManager.getConnection(url, user, password)) {
+            String vendor = connection.isWrapperFor(PGConnection.class) ? "postgresql" : "h2";
+            Flyway.configure()
+                    .dataSource(url, user, password)
+                    .locations("classpath:db/migration/common", "classpath:db/migration/" + vendor)
+                    .baselineOnMigrate(true)
+                    .load()
+                    .migrate();
+
+            connection.setAutoCommit(false);
+            sideConnection.setAutoCommit(false);
+            seeder.seed(connection, sideConnection);
+            restartSequences(connection, vendor);
+        }
+    }
+
+    void seed(Connection connection, Connection sideConnection) throws SQLException {
+        long started = System.nanoTime();
+        firstUserId = nextId(connection, "users");
+        firstRequestId = nextId(connection, "requests");
+        firstItemId = nextId(connection, "items");
+        firstBookingId = nextId(connection, "bookings");
+        firstCommentId = nextId(connection, "comments");
+        firstReplyId = nextId(connection, "replies");
+
+        seedUsers(connection);
+        seedRequests(connection);
+        int[] owners = seedItems(connection);
+        seedReplies(connection, owners);
+        seedBookingsAndComments(connection, sideConnection, owners);
+
+        System.out.printf("Готово за %d с%n", (System.nanoTime() - started) / 1_000_000_000L);
+    }
+
+    private void seedUsers(Connection connection) throws SQLException {
+        try (RowSink sink = RowSink.open(connection, "users", "id", "name", "email")) {
+            for (int u = 0; u < users; u++) {
+                long id = firstUserId + u;
+                sink.add(id, "user " + id, "user" + id + "@load.shareit");
+                progress("users", sink.count());
+            }
+        }
+    }
+
+    private void seedRequests(Connection connection) throws SQLException {
+        try (RowSink sink = RowSink.open(connection, "requests", "id", "user_id", "description", "created_at")) {
+            for (int r = 0; r < requests; r++) {
+                sink.add(firstRequestId + r,
+                        firstUserId + random.nextInt(users),
+                        "looking for a " + word(),
+                        at(random.nextInt(nowMinutes)));
+                progress("requests", sink.count());
+            }
+        }
+    }
+
+    // Владелец выбирается по степенному закону, так что у немногих пользователей оказывается большая часть вещей
+    private int[] seedItems(Connection connection) throws SQLException {
+        int[] owners = new int[items];
+        try (RowSink sink = RowSink.open(connection, "items",
+                "id", "owner_id", "name", "description", "is_available", "request_id")) {
+            for (int i = 0; i < items; i++) {
+                owners[i] = (int) ownerDistribution.next(random);
+                String name = word() + " " + word();
+                sink.add(firstItemId + i,
+                        firstUserId + owners[i],
+                        name,
+                        "well kept " + name + " for rent",
+                        random.nextInt(10) != 0,
+                        requestOf(i));
+                progress("items", sink.count());
+            }
+        }
+        return owners;
+    }
+
+    private void seedReplies(Connection connection, int[] owners) throws SQLException {
+        try (RowSink sink = RowSink.open(connection, "replies", "id", "request_id", "item_id", "user_id")) {
+            for (int i = 0; i < items; i++) {
+                Long requestId = requestOf(i);
+                if (requestId != null) {
+                    sink.add(firstReplyId + sink.count(), requestId, firstItemId + i, firstUserId + owners[i]);
+                }
+            }
+        }
+    }
+
+    private void seedBookingsAndComments(Connection connection,
+                                         Connection sideConnection,
+                                         int[] owners) throws SQLException {
+        int[] nextFree = new int[items];
+        try (RowSink sink = RowSink.open(connection, "bookings",
+                "id", "item_id", "user_id", "start_date", "end_date", "status", "created_at", "owner_id");
+             RowSink comments = RowSink.open(sideConnection, "comments",
+                     "id", "item_id", "user_id", "text", "created_at")) {
+            for (long b = 0; b < bookings; b++) {
+                int item = (int) itemPopularity.next(random);
+                long bookerId = firstUserId + otherUser(owners[item]);
+                int duration = 60 + random.nextInt(7 * 24 * 60);
+                int start = nextFree[item] + random.nextInt(3 * 24 * 60);
+                String status;
+
+                if (start + duration < HORIZON_MINUTES) {
+                    nextFree[item] = start + duration + 1;
+                    status = start + duration < nowMinutes || random.nextBoolean() ? "APPROVED" : "WAITING";
+                } else {
+                    start = random.nextInt(HORIZON_MINUTES - duration);
+                    status = start > nowMinutes && random.nextBoolean() ? "WAITING" : "REJECTED";
+                }
+
+                int end = start + duration;
+                sink.add(firstBookingId + b, firstItemId + item, bookerId, at(start), at(end), status,
+                        at(Math.max(0, start - random.nextInt(30 * 24 * 60))), firstUserId + owners[item]);
+                if ("APPROVED".equals(status) && end < nowMinutes && random.nextInt(10) == 0) {
+                    comments.add(firstCommentId + comments.count(), firstItemId + item, bookerId,
+                            "thanks for the " + word(), at(end + random.nextInt(nowMinutes - end + 1)));
+                }
+                progress("bookings", sink.count());
+            }
+        }
+    }
+
+    // Каждая двадцатая вещь создана в ответ на запрос; номер запроса вычисляется из номера вещи,
+    // чтобы таблицу replies можно было заполнить отдельным проходом без хранения пар в памяти
+    private Long requestOf(int item) {
+        if (requests == 0 || item % REQUEST_ITEM_EVERY != 0) {
+            return null;
+        }
+        return firstRequestId + Math.floorMod(item * 31L + 7, requests);
+    }
+
+    private int otherUser(int user) {
+        int other = random.nextInt(users);
+        return other == user ? (other + 1) % users : other;
+    }
+
+    private String word() {
+        return WORDS[(int) wordDistribution.next(random)];
+    }
+
+    private Timestamp at(int minutes) {
+        return Timestamp.valueOf(origin.plusMinutes(minutes));
+    }
+
+    private static long nextId(Connection connection, String table) throws SQLException {
+        try (Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery("SELECT COALESCE(MAX(id), 0) + 1 FROM " + table)) {
+            resultSet.next();
+            return resultSet.getLong(1);
+        }
+    }
+
+    // Строки вставлены с явными id, поэтому последовательности <таблица>_seq нужно сдвинуть за максимальный id
+    private static void restartSequences(Connection connection, String vendor) throws SQLException {
+        for (String table : new String[]{"users", "requests", "items", "bookings", "comments", "replies"}) {
+            long next = nextId(connection, table);
+            try (Statement statement = connection.createStatement()) {
+                if ("postgresql".equals(vendor)) {
+                    statement.execute("SELECT setval('" + table + "_seq', " + next + ", false)");
+                } else {
+                    statement.execute("ALTER SEQUENCE " + table + "_seq RESTART WITH " + next);
+                }
+            }
+        }
+        connection.commit();
+    }
+
+    private static void progress(String table, long count) {
+        if (count % PROGRESS_EVERY == 0) {
+            System.out.printf("%s: %,d%n", table, count);
+        }
+    }
+}
@@ -0,0 +1,202 @@
+package ru.practicum.shareit.load;
+
+import lombok.Value;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+// Сценарий нагрузки на запущенный ShareIt: закрытый цикл из --concurrency потоков, каждый запрос выбирается
+// по весам сценариев. Владельцы берутся по тому же степенному закону, что и в DataSeeder, арендаторы равномерно.
+// Задержки прогрева в отчет не попадают.
+//
+// mvn -Pbenchmarks test-compile exec:java -Dexec.mainClass=ru.practicum.shareit.load.LoadDriver \
+//     -Dexec.args="--base-url=http://localhost:8080 --users=1_000_000 --concurrency=64 --duration=5m"
+//
+// Сравнение пула Tomcat и виртуальных потоков: два прогона против сервера, запущенного
+// с SHAREIT_VIRTUAL_THREADS=false и =true, с одинаковыми аргументами и общим отчетом, например
+//     --concurrency=2000 --weight.bookings=0 --weight.search=0 --weight.requests-all=0 --label=platform
+//     --concurrency=2000 --weight.bookings=0 --weight.search=0 --weight.requests-all=0 --label=virtual --append=true
+public class LoadDriver {
+    private static final double[] PERCENTILES = {50, 90, 99, 99.9};
+
+    private final HttpClient client;
+    private final String baseUrl;
+    private final long firstUserId;
+    private final int users;
+    private final PowerLaw ownerDistribution;
+    private final PowerLaw wordDistribution = new PowerLaw(DataSeeder.WORDS.length, 1.0);
+    private final Map<String, Scenario> scenarios = new LinkedHashMap<>();
+    private final int totalWeight;
+    private Duration measured = Duration.ZERO;
+
+    LoadDriver(CommandLine commandLine) {
+        this.baseUrl = commandLine.get("base-url", "http://localhost:8080");
+        this.firstUserId = commandLine.getLong("first-user", 1);
+        this.users = (int) commandLine.getLong("users", 10_000);
+        this.ownerDistribution = new PowerLaw(users, commandLine.getDouble("skew", 1.1));
+        this.client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+
+        addScenario(commandLine, "items", 30,
+                random -> get("/items?from=0&size=20", owner(random)));
+        addScenario(commandLine, "bookings", 25,
+                random -> get("/bookings?state=ALL&from=0&size=20", user(random)));
+        addScenario(commandLine, "bookings-owner", 20,
+                random -> get("/bookings/owner?state=ALL&from=0&size=20", owner(random)));
+        addScenario(commandLine, "search", 20,
+                random -> get("/items/search?text=" + DataSeeder.WORDS[(int) wordDistribution.next(random)]
+                        + "&from=0&size=20", user(random)));
+        addScenario(commandLine, "requests-all", 5,
+                random -> get("/requests/all?from=0&size=20", user(random)));
+        this.totalWeight = scenarios.values().stream().mapToInt(Scenario::getWeight).sum();
+    }
+
+    public static void main(String[] args) throws InterruptedException, IOException {
+        CommandLine commandLine = new CommandLine(args);
+        LoadDriver driver = new LoadDriver(commandLine);
+        driver.run((int) commandLine.getLong("concurrency", 32),
+                commandLine.getDuration("warmup", Duration.ofSeconds(30)),
+                commandLine.getDuration("duration", Duration.ofMinutes(2)));
+        driver.report(Path.of(commandLine.get("report", "target/load-report.csv")),
+                commandLine.get("label", "run"),
+                Boolean.parseBoolean(commandLine.get("append", "false")));
+    }
+
+    void run(int concurrency, Duration warmup, Duration duration) throws InterruptedException {
+        this.measured = duration;
+        long measureFrom = System.nanoTime() + warmup.toNanos();
+        long deadline = measureFrom + duration.toNanos();
+        ExecutorService executor = Executors.newFixedThreadPool(concurrency);
+
+        for (int worker = 0; worker < concurrency; worker++) {
+            long seed = worker;
+            executor.submit(() -> {
+                Random random = new Random(seed);
+                while (System.nanoTime() < deadline) {
+                    Scenario scenario = pick(random);
+                    HttpRequest request = scenario.getRequests().apply(random);
+                    long started = System.nanoTime();
+                    boolean failed;
+                    try {
+                        failed = client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode() >= 500;
+                    } catch (IOException e) {
+                        failed = true;
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        return;
+                    }
+                    if (started >= measureFrom) {
+                        if (failed) {
+                            scenario.getHistogram().recordError();
+                        } else {
+                            scenario.getHistogram().record((System.nanoTime() - started) / 1_000);
+                        }
+                    }
+                }
+            });
+        }
+
+        executor.shutdown();
+        executor.awaitTermination(warmup.plus(duration).toMillis() + 60_000, TimeUnit.MILLISECONDS);
+    }
+
+    // --append=true дописывает строки к существующему отчету, чтобы прогоны с разными --label сравнивались в одном файле
+    void report(Path file, String label, boolean append) throws IOException {
+        double seconds = Math.max(measured.toMillis(), 1) / 1000.0;
+        boolean header = !append || !Files.exists(file);
+        List<String> lines = new ArrayList<>();
+        if (header) {
+            lines.add("label,scenario,count,errors,rps,p50_us,p90_us,p99_us,p999_us,max_us");
+        }
+        System.out.printf("%-16s %10s %8s %10s %10s %10s %10s %10s %10s%n",
+                "scenario", "count", "errors", "rps", "p50 us", "p90 us", "p99 us", "p99.9 us", "max us");
+        for (Map.Entry<String, Scenario> entry : scenarios.entrySet()) {
+            LatencyHistogram histogram = entry.getValue().getHistogram();
+            long[] percentiles = new long[PERCENTILES.length];
+            for (int i = 0; i < PERCENTILES.length; i++) {
+                percentiles[i] = histogram.percentile(PERCENTILES[i]);
+            }
+            String rps = String.format(Locale.ROOT, "%.1f", histogram.count() / seconds);
+            System.out.printf("%-16s %10d %8d %10s %10d %10d %10d %10d %10d%n", entry.getKey(),
+                    histogram.count(), histogram.errors(), rps,
+                    percentiles[0], percentiles[1], percentiles[2], percentiles[3], histogram.max());
+            lines.add(String.join(",", label, entry.getKey(),
+                    String.valueOf(histogram.count()), String.valueOf(histogram.errors()), rps,
+                    String.valueOf(percentiles[0]), String.valueOf(percentiles[1]),
+                    String.valueOf(percentiles[2]), String.valueOf(percentiles[3]),
+                    String.valueOf(histogram.max())));
+        }
+
+        Files.createDirectories(file.toAbsolutePath().getParent());
+        try (PrintWriter writer = new PrintWriter(append
+                ? Files.newBufferedWriter(file, StandardOpenOption.CREATE, StandardOpenOption.APPEND)
+                : Files.newBufferedWriter(file))) {
+            lines.forEach(writer::println);
+        }
+    }
+
+    // Вес сценария переопределяется аргументом --weight.<имя>=N, 0 отключает сценарий
+    private void addScenario(CommandLine commandLine,
+                             String name,
+                             int defaultWeight,
+                             Function<Random, HttpRequest> requests) {
+        int weight = (int) commandLine.getLong("weight." + name, defaultWeight);
+        if (weight > 0) {
+            scenarios.put(name, new Scenario(weight, requests, new LatencyHistogram()));
+        }
+    }
+
+    private Scenario pick(Random random) {
+        int point = random.nextInt(totalWeight);
+        for (Scenario scenario : scenarios.values()) {
+            point -= scenario.getWeight();
+            if (point < 0) {
+                return scenario;
+            }
+        }
+        throw new IllegalStateException("Сценарии не заданы");
+    }
+
+    private HttpRequest get(String path, long userId) {
+        return HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .header("X-Sharer-User-Id", String.valueOf(userId))
+                .timeout(Duration.ofSeconds(30))
+                .GET()
+                .build();
+    }
+
+    private long owner(Random random) {
+        return firstUserId + ownerDistribution.next(random);
+    }
+
+    private long user(Random random) {
+        return firstUserId + random.nextInt(users);
+    }
+
+    @Value
+    private static class Scenario {
+        int weight;
+        Function<Random, HttpRequest> requests;
+        LatencyHistogram histogram;
+    }
+}
@@ -0,0 +1,34 @@
+package ru.practicum.shareit.load;
+
+import java.util.Random;
+
+// Ранг 0..n-1 с вероятностью, убывающей как 1/(rank+1)^exponent. Обращение непрерывной функции
+// распределения на [1, n + 1) дает приближение Zipf без таблиц, поэтому годится и для десятков миллионов значений
+class PowerLaw {
+    private final long n;
+    private final double exponent;
+    private final double oneMinusExponent;
+    private final double upper;
+
+    PowerLaw(long n, double exponent) {
+        if (n <= 0) {
+            throw new IllegalArgumentException("Размер распределения должен быть положительным: " + n);
+        }
+        this.n = n;
+        this.exponent = exponent;
+        this.oneMinusExponent = 1 - exponent;
+        this.upper = isHarmonic() ? Math.log(n + 1) : Math.pow(n + 1, oneMinusExponent) - 1;
+    }
+
+    long next(Random random) {
+        double u = random.nextDouble();
+        double x = isHarmonic()
+                ? Math.exp(u * upper)
+                : Math.pow(u * upper + 1, 1 / oneMinusExponent);
+        return Math.min(n - 1, (long) x - 1);
+    }
+
+    private boolean isHarmonic() {
+        return Math.abs(exponent - 1) < 1e-9;
+    }
+}
@@ -0,0 +1,128 @@
+package ru.practicum.shareit.load;
+
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyIn;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.Collections;
+
+// Построчная запись в таблицу: COPY для PostgreSQL, пакетные INSERT для остальных баз
+interface RowSink extends AutoCloseable {
+    void add(Object... values) throws SQLException;
+
+    long count();
+
+    @Override
+    void close() throws SQLException;
+
+    static RowSink open(Connection connection, String table, String... columns) throws SQLException {
+        if (connection.isWrapperFor(PGConnection.class)) {
+            return new CopySink(connection, table, columns);
+        }
+        return new BatchSink(connection, table, columns);
+    }
+
+    class BatchSink implements RowSink {
+        private static final int BATCH_SIZE = 5000;
+
+        private final Connection connection;
+        private final PreparedStatement statement;
+        private long count;
+
+        BatchSink(Connection connection, String table, String... columns) throws SQLException {
+            this.connection = connection;
+            this.statement = connection.prepareStatement("INSERT INTO " + table
+                    + " (" + String.join(", ", columns) + ") VALUES ("
+                    + String.join(", ", Collections.nCopies(columns.length, "?")) + ")");
+        }
+
+        @Override
+        public void add(Object... values) throws SQLException {
+            for (int i = 0; i < values.length; i++) {
+                statement.setObject(i + 1, values[i]);
+            }
+            statement.addBatch();
+            if (++count % BATCH_SIZE == 0) {
+                statement.executeBatch();
+                connection.commit();
+            }
+        }
+
+        @Override
+        public long count() {
+            return count;
+        }
+
+        @Override
+        public void close() throws SQLException {
+            statement.executeBatch();
+            connection.commit();
+            statement.close();
+        }
+    }
+
+    class CopySink implements RowSink {
+        private static final int BUFFER_SIZE = 1 << 20;
+
+        private final Connection connection;
+        private final CopyIn copyIn;
+        private final StringBuilder buffer = new StringBuilder(BUFFER_SIZE + 1024);
+        private long count;
+
+        CopySink(Connection connection, String table, String... columns) throws SQLException {
+            this.connection = connection;
+            this.copyIn = connection.unwrap(PGConnection.class).getCopyAPI().copyIn("COPY " + table
+                    + " (" + String.join(", ", columns) + ") FROM STDIN WITH (FORMAT csv)");
+        }
+
+        @Override
+        public void add(Object... values) throws SQLException {
+            for (int i = 0; i < values.length; i++) {
+                if (i > 0) {
+                    buffer.append(',');
+                }
+                appendCsv(values[i]);
+            }
+            buffer.append('\n');
+            count++;
+            if (buffer.length() >= BUFFER_SIZE) {
+                flush();
+            }
+        }
+
+        @Override
+        public long count() {
+            return count;
+        }
+
+        @Override
+        public void close() throws SQLException {
+            flush();
+            copyIn.endCopy();
+            connection.commit();
+        }
+
+        private void appendCsv(Object value) {
+            if (value == null) {
+                return;
+            }
+            if (value instanceof Timestamp) {
+                buffer.append(((Timestamp) value).toLocalDateTime());
+            } else if (value instanceof String) {
+                buffer.append('"').append(((String) value).replace("\"", "\"\"")).append('"');
+            } else {
+                buffer.append(value);
+            }
+        }
+
+        private void flush() throws SQLException {
+            byte[] bytes = buffer.toString().getBytes(StandardCharsets.UTF_8);
+            copyIn.writeToCopy(bytes, 0, bytes.length);
+            buffer.setLength(0);
+        }
+    }
+}
@@ -0,0 +1,156 @@
+package ru.practicum.shareit.booking.calendar;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.Comparator;
+
+// Неизменяемый набор подтвержденных интервалов вещи, отсортированный по началу, при равном начале - по id.
+// maxEnds[i] - максимальный конец среди первых i + 1 интервалов, что дает проверку пересечения за O(log n).
+// Тот же порядок дает последнее и следующее бронирование относительно любого момента двоичным поиском
+final class ApprovedIntervals {
+    static final ApprovedIntervals EMPTY = new ApprovedIntervals(new long[0], new long[0], new long[0], new long[0]);
+
+    private final long[] bookingIds;
+    private final long[] bookerIds;
+    private final long[] starts;
+    private final long[] ends;
+    private final long[] maxEnds;
+
+    private ApprovedIntervals(long[] bookingIds, long[] bookerIds, long[] starts, long[] ends) {
+        this.bookingIds = bookingIds;
+        this.bookerIds = bookerIds;
+        this.starts = starts;
+        this.ends = ends;
+        this.maxEnds = new long[ends.length];
+        long maxEnd = Long.MIN_VALUE;
+        for (int i = 0; i < ends.length; i++) {
+            maxEnd = Math.max(maxEnd, ends[i]);
+            maxEnds[i] = maxEnd;
+        }
+    }
+
+    static ApprovedIntervals of(long[] bookingIds,
+                                long[] bookerIds,
+                                LocalDateTime[] startDates,
+                                LocalDateTime[] endDates) {
+        Integer[] order = new Integer[bookingIds.length];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, Comparator.<Integer, LocalDateTime>comparing(i -> startDates[i])
+                .thenComparingLong(i -> bookingIds[i]));
+
+        long[] ids = new long[order.length];
+        long[] bookers = new long[order.length];
+        long[] starts = new long[order.length];
+        long[] ends = new long[order.length];
+        for (int i = 0; i < order.length; i++) {
+            ids[i] = bookingIds[order[i]];
+            bookers[i] = bookerIds[order[i]];
+            starts[i] = toNanos(startDates[order[i]]);
+            ends[i] = toNanos(endDates[order[i]]);
+        }
+        return new ApprovedIntervals(ids, bookers, starts, ends);
+    }
+
+    // Та же семантика, что и у existsApprovedBookingByItemIdAndTimeRange: start <= endDate AND end >= startDate
+    boolean overlaps(LocalDateTime startDate, LocalDateTime endDate) {
+        int last = lastStartingNotAfter(toNanos(endDate));
+        return last >= 0 && maxEnds[last] >= toNanos(startDate);
+    }
+
+    // Та же семантика, что и у findLastBookingsForItems: последнее по началу среди начавшихся строго до moment,
+    // при равном начале - с меньшим id
+    int lastStartedBefore(LocalDateTime moment) {
+        int last = lastStartingNotAfter(toNanos(moment) - 1);
+        return last < 0 ? last : lastStartingNotAfter(starts[last] - 1) + 1;
+    }
+
+    // Та же семантика, что и у findNextBookingsForItems: первое по началу среди начинающихся строго после moment,
+    // при равном начале - с меньшим id
+    int firstStartingAfter(LocalDateTime moment) {
+        int first = lastStartingNotAfter(toNanos(moment)) + 1;
+        return first < starts.length ? first : -1;
+    }
+
+    long bookingIdAt(int position) {
+        return bookingIds[position];
+    }
+
+    long bookerIdAt(int position) {
+        return bookerIds[position];
+    }
+
+    LocalDateTime startDateAt(int position) {
+        return LocalDateTime.ofEpochSecond(Math.floorDiv(starts[position], 1_000_000_000L),
+                (int) Math.floorMod(starts[position], 1_000_000_000L),
+                ZoneOffset.UTC);
+    }
+
+    ApprovedIntervals with(long bookingId, long bookerId, LocalDateTime startDate, LocalDateTime endDate) {
+        ApprovedIntervals withoutBooking = without(bookingId);
+        long start = toNanos(startDate);
+        int insertAt = withoutBooking.lastStartingNotAfter(start - 1) + 1;
+        while (insertAt < withoutBooking.starts.length
+                && withoutBooking.starts[insertAt] == start
+                && withoutBooking.bookingIds[insertAt] < bookingId) {
+            insertAt++;
+        }
+        return new ApprovedIntervals(insert(withoutBooking.bookingIds, insertAt, bookingId),
+                insert(withoutBooking.bookerIds, insertAt, bookerId),
+                insert(withoutBooking.starts, insertAt, start),
+                insert(withoutBooking.ends, insertAt, toNanos(endDate)));
+    }
+
+    ApprovedIntervals without(long bookingId) {
+        for (int i = 0; i < bookingIds.length; i++) {
+            if (bookingIds[i] == bookingId) {
+                return new ApprovedIntervals(delete(bookingIds, i),
+                        delete(bookerIds, i),
+                        delete(starts, i),
+                        delete(ends, i));
+            }
+        }
+        return this;
+    }
+
+    int size() {
+        return bookingIds.length;
+    }
+
+    private int lastStartingNotAfter(long moment) {
+        int low = 0;
+        int high = starts.length - 1;
+        int found = -1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            if (starts[mid] <= moment) {
+                found = mid;
+                low = mid + 1;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return found;
+    }
+
+    private static long[] insert(long[] source, int position, long value) {
+        long[] target = new long[source.length + 1];
+        System.arraycopy(source, 0, target, 0, position);
+        target[position] = value;
+        System.arraycopy(source, position, target, position + 1, source.length - position);
+        return target;
+    }
+
+    private static long[] delete(long[] source, int position) {
+        long[] target = new long[source.length - 1];
+        System.arraycopy(source, 0, target, 0, position);
+        System.arraycopy(source, position + 1, target, position, source.length - position - 1);
+        return target;
+    }
+
+    private static long toNanos(LocalDateTime dateTime) {
+        return dateTime.toEpochSecond(ZoneOffset.UTC) * 1_000_000_000L + dateTime.getNano();
+    }
+}
@@ -0,0 +1,202 @@
+package ru.practicum.shareit.booking.calendar;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.practicum.shareit.booking.dto.BookingInterval;
+import ru.practicum.shareit.booking.dto.BookingRef;
+import ru.practicum.shareit.booking.dto.LastAndNextBookings;
+import ru.practicum.shareit.booking.event.BookingStatusChangedEvent;
+import ru.practicum.shareit.booking.storage.BookingJpaRepository;
+import ru.practicum.shareit.item.event.ItemChangedEvent;
+import ru.practicum.shareit.utils.enums.BookingStatus;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// Календарь подтвержденных бронирований по вещам. Чтение не берет блокировок:
+// для каждой вещи хранится неизменяемый снимок, который при изменениях заменяется целиком.
+// При промахе интервалы читаются из bookings в транзакции вызывающего без второго соединения из пула.
+// Снимок, прочитанный пишущей транзакцией, попадает в кэш только после ее коммита.
+// Последнее и следующее бронирование вычисляются относительно переданного момента,
+// поэтому переход следующего бронирования в последнее не требует ни таймеров, ни обновления снимка.
+// Снимок меняется только событиями этого процесса: изменения с других экземпляров приложения
+// или в обход сервисов видны лишь после ttl. Поэтому кэш включается shareit.booking.calendar.enabled=true
+// только для одного экземпляра, выключенный календарь каждый раз спрашивает базу
+@Component
+public class ItemAvailabilityCalendar {
+    private static final int VERSION_STRIPES = 1024;
+
+    private final BookingJpaRepository bookingRepository;
+    private final boolean enabled;
+    private final int maxItems;
+    private final Duration ttl;
+    private final ConcurrentMap<Long, Snapshot> calendars = new ConcurrentHashMap<>();
+    // Версии вещей по полосам id, как в ItemViewCache: загрузка не кладет снимок в кэш,
+    // если за время чтения поменялась вещь из той же полосы
+    private final AtomicLongArray versions = new AtomicLongArray(VERSION_STRIPES);
+
+    public ItemAvailabilityCalendar(BookingJpaRepository bookingRepository,
+                                    @Value("${shareit.booking.calendar.enabled:false}") boolean enabled,
+                                    @Value("${shareit.booking.calendar.max-items:100000}") int maxItems,
+                                    @Value("${shareit.booking.calendar.ttl:PT1M}") Duration ttl) {
+        this.bookingRepository = bookingRepository;
+        this.enabled = enabled;
+        this.maxItems = maxItems;
+        this.ttl = ttl;
+    }
+
+    public boolean isBooked(Long itemId, LocalDateTime startDate, LocalDateTime endDate) {
+        if (!enabled) {
+            return bookingRepository.existsApprovedBookingByItemIdAndTimeRange(itemId, startDate, endDate);
+        }
+
+        ApprovedIntervals intervals = cached(itemId);
+        if (intervals == null) {
+            intervals = load(itemId);
+        }
+        return intervals.overlaps(startDate, endDate);
+    }
+
+    public LastAndNextBookings lastAndNext(Long itemId, LocalDateTime moment) {
+        ApprovedIntervals intervals = visibleIntervals(itemId);
+        int last = intervals.lastStartedBefore(moment);
+        int next = intervals.firstStartingAfter(moment);
+        if (last < 0 && next < 0) {
+            return LastAndNextBookings.NONE;
+        }
+
+        return new LastAndNextBookings(
+                last < 0 ? null : new BookingRef(intervals.bookingIdAt(last), intervals.bookerIdAt(last)),
+                next < 0 ? null : new BookingRef(intervals.bookingIdAt(next), intervals.bookerIdAt(next)),
+                next < 0 ? null : intervals.startDateAt(next));
+    }
+
+    // Обновленный снимок сохраняет срок исходного: ttl ограничивает время, в течение которого
+    // не видны изменения с других экземпляров, и не продлевается локальными событиями
+    @TransactionalEventListener
+    public void onBookingStatusChanged(BookingStatusChangedEvent event) {
+        // Новое и отклоненное из ожидания бронирования не меняют набор подтвержденных интервалов
+        if (!enabled
+                || event.getPreviousStatus() != BookingStatus.APPROVED && event.getStatus() != BookingStatus.APPROVED) {
+            return;
+        }
+
+        versions.incrementAndGet(stripe(event.getItemId()));
+        calendars.computeIfPresent(event.getItemId(), (itemId, snapshot) ->
+                snapshot.withIntervals(applied(snapshot.getIntervals(), event)));
+    }
+
+    @TransactionalEventListener
+    public void onItemChanged(ItemChangedEvent event) {
+        if (enabled && event.getAfter() == null) {
+            versions.incrementAndGet(stripe(event.getItemId()));
+            calendars.remove(event.getItemId());
+        }
+    }
+
+    // Пишущая транзакция может видеть свои незакоммиченные бронирования, которых нет в календаре,
+    // поэтому она получает интервалы из своей же транзакции в обход кэша.
+    // Читающая транзакция видит только закоммиченные строки и загружает снимок без второго соединения
+    private ApprovedIntervals visibleIntervals(Long itemId) {
+        if (!enabled || TransactionSynchronizationManager.isActualTransactionActive()
+                && !TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            return toIntervals(bookingRepository.findApprovedIntervalsForItem(itemId));
+        }
+
+        ApprovedIntervals intervals = cached(itemId);
+        return intervals != null ? intervals : load(itemId);
+    }
+
+    private ApprovedIntervals cached(Long itemId) {
+        Snapshot snapshot = calendars.get(itemId);
+        if (snapshot == null) {
+            return null;
+        }
+        if (!snapshot.getExpiresAt().isAfter(LocalDateTime.now())) {
+            calendars.remove(itemId, snapshot);
+            return null;
+        }
+        return snapshot.getIntervals();
+    }
+
+    // Чтение идет в текущей транзакции. Если она пишущая, снимок может содержать ее собственные
+    // незакоммиченные подтверждения, поэтому в кэш он кладется только после коммита.
+    // Изменения этой вещи, закоммиченные за это время, поднимают версию, и такой снимок отбрасывается
+    private ApprovedIntervals load(Long itemId) {
+        long seenVersion = versions.get(stripe(itemId));
+        ApprovedIntervals loaded = toIntervals(bookingRepository.findApprovedIntervalsForItem(itemId));
+        if (TransactionSynchronizationManager.isSynchronizationActive()
+                && !TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    remember(itemId, seenVersion, loaded);
+                }
+            });
+            return loaded;
+        }
+        return remember(itemId, seenVersion, loaded);
+    }
+
+    private ApprovedIntervals remember(Long itemId, long seenVersion, ApprovedIntervals loaded) {
+        evictIfFull();
+        LocalDateTime expiresAt = LocalDateTime.now().plus(ttl);
+        calendars.compute(itemId, (id, current) -> {
+            if (current != null && current.getExpiresAt().isAfter(LocalDateTime.now())) {
+                return current;
+            }
+            return versions.get(stripe(itemId)) == seenVersion ? new Snapshot(loaded, expiresAt) : null;
+        });
+        return loaded;
+    }
+
+    private static ApprovedIntervals toIntervals(List<BookingInterval> rows) {
+        long[] bookingIds = new long[rows.size()];
+        long[] bookerIds = new long[rows.size()];
+        LocalDateTime[] startDates = new LocalDateTime[rows.size()];
+        LocalDateTime[] endDates = new LocalDateTime[rows.size()];
+        for (int i = 0; i < rows.size(); i++) {
+            bookingIds[i] = rows.get(i).getId();
+            bookerIds[i] = rows.get(i).getBookerId();
+            startDates[i] = rows.get(i).getStartDate();
+            endDates[i] = rows.get(i).getEndDate();
+        }
+        return ApprovedIntervals.of(bookingIds, bookerIds, startDates, endDates);
+    }
+
+    private static ApprovedIntervals applied(ApprovedIntervals intervals, BookingStatusChangedEvent event) {
+        return event.getStatus() == BookingStatus.APPROVED
+                ? intervals.with(event.getBookingId(), event.getBookerId(), event.getStartDate(), event.getEndDate())
+                : intervals.without(event.getBookingId());
+    }
+
+    private static int stripe(Long itemId) {
+        return Long.hashCode(itemId) & (VERSION_STRIPES - 1);
+    }
+
+    private void evictIfFull() {
+        Iterator<Long> keys = calendars.keySet().iterator();
+        while (calendars.size() >= maxItems && keys.hasNext()) {
+            keys.next();
+            keys.remove();
+        }
+    }
+
+    @lombok.Value
+    private static class Snapshot {
+        ApprovedIntervals intervals;
+        LocalDateTime expiresAt;
+
+        Snapshot withIntervals(ApprovedIntervals changed) {
+            return new Snapshot(changed, expiresAt);
+        }
+    }
+}
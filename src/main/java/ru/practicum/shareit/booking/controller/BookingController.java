@@ -1,18 +1,32 @@
 package ru.practicum.shareit.booking.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import ru.practicum.shareit.booking.dto.BookingBatchRequest;
+import ru.practicum.shareit.booking.dto.BookingCursor;
 import ru.practicum.shareit.booking.dto.BookingDto;
+import ru.practicum.shareit.booking.dto.BookingPage;
 import ru.practicum.shareit.booking.dto.BookingRequest;
 import ru.practicum.shareit.booking.model.Booking;
 import ru.practicum.shareit.booking.service.BookingService;
+import ru.practicum.shareit.user.service.UserService;
+import ru.practicum.shareit.utils.CsvResponses;
 import ru.practicum.shareit.utils.DtoMapper;
+import ru.practicum.shareit.utils.NdjsonResponses;
+import ru.practicum.shareit.utils.annotations.QueryBudget;
+import ru.practicum.shareit.utils.enums.ExportFormat;
 import ru.practicum.shareit.utils.enums.State;
 
-import javax.transaction.Transactional;
+import javax.servlet.http.HttpServletResponse;
 import javax.validation.Valid;
 import javax.validation.constraints.Min;
+import java.util.Arrays;
 import java.util.List;
 import java.util.stream.Collectors;
 
@@ -22,9 +36,16 @@ import java.util.stream.Collectors;
 @Validated
 @Transactional
 public class BookingController {
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+    private static final List<String> EXPORT_CSV_HEADER =
+            List.of("id", "start", "end", "status", "item_id", "item_name", "booker_id");
+
     private final BookingService bookingService;
+    private final UserService userService;
+    private final ObjectMapper objectMapper;
 
     @GetMapping(path = "/{bookingId}")
+    @Transactional(readOnly = true)
     public BookingDto getBooking(@RequestHeader("X-Sharer-User-Id") Long userId,
                                  @PathVariable Long bookingId) {
         Booking booking = bookingService.getBooking(userId, bookingId);
@@ -33,27 +54,83 @@ public class BookingController {
     }
 
     @GetMapping
+    @Transactional(readOnly = true)
+    @QueryBudget(3)
     public List<BookingDto> getBookingsForBooker(@RequestHeader("X-Sharer-User-Id") Long userId,
                                                  @RequestParam(name = "state", defaultValue = "ALL", required = false) State state,
                                                  @RequestParam(value = "from", defaultValue = "0", required = false) @Min(value = 0) int from,
-                                                 @RequestParam(value = "size", defaultValue = "10", required = false) @Min(value = 0) int size) {
-        List<Booking> bookings = bookingService.getBookingsForBooker(userId, state, from, size);
+                                                 @RequestParam(value = "size", defaultValue = "10", required = false) @Min(value = 0) int size,
+                                                 @RequestParam(value = "cursor", required = false) String cursor,
+                                                 HttpServletResponse response) {
+        if (cursor == null) {
+            return bookingService.getBookingsForBooker(userId, state, from, size);
+        }
 
-        return bookings.stream()
-                .map(DtoMapper::toBookingDto)
-                .collect(Collectors.toList());
+        BookingPage page = bookingService.getBookingsForBookerAfter(userId, state, BookingCursor.decode(cursor), size);
+        setNextCursor(response, page);
+
+        return page.getBookings();
     }
 
     @GetMapping("/owner")
+    @Transactional(readOnly = true)
+    @QueryBudget(3)
     public List<BookingDto> getBookingsForOwner(@RequestHeader("X-Sharer-User-Id") Long userId,
                                                 @RequestParam(name = "state", defaultValue = "ALL", required = false) State state,
                                                 @RequestParam(value = "from", defaultValue = "0", required = false) @Min(value = 0) int from,
-                                                @RequestParam(value = "size", defaultValue = "10", required = false) @Min(value = 0) int size) {
-        List<Booking> bookings = bookingService.getBookingsForOwner(userId, state, from, size);
+                                                @RequestParam(value = "size", defaultValue = "10", required = false) @Min(value = 0) int size,
+                                                @RequestParam(value = "cursor", required = false) String cursor,
+                                                HttpServletResponse response) {
+        if (cursor == null) {
+            return bookingService.getBookingsForOwner(userId, state, from, size);
+        }
 
-        return bookings.stream()
-                .map(DtoMapper::toBookingDto)
-                .collect(Collectors.toList());
+        BookingPage page = bookingService.getBookingsForOwnerAfter(userId, state, BookingCursor.decode(cursor), size);
+        setNextCursor(response, page);
+
+        return page.getBookings();
+    }
+
+    // Потоковые выгрузки без пагинации: строки пишутся в ответ по мере чтения курсора.
+    // Транзакцию открывает сервис в потоке записи ответа, поэтому обработчик выполняется вне транзакции.
+    // Пользователь проверяется до возврата тела: после начала записи статус ответа уже не изменить
+    @GetMapping(path = "/stream", produces = "application/x-ndjson")
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public ResponseEntity<StreamingResponseBody> streamBookingsForBooker(@RequestHeader("X-Sharer-User-Id") Long userId,
+                                                                         @RequestParam(name = "state", defaultValue = "ALL", required = false) State state) {
+        userService.checkUserExists(userId);
+
+        return NdjsonResponses.<BookingDto>of(objectMapper,
+                consumer -> bookingService.streamBookingsForBooker(userId, state, consumer));
+    }
+
+    @GetMapping(path = "/owner/stream", produces = "application/x-ndjson")
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public ResponseEntity<StreamingResponseBody> streamBookingsForOwner(@RequestHeader("X-Sharer-User-Id") Long userId,
+                                                                        @RequestParam(name = "state", defaultValue = "ALL", required = false) State state) {
+        userService.checkUserExists(userId);
+
+        return NdjsonResponses.<BookingDto>of(objectMapper,
+                consumer -> bookingService.streamBookingsForOwner(userId, state, consumer));
+    }
+
+    // Полная выгрузка бронирований владельца для внешних систем учета, по умолчанию в CSV
+    @GetMapping("/owner/export")
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public ResponseEntity<StreamingResponseBody> exportBookingsForOwner(@RequestHeader("X-Sharer-User-Id") Long userId,
+                                                                        @RequestParam(name = "format", defaultValue = "CSV", required = false) String format) {
+        ExportFormat exportFormat = ExportFormat.from(format);
+        userService.checkUserExists(userId);
+
+        if (exportFormat == ExportFormat.NDJSON) {
+            return NdjsonResponses.<BookingDto>of(objectMapper,
+                    consumer -> bookingService.exportBookingsForOwner(userId, consumer));
+        }
+
+        return CsvResponses.<BookingDto>of("bookings-" + userId + ".csv",
+                EXPORT_CSV_HEADER,
+                BookingController::toCsvColumns,
+                consumer -> bookingService.exportBookingsForOwner(userId, consumer));
     }
 
     @PostMapping
@@ -64,7 +141,17 @@ public class BookingController {
         return DtoMapper.toBookingDto(booking);
     }
 
+    // Все бронирования пакета создаются в одной транзакции: ошибка в любом из них отменяет весь пакет
+    @PostMapping("/batch")
+    public List<BookingDto> addBookings(@RequestHeader("X-Sharer-User-Id") Long userId,
+                                        @RequestBody @Valid BookingBatchRequest batchRequest) {
+        return bookingService.createBatch(userId, batchRequest.getBookings()).stream()
+                .map(DtoMapper::toBookingDto)
+                .collect(Collectors.toList());
+    }
+
     @PatchMapping(path = "/{bookingId}")
+    @QueryBudget(8)
     public BookingDto setApprove(@RequestHeader("X-Sharer-User-Id") Long ownerId,
                                  @PathVariable Long bookingId,
                                  @RequestParam(name = "approved") Boolean approved) {
@@ -72,4 +159,20 @@ public class BookingController {
 
         return DtoMapper.toBookingDto(booking);
     }
+
+    private static void setNextCursor(HttpServletResponse response, BookingPage page) {
+        if (page.getNext() != null) {
+            response.setHeader(NEXT_CURSOR_HEADER, page.getNext().encode());
+        }
+    }
+
+    private static List<?> toCsvColumns(BookingDto booking) {
+        return Arrays.asList(booking.getId(),
+                booking.getStart(),
+                booking.getEnd(),
+                booking.getStatus(),
+                booking.getItem().getId(),
+                booking.getItem().getName(),
+                booking.getBooker().getId());
+    }
 }
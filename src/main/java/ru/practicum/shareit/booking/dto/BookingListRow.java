@@ -0,0 +1,16 @@
+package ru.practicum.shareit.booking.dto;
+
+import lombok.Value;
+
+import java.time.LocalDateTime;
+
+// Строка списка бронирований и значение поля сортировки, из которого строится курсор
+@Value
+public class BookingListRow {
+    BookingDto booking;
+    LocalDateTime position;
+
+    public BookingCursor toCursor() {
+        return new BookingCursor(position, booking.getId());
+    }
+}
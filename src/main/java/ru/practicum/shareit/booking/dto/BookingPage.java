@@ -0,0 +1,12 @@
+package ru.practicum.shareit.booking.dto;
+
+import lombok.Value;
+
+import java.util.List;
+
+@Value
+public class BookingPage {
+    List<BookingDto> bookings;
+    // null, если страница последняя
+    BookingCursor next;
+}
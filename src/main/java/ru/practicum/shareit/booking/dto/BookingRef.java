@@ -0,0 +1,25 @@
+package ru.practicum.shareit.booking.dto;
+
+import lombok.EqualsAndHashCode;
+import lombok.RequiredArgsConstructor;
+import lombok.ToString;
+import ru.practicum.shareit.item.dto.ItemDtoOwner;
+
+// Последнее или следующее бронирование вещи, собранное из календаря, а не из проекции запроса
+@EqualsAndHashCode
+@ToString
+@RequiredArgsConstructor
+public class BookingRef implements ItemDtoOwner.LastBooking, ItemDtoOwner.NextBooking {
+    private final Long id;
+    private final Long bookerId;
+
+    @Override
+    public Long getid() {
+        return id;
+    }
+
+    @Override
+    public Long getBookerId() {
+        return bookerId;
+    }
+}
@@ -0,0 +1,15 @@
+package ru.practicum.shareit.booking.dto;
+
+import lombok.Value;
+
+import java.time.LocalDateTime;
+
+@Value
+public class LastAndNextBookings {
+    public static final LastAndNextBookings NONE = new LastAndNextBookings(null, null, null);
+
+    BookingRef lastBooking;
+    BookingRef nextBooking;
+    // Момент, когда следующее бронирование станет последним, null если следующего нет
+    LocalDateTime nextBookingStart;
+}
@@ -0,0 +1,39 @@
+package ru.practicum.shareit.booking.event;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import lombok.AllArgsConstructor;
+import lombok.Value;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.outbox.event.OutboxEvent;
+import ru.practicum.shareit.utils.enums.BookingStatus;
+
+import java.time.LocalDateTime;
+
+@Value
+@AllArgsConstructor(onConstructor_ = @JsonCreator)
+public class BookingStatusChangedEvent implements OutboxEvent {
+    Long bookingId;
+    Long itemId;
+    Long bookerId;
+    LocalDateTime startDate;
+    LocalDateTime endDate;
+    BookingStatus previousStatus;
+    BookingStatus status;
+    Long ownerId;
+
+    public static BookingStatusChangedEvent of(Booking booking, BookingStatus previousStatus) {
+        return new BookingStatusChangedEvent(booking.getId(),
+                booking.getItem().getId(),
+                booking.getBooker().getId(),
+                booking.getStartDate(),
+                booking.getEndDate(),
+                previousStatus,
+                booking.getStatus(),
+                booking.getItem().getOwner().getId());
+    }
+
+    @Override
+    public Long ownerId() {
+        return ownerId;
+    }
+}
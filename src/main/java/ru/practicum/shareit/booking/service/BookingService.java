@@ -1,19 +1,35 @@
 package ru.practicum.shareit.booking.service;
 
+import ru.practicum.shareit.booking.dto.BookingCursor;
+import ru.practicum.shareit.booking.dto.BookingDto;
+import ru.practicum.shareit.booking.dto.BookingPage;
 import ru.practicum.shareit.booking.dto.BookingRequest;
 import ru.practicum.shareit.booking.model.Booking;
 import ru.practicum.shareit.utils.enums.State;
 
 import java.util.List;
+import java.util.function.Consumer;
 
 public interface BookingService {
     Booking getBooking(Long userId, Long bookingId);
 
-    List<Booking> getBookingsForBooker(Long userId, State state, int from, int size);
+    List<BookingDto> getBookingsForBooker(Long userId, State state, int from, int size);
 
-    List<Booking> getBookingsForOwner(Long userId, State state, int from, int size);
+    List<BookingDto> getBookingsForOwner(Long userId, State state, int from, int size);
+
+    BookingPage getBookingsForBookerAfter(Long userId, State state, BookingCursor cursor, int size);
+
+    BookingPage getBookingsForOwnerAfter(Long userId, State state, BookingCursor cursor, int size);
+
+    void streamBookingsForBooker(Long userId, State state, Consumer<BookingDto> consumer);
+
+    void streamBookingsForOwner(Long userId, State state, Consumer<BookingDto> consumer);
+
+    void exportBookingsForOwner(Long ownerId, Consumer<BookingDto> consumer);
 
     Booking create(Long userId, BookingRequest bookingRequest);
 
+    List<Booking> createBatch(Long userId, List<BookingRequest> bookingRequests);
+
     Booking setApprove(Long ownerId, Long bookingId, Boolean approved);
 }
@@ -1,33 +1,53 @@
 package ru.practicum.shareit.booking.service;
 
 import lombok.AllArgsConstructor;
-import org.springframework.data.domain.PageRequest;
-import org.springframework.data.domain.Pageable;
-import org.springframework.data.domain.Sort;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.shareit.booking.calendar.ItemAvailabilityCalendar;
+import ru.practicum.shareit.booking.dto.BookingCursor;
+import ru.practicum.shareit.booking.dto.BookingDto;
+import ru.practicum.shareit.booking.dto.BookingListRow;
+import ru.practicum.shareit.booking.dto.BookingPage;
 import ru.practicum.shareit.booking.dto.BookingRequest;
+import ru.practicum.shareit.booking.dto.ItemBookingInterval;
+import ru.practicum.shareit.booking.event.BookingStatusChangedEvent;
 import ru.practicum.shareit.booking.model.Booking;
 import ru.practicum.shareit.booking.storage.BookingJpaRepository;
+import ru.practicum.shareit.booking.storage.BookingQuery;
 import ru.practicum.shareit.error.ElementAccessException;
 import ru.practicum.shareit.error.EntityNotExistsExeption;
 import ru.practicum.shareit.error.PermissionException;
 import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.item.storage.ItemJpaRepository;
 import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.user.registry.UserRegistry;
 import ru.practicum.shareit.user.storage.UserJpaRepository;
+import ru.practicum.shareit.utils.enums.BookingRole;
 import ru.practicum.shareit.utils.enums.BookingStatus;
 import ru.practicum.shareit.utils.enums.State;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 @AllArgsConstructor
 public class BookingServiceImpl implements BookingService {
     private final BookingJpaRepository bookingRepository;
     private final UserJpaRepository userRepository;
+    private final UserRegistry userRegistry;
     private final ItemJpaRepository itemRepository;
+    private final ItemAvailabilityCalendar availabilityCalendar;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Transactional(readOnly = true)
     @Override
@@ -43,69 +63,52 @@ public class BookingServiceImpl implements BookingService {
 
     @Transactional(readOnly = true)
     @Override
-    public List<Booking> getBookingsForBooker(Long userId, State state, int from, int size) {
-        if (!userRepository.existsById(userId)) {
-            throw new EntityNotExistsExeption(userId.toString());
-        }
+    public List<BookingDto> getBookingsForBooker(Long userId, State state, int from, int size) {
+        return findBookings(BookingRole.BOOKER, userId, state, null, from, size).stream()
+                .map(BookingListRow::getBooking)
+                .collect(Collectors.toList());
+    }
 
-        LocalDateTime currentDate = LocalDateTime.now();
-        Sort sort = Sort.by(Sort.Direction.DESC, "startDate");
-        int page = from / size;
-        Pageable pageable = PageRequest.of(page, size, sort);
-
-        switch (state) {
-            case ALL:
-                return bookingRepository.findByBookerId(userId, pageable);
-            case PAST:
-                return bookingRepository.findByBookerIdAndEndDateLessThan(userId, currentDate, pageable);
-            case FUTURE:
-                return bookingRepository.findByBookerIdAndStartDateGreaterThan(userId, currentDate, pageable);
-            case CURRENT:
-                return bookingRepository.findByBookerIdAndStartDateLessThanEqualAndEndDateGreaterThanEqual(userId,
-                        currentDate,
-                        currentDate,
-                        pageable);
-            case WAITING:
-                return bookingRepository.findByBookerIdAndStatus(userId, BookingStatus.WAITING, pageable);
-            case REJECTED:
-                return bookingRepository.findByBookerIdAndStatus(userId, BookingStatus.REJECTED, pageable);
-            default:
-                throw new UnsupportedOperationException("Неизвестный параметр state: " + state);
-        }
+    @Transactional(readOnly = true)
+    @Override
+    public List<BookingDto> getBookingsForOwner(Long userId, State state, int from, int size) {
+        return findBookings(BookingRole.OWNER, userId, state, null, from, size).stream()
+                .map(BookingListRow::getBooking)
+                .collect(Collectors.toList());
     }
 
     @Transactional(readOnly = true)
     @Override
-    public List<Booking> getBookingsForOwner(Long userId, State state, int from, int size) {
-        if (!userRepository.existsById(userId)) {
-            throw new EntityNotExistsExeption(userId.toString());
-        }
+    public BookingPage getBookingsForBookerAfter(Long userId, State state, BookingCursor cursor, int size) {
+        return toPage(findBookings(BookingRole.BOOKER, userId, state, cursor, 0, size), size);
+    }
+
+    @Transactional(readOnly = true)
+    @Override
+    public BookingPage getBookingsForOwnerAfter(Long userId, State state, BookingCursor cursor, int size) {
+        return toPage(findBookings(BookingRole.OWNER, userId, state, cursor, 0, size), size);
+    }
 
-        LocalDateTime currentDate = LocalDateTime.now();
-        Sort sort = Sort.by(Sort.Direction.DESC, "createdAt");
-        int page = from / size;
-        Pageable pageable = PageRequest.of(page, size, sort);
-
-        switch (state) {
-            case ALL:
-                return bookingRepository.findByItemOwnerId(userId, pageable);
-            case PAST:
-                return bookingRepository.findByItemOwnerIdAndEndDateLessThan(userId, currentDate, pageable);
-            case FUTURE:
-                return bookingRepository.findByItemOwnerIdAndStartDateGreaterThan(userId, currentDate, pageable);
-            case CURRENT:
-                return bookingRepository.findByItemOwnerIdAndStartDateLessThanEqualAndEndDateGreaterThanEqual(
-                        userId,
-                        currentDate,
-                        currentDate,
-                        pageable);
-            case WAITING:
-                return bookingRepository.findByItemOwnerIdAndStatus(userId, BookingStatus.WAITING, pageable);
-            case REJECTED:
-                return bookingRepository.findByItemOwnerIdAndStatus(userId, BookingStatus.REJECTED, pageable);
-            default:
-                throw new UnsupportedOperationException("Unknown state:" + state);
+    @Transactional(readOnly = true)
+    @Override
+    public void streamBookingsForBooker(Long userId, State state, Consumer<BookingDto> consumer) {
+        streamBookings(BookingRole.BOOKER, userId, state, consumer);
+    }
+
+    @Transactional(readOnly = true)
+    @Override
+    public void streamBookingsForOwner(Long userId, State state, Consumer<BookingDto> consumer) {
+        streamBookings(BookingRole.OWNER, userId, state, consumer);
+    }
+
+    @Transactional(readOnly = true)
+    @Override
+    public void exportBookingsForOwner(Long ownerId, Consumer<BookingDto> consumer) {
+        if (!userRegistry.exists(ownerId)) {
+            throw new EntityNotExistsExeption(ownerId.toString());
         }
+
+        bookingRepository.exportForOwner(ownerId, consumer);
     }
 
     @Transactional
@@ -119,23 +122,7 @@ public class BookingServiceImpl implements BookingService {
         Item item = itemRepository.findById(itemId).orElseThrow(()
                 -> new EntityNotExistsExeption(itemId.toString()));
 
-        if (!item.getAvailable()) {
-            throw new ElementAccessException("Вещь " + itemId + " не доступна для аренды");
-        }
-
-        if (item.getOwner().getId().equals(userId)) {
-            throw new PermissionException("Пользователь " + userId
-                    + " не может арендовать собственную вещь - " + itemId);
-        }
-
-        if (bookingRepository.existsApprovedBookingByItemIdAndTimeRange(
-                itemId,
-                bookingRequest.getStart(),
-                bookingRequest.getEnd())) {
-            throw new PermissionException("Пользователь " + userId + " не может арендовать вещь"
-                    + itemId + " в данном временном интервале: старт - "
-                    + bookingRequest.getStart() + ", конец - " + bookingRequest.getEnd());
-        }
+        checkBookable(userId, item, bookingRequest);
 
         Booking booking = Booking.builder()
                 .item(item)
@@ -145,15 +132,59 @@ public class BookingServiceImpl implements BookingService {
                 .build();
 
         Booking savedBooking = bookingRepository.save(booking);
+        eventPublisher.publishEvent(BookingStatusChangedEvent.of(savedBooking, null));
 
         return savedBooking;
     }
 
+    @Transactional
+    @Override
+    public List<Booking> createBatch(Long userId, List<BookingRequest> bookingRequests) {
+        User user = userRepository.findById(userId).orElseThrow(() ->
+                new EntityNotExistsExeption(userId.toString()));
+
+        Set<Long> itemIds = bookingRequests.stream().map(BookingRequest::getItemId).collect(Collectors.toSet());
+        Map<Long, Item> items = itemRepository.findAllById(itemIds).stream()
+                .collect(Collectors.toMap(Item::getId, Function.identity()));
+        Map<Long, List<ItemBookingInterval>> approvedIntervals = findApprovedIntervals(itemIds, bookingRequests);
+
+        List<Booking> bookings = new ArrayList<>(bookingRequests.size());
+        for (BookingRequest bookingRequest : bookingRequests) {
+            Long itemId = bookingRequest.getItemId();
+            Item item = items.get(itemId);
+            if (item == null) {
+                throw new EntityNotExistsExeption(itemId.toString());
+            }
+            checkItemBookable(userId, item);
+            boolean booked = approvedIntervals.getOrDefault(itemId, Collections.emptyList()).stream()
+                    .anyMatch(interval -> !interval.getStartDate().isAfter(bookingRequest.getEnd())
+                            && !interval.getEndDate().isBefore(bookingRequest.getStart()));
+            if (booked) {
+                throw notBookableInInterval(userId, bookingRequest);
+            }
+
+            bookings.add(Booking.builder()
+                    .item(item)
+                    .booker(user)
+                    .startDate(bookingRequest.getStart())
+                    .endDate(bookingRequest.getEnd())
+                    .build());
+        }
+        checkNoOverlapWithinBatch(bookingRequests);
+
+        // id выделяются из последовательности блоками, поэтому вставки уходят пачками JDBC при flush
+        List<Booking> savedBookings = bookingRepository.saveAll(bookings);
+        savedBookings.forEach(savedBooking -> eventPublisher.publishEvent(BookingStatusChangedEvent.of(savedBooking, null)));
+
+        return savedBookings;
+    }
+
     @Transactional
     @Override
     public Booking setApprove(Long ownerId, Long bookingId, Boolean approved) {
-        User user = userRepository.findById(ownerId).orElseThrow(() ->
-                new EntityNotExistsExeption(ownerId.toString()));
+        if (!userRegistry.exists(ownerId)) {
+            throw new EntityNotExistsExeption(ownerId.toString());
+        }
 
         Booking booking = bookingRepository.findById(bookingId)
                 .orElseThrow(() -> new EntityNotExistsExeption(bookingId.toString()));
@@ -162,17 +193,146 @@ public class BookingServiceImpl implements BookingService {
             throw new PermissionException("Пользователь " + ownerId + "не является владельцем данной вещи");
         }
 
+        BookingStatus previousStatus = booking.getStatus();
         if (approved) {
             if (booking.getStatus().equals(BookingStatus.APPROVED)) {
                 throw new ElementAccessException(booking.getItem().getId().toString());
             }
+            checkNoApprovedOverlap(booking);
             booking.setStatus(BookingStatus.APPROVED);
         } else {
             booking.setStatus(BookingStatus.REJECTED);
         }
 
         Booking savedBooking = bookingRepository.save(booking);
+        eventPublisher.publishEvent(BookingStatusChangedEvent.of(savedBooking, previousStatus));
 
         return savedBooking;
     }
+
+    private void checkBookable(Long userId, Item item, BookingRequest bookingRequest) {
+        checkItemBookable(userId, item);
+
+        if (availabilityCalendar.isBooked(
+                item.getId(),
+                bookingRequest.getStart(),
+                bookingRequest.getEnd())) {
+            throw notBookableInInterval(userId, bookingRequest);
+        }
+    }
+
+    private static void checkItemBookable(Long userId, Item item) {
+        Long itemId = item.getId();
+
+        if (!item.getAvailable()) {
+            throw new ElementAccessException("Вещь " + itemId + " не доступна для аренды");
+        }
+
+        if (item.getOwner().getId().equals(userId)) {
+            throw new PermissionException("Пользователь " + userId
+                    + " не может арендовать собственную вещь - " + itemId);
+        }
+    }
+
+    private static PermissionException notBookableInInterval(Long userId, BookingRequest bookingRequest) {
+        return new PermissionException("Пользователь " + userId + " не может арендовать вещь"
+                + bookingRequest.getItemId() + " в данном временном интервале: старт - "
+                + bookingRequest.getStart() + ", конец - " + bookingRequest.getEnd());
+    }
+
+    // Подтвержденные интервалы всех вещей пакета читаются одним запросом в окне от самого раннего
+    // начала до самого позднего конца пакета, дальше каждый интервал пакета проверяется в памяти
+    private Map<Long, List<ItemBookingInterval>> findApprovedIntervals(Set<Long> itemIds,
+                                                                       List<BookingRequest> bookingRequests) {
+        if (bookingRequests.isEmpty()) {
+            return Collections.emptyMap();
+        }
+
+        LocalDateTime startDate = bookingRequests.stream()
+                .map(BookingRequest::getStart)
+                .min(Comparator.naturalOrder())
+                .orElseThrow();
+        LocalDateTime endDate = bookingRequests.stream()
+                .map(BookingRequest::getEnd)
+                .max(Comparator.naturalOrder())
+                .orElseThrow();
+
+        return bookingRepository.findApprovedIntervalsForItems(new ArrayList<>(itemIds), startDate, endDate).stream()
+                .collect(Collectors.groupingBy(ItemBookingInterval::getItemId));
+    }
+
+    // Интервалы одной вещи внутри пакета не должны пересекаться между собой.
+    // Границы включаются, как и в existsApprovedBookingByItemIdAndTimeRange: конец одного интервала,
+    // совпадающий с началом следующего, - пересечение, иначе второе подтверждение все равно не пройдет
+    private static void checkNoOverlapWithinBatch(List<BookingRequest> bookingRequests) {
+        List<BookingRequest> sorted = bookingRequests.stream()
+                .sorted(Comparator.comparing(BookingRequest::getItemId).thenComparing(BookingRequest::getStart))
+                .collect(Collectors.toList());
+        for (int i = 1; i < sorted.size(); i++) {
+            BookingRequest previous = sorted.get(i - 1);
+            BookingRequest current = sorted.get(i);
+            if (previous.getItemId().equals(current.getItemId()) && !current.getStart().isAfter(previous.getEnd())) {
+                throw new ElementAccessException("Интервалы аренды вещи " + current.getItemId()
+                        + " пересекаются: старт - " + current.getStart() + ", конец - " + previous.getEnd());
+            }
+        }
+    }
+
+    // Подтверждения одной вещи выполняются по очереди под блокировкой строки items,
+    // поэтому повторная проверка пересечений видит все ранее закоммиченные подтверждения
+    private void checkNoApprovedOverlap(Booking booking) {
+        Long itemId = booking.getItem().getId();
+        itemRepository.lockById(itemId).orElseThrow(() -> new EntityNotExistsExeption(itemId.toString()));
+
+        if (bookingRepository.existsOtherApprovedBookingByItemIdAndTimeRange(
+                itemId,
+                booking.getId(),
+                booking.getStartDate(),
+                booking.getEndDate())) {
+            throw new ElementAccessException("Вещь " + itemId + " уже подтверждена для аренды в интервале: старт - "
+                    + booking.getStartDate() + ", конец - " + booking.getEndDate());
+        }
+    }
+
+    private List<BookingListRow> findBookings(BookingRole role,
+                                              Long userId,
+                                              State state,
+                                              BookingCursor cursor,
+                                              int from,
+                                              int size) {
+        if (!userRegistry.exists(userId)) {
+            throw new EntityNotExistsExeption(userId.toString());
+        }
+
+        return bookingRepository.findBookings(BookingQuery.builder()
+                .role(role)
+                .userId(userId)
+                .state(state)
+                .currentDate(LocalDateTime.now())
+                .cursor(cursor)
+                .offset(from)
+                .limit(size)
+                .build());
+    }
+
+    private void streamBookings(BookingRole role, Long userId, State state, Consumer<BookingDto> consumer) {
+        if (!userRegistry.exists(userId)) {
+            throw new EntityNotExistsExeption(userId.toString());
+        }
+
+        try (Stream<BookingListRow> rows = bookingRepository.streamBookings(BookingQuery.builder()
+                .role(role)
+                .userId(userId)
+                .state(state)
+                .currentDate(LocalDateTime.now())
+                .build())) {
+            rows.map(BookingListRow::getBooking).forEach(consumer);
+        }
+    }
+
+    // Курсор следующей страницы есть только у заполненной целиком страницы
+    private static BookingPage toPage(List<BookingListRow> rows, int size) {
+        BookingCursor next = size > 0 && rows.size() == size ? rows.get(rows.size() - 1).toCursor() : null;
+        return new BookingPage(rows.stream().map(BookingListRow::getBooking).collect(Collectors.toList()), next);
+    }
 }
@@ -0,0 +1,12 @@
+package ru.practicum.shareit.booking.storage;
+
+import ru.practicum.shareit.booking.dto.BookingDto;
+
+import java.util.function.Consumer;
+
+public interface BookingExportRepository {
+    // Все бронирования вещей владельца по возрастанию id: однонаправленный курсор JDBC
+    // в сессии без состояния, строки передаются потребителю по одной и нигде не накапливаются.
+    // Вызывать внутри открытой транзакции
+    void exportForOwner(Long ownerId, Consumer<BookingDto> consumer);
+}
@@ -0,0 +1,53 @@
+package ru.practicum.shareit.booking.storage;
+
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.StatelessSession;
+import ru.practicum.shareit.booking.dto.BookingDto;
+import ru.practicum.shareit.utils.enums.BookingStatus;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.time.LocalDateTime;
+import java.util.function.Consumer;
+
+public class BookingExportRepositoryImpl implements BookingExportRepository {
+    private static final int EXPORT_FETCH_SIZE = 1000;
+    private static final String EXPORT_QUERY = "SELECT b.id, b.startDate, b.endDate, b.status, b.booker.id, i.id, i.name " +
+            "FROM Booking b JOIN b.item i WHERE b.ownerId = :ownerId ORDER BY b.id";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public void exportForOwner(Long ownerId, Consumer<BookingDto> consumer) {
+        Session session = entityManager.unwrap(Session.class);
+        SessionFactory sessionFactory = session.getSessionFactory();
+
+        // Сессия без состояния открывается на соединении текущей транзакции и не закрывает его
+        session.doWork(connection -> {
+            try (StatelessSession statelessSession = sessionFactory.openStatelessSession(connection);
+                 ScrollableResults rows = statelessSession.createQuery(EXPORT_QUERY)
+                         .setParameter("ownerId", ownerId)
+                         .setFetchSize(EXPORT_FETCH_SIZE)
+                         .scroll(ScrollMode.FORWARD_ONLY)) {
+                while (rows.next()) {
+                    consumer.accept(toDto(rows.get()));
+                }
+            }
+        });
+    }
+
+    private static BookingDto toDto(Object[] row) {
+        return BookingDto.builder()
+                .id((Long) row[0])
+                .start((LocalDateTime) row[1])
+                .end((LocalDateTime) row[2])
+                .status((BookingStatus) row[3])
+                .booker(new BookingDto.Booker((Long) row[4]))
+                .item(new BookingDto.ItemResponse((Long) row[5], (String) row[6]))
+                .build();
+    }
+}
@@ -1,73 +1,61 @@
 package ru.practicum.shareit.booking.storage;
 
-import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
+import ru.practicum.shareit.booking.dto.BookingInterval;
+import ru.practicum.shareit.booking.dto.ItemBookingInterval;
 import ru.practicum.shareit.booking.model.Booking;
 import ru.practicum.shareit.item.dto.ItemDtoOwner;
-import ru.practicum.shareit.utils.enums.BookingStatus;
 
 import java.time.LocalDateTime;
 import java.util.List;
-
-public interface BookingJpaRepository extends JpaRepository<Booking, Long> {
-
-    // Поиск текущих бронирований по bookerId
-    List<Booking> findByBookerIdAndStartDateLessThanEqualAndEndDateGreaterThanEqual(Long bookerId,
-                                                                                    LocalDateTime startDate,
-                                                                                    LocalDateTime endDate,
-                                                                                    Pageable pageable);
-
-    // Поиск прошедших бронирований по bookerId
-    List<Booking> findByBookerIdAndEndDateLessThan(Long bookerId,
-                                                   LocalDateTime endDate,
-                                                   Pageable pageable);
-
-    // Поиск будущих бронирований по bookerId
-    List<Booking> findByBookerIdAndStartDateGreaterThan(Long bookerId,
-                                                        LocalDateTime startDate,
-                                                        Pageable pageable);
-
-    // Поиск всех бронирований по bookerId
-    List<Booking> findByBookerId(Long bookerId, Pageable pageable);
-
-    // Поиск бронирований со статусом WAITING или REJECTED по bookerId
-    List<Booking> findByBookerIdAndStatus(Long bookerId, BookingStatus status, Pageable pageable);
-
-    // Поиск текущих бронирований по ownerId
-    List<Booking> findByItemOwnerIdAndStartDateLessThanEqualAndEndDateGreaterThanEqual(Long ownerId,
-                                                                                       LocalDateTime startDate,
-                                                                                       LocalDateTime endDate,
-                                                                                       Pageable pageable);
-
-    // Поиск прошедших бронирований по ownerId
-    List<Booking> findByItemOwnerIdAndEndDateLessThan(Long ownerId,
-                                                      LocalDateTime endDate,
-                                                      Pageable pageable);
-
-    // Поиск будущих бронирований по ownerId
-    List<Booking> findByItemOwnerIdAndStartDateGreaterThan(Long ownerId,
-                                                           LocalDateTime startDate,
-                                                           Pageable pageable);
-
-    // Поиск всех бронирований по ownerId
-    List<Booking> findByItemOwnerId(Long ownerId, Pageable pageable);
-
-    // Поиск бронирований со статусом WAITING или REJECTED по ownerId
-    List<Booking> findByItemOwnerIdAndStatus(Long ownerId, BookingStatus status, Pageable pageable);
-
-    @Query("SELECT b.id as id, b.booker.id as bookerId FROM Booking b " +
-            "WHERE b.item.id = :itemId " +
+import java.util.Optional;
+
+public interface BookingJpaRepository extends JpaRepository<Booking, Long>, BookingQueryRepository, BookingExportRepository {
+
+    // Бронирование всегда отдается вместе с вещью, ее владельцем и арендатором,
+    // поэтому они выбираются одним запросом, а не ленивыми догрузками в DtoMapper
+    @EntityGraph(attributePaths = {"item", "item.owner", "booker"})
+    @Override
+    Optional<Booking> findById(Long id);
+
+    // Последние бронирования сразу для страницы вещей, ровно одна строка на вещь.
+    // MAX по индексу (item_id, status, start_date) и поиск строки с этим началом - два спуска по индексу на вещь,
+    // сколько бы бронирований у вещи ни было. ROW_NUMBER() и DISTINCT ON читали бы всю историю вещи.
+    // При совпадении начала побеждает бронирование с меньшим id, как и в календаре занятости
+    @Query("SELECT b.item.id as itemId, b.id as id, b.booker.id as bookerId FROM Booking b " +
+            "WHERE b.item.id IN :itemIds " +
             "AND b.status = 'APPROVED' " +
-            "AND b.startDate < CURRENT_TIMESTAMP ORDER BY b.startDate DESC")
-    List<ItemDtoOwner.LastBooking> findLastBookingForItem(Long itemId);
-
-    @Query("SELECT b.id as id, b.booker.id as bookerId FROM Booking b " +
-            "WHERE b.item.id = :itemId " +
+            "AND b.startDate = (SELECT MAX(lb.startDate) FROM Booking lb " +
+            "WHERE lb.item.id = b.item.id " +
+            "AND lb.status = 'APPROVED' " +
+            "AND lb.startDate < CURRENT_TIMESTAMP) " +
+            "AND NOT EXISTS (SELECT tb.id FROM Booking tb " +
+            "WHERE tb.item.id = b.item.id " +
+            "AND tb.status = 'APPROVED' " +
+            "AND tb.startDate = b.startDate " +
+            "AND tb.id < b.id) " +
+            "ORDER BY b.id ASC")
+    List<ItemDtoOwner.ItemLastBooking> findLastBookingsForItems(@Param("itemIds") List<Long> itemIds);
+
+    // Ближайшие бронирования сразу для страницы вещей, ровно одна строка на вещь
+    @Query("SELECT b.item.id as itemId, b.id as id, b.booker.id as bookerId, b.startDate as startDate " +
+            "FROM Booking b " +
+            "WHERE b.item.id IN :itemIds " +
             "AND b.status = 'APPROVED' " +
-            "AND b.startDate > CURRENT_TIMESTAMP ORDER BY b.startDate ASC")
-    List<ItemDtoOwner.NextBooking> findNextBookingForItem(Long itemId);
+            "AND b.startDate = (SELECT MIN(nb.startDate) FROM Booking nb " +
+            "WHERE nb.item.id = b.item.id " +
+            "AND nb.status = 'APPROVED' " +
+            "AND nb.startDate > CURRENT_TIMESTAMP) " +
+            "AND NOT EXISTS (SELECT tb.id FROM Booking tb " +
+            "WHERE tb.item.id = b.item.id " +
+            "AND tb.status = 'APPROVED' " +
+            "AND tb.startDate = b.startDate " +
+            "AND tb.id < b.id) " +
+            "ORDER BY b.id ASC")
+    List<ItemDtoOwner.ItemNextBooking> findNextBookingsForItems(@Param("itemIds") List<Long> itemIds);
 
     @Query("SELECT b FROM Booking b " +
             "WHERE b.item.id = :itemId " +
@@ -87,4 +75,34 @@ public interface BookingJpaRepository extends JpaRepository<Booking, Long> {
             @Param("itemId") Long itemId,
             @Param("startDate") LocalDateTime startDate,
             @Param("endDate") LocalDateTime endDate);
+
+    @Query("SELECT CASE WHEN COUNT(b) > 0 THEN TRUE ELSE FALSE END " +
+            "FROM Booking b " +
+            "WHERE b.item.id = :itemId " +
+            "AND b.id <> :bookingId " +
+            "AND b.status = 'APPROVED' " +
+            "AND b.startDate <= :endDate AND b.endDate >= :startDate")
+    boolean existsOtherApprovedBookingByItemIdAndTimeRange(
+            @Param("itemId") Long itemId,
+            @Param("bookingId") Long bookingId,
+            @Param("startDate") LocalDateTime startDate,
+            @Param("endDate") LocalDateTime endDate);
+
+    // Подтвержденные интервалы вещи для календаря занятости, в порядке (start_date, id) индекса
+    @Query("SELECT b.id as id, b.booker.id as bookerId, b.startDate as startDate, b.endDate as endDate FROM Booking b " +
+            "WHERE b.item.id = :itemId " +
+            "AND b.status = 'APPROVED' " +
+            "ORDER BY b.startDate ASC, b.id ASC")
+    List<BookingInterval> findApprovedIntervalsForItem(@Param("itemId") Long itemId);
+
+    // Подтвержденные интервалы нескольких вещей, пересекающие окно [startDate, endDate], одним запросом:
+    // пакет бронирований проверяет по ним все свои интервалы
+    @Query("SELECT b.item.id as itemId, b.id as id, b.booker.id as bookerId, " +
+            "b.startDate as startDate, b.endDate as endDate FROM Booking b " +
+            "WHERE b.item.id IN :itemIds " +
+            "AND b.status = 'APPROVED' " +
+            "AND b.startDate <= :endDate AND b.endDate >= :startDate")
+    List<ItemBookingInterval> findApprovedIntervalsForItems(@Param("itemIds") List<Long> itemIds,
+                                                            @Param("startDate") LocalDateTime startDate,
+                                                            @Param("endDate") LocalDateTime endDate);
 }
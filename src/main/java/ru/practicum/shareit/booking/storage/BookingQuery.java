@@ -0,0 +1,25 @@
+package ru.practicum.shareit.booking.storage;
+
+import lombok.AccessLevel;
+import lombok.Builder;
+import lombok.Value;
+import lombok.experimental.FieldDefaults;
+import ru.practicum.shareit.booking.dto.BookingCursor;
+import ru.practicum.shareit.utils.enums.BookingRole;
+import ru.practicum.shareit.utils.enums.State;
+
+import java.time.LocalDateTime;
+
+// Параметры выборки списка бронирований: роль пользователя, состояние, курсор или смещение, размер страницы
+@Value
+@Builder
+@FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+public class BookingQuery {
+    BookingRole role;
+    Long userId;
+    State state;
+    LocalDateTime currentDate;
+    BookingCursor cursor;
+    int offset;
+    int limit;
+}
@@ -0,0 +1,16 @@
+package ru.practicum.shareit.booking.storage;
+
+import ru.practicum.shareit.booking.dto.BookingListRow;
+
+import java.util.List;
+import java.util.stream.Stream;
+
+public interface BookingQueryRepository {
+    // Один запрос-проекция на страницу: предикаты роли и состояния, курсор (keyset) или смещение,
+    // сортировка по полю роли и id по убыванию
+    List<BookingListRow> findBookings(BookingQuery query);
+
+    // Тот же запрос без лимита и смещения, строки читаются курсором JDBC порциями по fetch size.
+    // Поток нужно закрыть внутри открытой транзакции
+    Stream<BookingListRow> streamBookings(BookingQuery query);
+}
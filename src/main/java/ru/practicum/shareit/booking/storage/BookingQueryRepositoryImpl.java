@@ -0,0 +1,136 @@
+package ru.practicum.shareit.booking.storage;
+
+import org.hibernate.jpa.QueryHints;
+import ru.practicum.shareit.booking.dto.BookingCursor;
+import ru.practicum.shareit.booking.dto.BookingDto;
+import ru.practicum.shareit.booking.dto.BookingListRow;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.utils.enums.BookingRole;
+import ru.practicum.shareit.utils.enums.BookingStatus;
+import ru.practicum.shareit.utils.enums.State;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.Tuple;
+import javax.persistence.TypedQuery;
+import javax.persistence.criteria.*;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+public class BookingQueryRepositoryImpl implements BookingQueryRepository {
+    private static final int STREAM_FETCH_SIZE = 1000;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<BookingListRow> findBookings(BookingQuery bookingQuery) {
+        if (bookingQuery.getLimit() <= 0) {
+            return List.of();
+        }
+
+        TypedQuery<Tuple> typedQuery = listQuery(bookingQuery).setMaxResults(bookingQuery.getLimit());
+        if (bookingQuery.getCursor() == null && bookingQuery.getOffset() > 0) {
+            typedQuery.setFirstResult(bookingQuery.getOffset());
+        }
+
+        return typedQuery.getResultList().stream()
+                .map(BookingQueryRepositoryImpl::toRow)
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public Stream<BookingListRow> streamBookings(BookingQuery bookingQuery) {
+        return listQuery(bookingQuery)
+                .setHint(QueryHints.HINT_FETCH_SIZE, STREAM_FETCH_SIZE)
+                .getResultStream()
+                .map(BookingQueryRepositoryImpl::toRow);
+    }
+
+    private TypedQuery<Tuple> listQuery(BookingQuery bookingQuery) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> query = cb.createTupleQuery();
+        Root<Booking> booking = query.from(Booking.class);
+        Join<Booking, Item> item = booking.join("item");
+        Path<LocalDateTime> position = booking.get(bookingQuery.getRole().getSortAttribute());
+        Path<Long> id = booking.get("id");
+
+        query.multiselect(
+                        id.alias("id"),
+                        booking.get("startDate").alias("start"),
+                        booking.get("endDate").alias("end"),
+                        booking.get("status").alias("status"),
+                        booking.get("booker").get("id").alias("bookerId"),
+                        item.get("id").alias("itemId"),
+                        item.get("name").alias("itemName"),
+                        position.alias("position"))
+                .where(predicates(cb, booking, item, position, id, bookingQuery))
+                .orderBy(cb.desc(position), cb.desc(id));
+
+        return entityManager.createQuery(query);
+    }
+
+    private static Predicate[] predicates(CriteriaBuilder cb,
+                                          Root<Booking> booking,
+                                          Join<Booking, Item> item,
+                                          Path<LocalDateTime> position,
+                                          Path<Long> id,
+                                          BookingQuery bookingQuery) {
+        List<Predicate> predicates = new ArrayList<>();
+        predicates.add(bookingQuery.getRole() == BookingRole.BOOKER
+                ? cb.equal(booking.get("booker").get("id"), bookingQuery.getUserId())
+                : cb.equal(booking.get("ownerId"), bookingQuery.getUserId()));
+        predicates.add(statePredicate(cb, booking, bookingQuery.getState(), bookingQuery.getCurrentDate()));
+
+        BookingCursor cursor = bookingQuery.getCursor();
+        if (cursor != null) {
+            predicates.add(cb.or(
+                    cb.lessThan(position, cursor.getPosition()),
+                    cb.and(cb.equal(position, cursor.getPosition()), cb.lessThan(id, cursor.getId()))));
+        }
+
+        return predicates.toArray(new Predicate[0]);
+    }
+
+    private static Predicate statePredicate(CriteriaBuilder cb,
+                                            Root<Booking> booking,
+                                            State state,
+                                            LocalDateTime currentDate) {
+        Path<LocalDateTime> startDate = booking.get("startDate");
+        Path<LocalDateTime> endDate = booking.get("endDate");
+
+        switch (state) {
+            case ALL:
+                return cb.conjunction();
+            case PAST:
+                return cb.lessThan(endDate, currentDate);
+            case FUTURE:
+                return cb.greaterThan(startDate, currentDate);
+            case CURRENT:
+                return cb.and(cb.lessThanOrEqualTo(startDate, currentDate),
+                        cb.greaterThanOrEqualTo(endDate, currentDate));
+            case WAITING:
+                return cb.equal(booking.get("status"), BookingStatus.WAITING);
+            case REJECTED:
+                return cb.equal(booking.get("status"), BookingStatus.REJECTED);
+            default:
+                throw new UnsupportedOperationException("Неизвестный параметр state: " + state);
+        }
+    }
+
+    private static BookingListRow toRow(Tuple tuple) {
+        BookingDto dto = BookingDto.builder()
+                .id(tuple.get("id", Long.class))
+                .start(tuple.get("start", LocalDateTime.class))
+                .end(tuple.get("end", LocalDateTime.class))
+                .status(tuple.get("status", BookingStatus.class))
+                .booker(new BookingDto.Booker(tuple.get("bookerId", Long.class)))
+                .item(new BookingDto.ItemResponse(tuple.get("itemId", Long.class), tuple.get("itemName", String.class)))
+                .build();
+        return new BookingListRow(dto, tuple.get("position", LocalDateTime.class));
+    }
+}
@@ -0,0 +1,69 @@
+package ru.practicum.shareit.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+import ru.practicum.shareit.monitoring.EntityLoadInterceptor;
+import ru.practicum.shareit.monitoring.JdbcMeteringDataSource;
+import ru.practicum.shareit.monitoring.QueryBudgetInterceptor;
+import ru.practicum.shareit.monitoring.QueryBudgetProperties;
+import ru.practicum.shareit.monitoring.RequestStatementInspector;
+
+import javax.sql.DataSource;
+
+// Подсчет SQL-запросов на HTTP-запрос. Отдельного кэша сущностей на запрос нет: транзакция контроллера
+// держит один контекст постоянства на весь вызов, и он уже отдает одну и ту же сущность по типу и id.
+// Здесь проверяется, что так и остается: сколько запросов выполнено и какие сущности загружались повторно
+@Configuration
+@EnableConfigurationProperties(QueryBudgetProperties.class)
+public class QueryBudgetConfiguration implements WebMvcConfigurer {
+    private final QueryBudgetProperties properties;
+    private final ObjectProvider<MeterRegistry> meterRegistry;
+
+    public QueryBudgetConfiguration(QueryBudgetProperties properties, ObjectProvider<MeterRegistry> meterRegistry) {
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer requestQueryCountingCustomizer() {
+        return hibernateProperties -> {
+            hibernateProperties.put(AvailableSettings.STATEMENT_INSPECTOR, new RequestStatementInspector());
+            hibernateProperties.put(AvailableSettings.INTERCEPTOR, new EntityLoadInterceptor());
+        };
+    }
+
+    // Строки и время JDBC считаются на уровне соединений, Hibernate их не сообщает.
+    // Обертка над каждым Connection, Statement и ResultSet не бесплатна, поэтому включается отдельно
+    @Bean
+    @ConditionalOnProperty(name = "shareit.query-budget.jdbc-metering", havingValue = "true")
+    public static BeanPostProcessor jdbcMeteringDataSourcePostProcessor() {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof DataSource && !(bean instanceof JdbcMeteringDataSource)) {
+                    return new JdbcMeteringDataSource((DataSource) bean);
+                }
+                return bean;
+            }
+        };
+    }
+
+    // В срезах @WebMvcTest реестра метрик нет, тогда итоги уходят в пустой глобальный реестр
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        if (properties.isEnabled()) {
+            registry.addInterceptor(new QueryBudgetInterceptor(properties,
+                    meterRegistry.getIfAvailable(() -> Metrics.globalRegistry)));
+        }
+    }
+}
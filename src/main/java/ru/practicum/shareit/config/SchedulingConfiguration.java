@@ -0,0 +1,13 @@
+package ru.practicum.shareit.config;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+// Фоновые задачи: ретрансляция и очистка outbox, догонка read-модели списка вещей. В тестах выключены,
+// там ретранслятор вызывается явно, чтобы не мешать подсчету запросов
+@Configuration
+@EnableScheduling
+@ConditionalOnProperty(name = "shareit.outbox.relay.enabled", havingValue = "true", matchIfMissing = true)
+public class SchedulingConfiguration {
+}
@@ -0,0 +1,7 @@
+package ru.practicum.shareit.error;
+
+public class InvalidCursorException extends RuntimeException {
+    public InvalidCursorException(String mes) {
+        super(mes);
+    }
+}
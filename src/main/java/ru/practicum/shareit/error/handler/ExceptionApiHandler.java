@@ -9,6 +9,7 @@ import org.springframework.web.bind.annotation.RestControllerAdvice;
 import org.springframework.web.method.annotation.MethodArgumentTypeMismatchException;
 import ru.practicum.shareit.error.ElementAccessException;
 import ru.practicum.shareit.error.EntityNotExistsExeption;
+import ru.practicum.shareit.error.InvalidCursorException;
 import ru.practicum.shareit.error.PermissionException;
 
 import javax.validation.ConstraintViolationException;
@@ -18,7 +19,8 @@ import java.util.Map;
 @RestControllerAdvice
 public class ExceptionApiHandler {
     @ResponseStatus(HttpStatus.BAD_REQUEST)
-    @ExceptionHandler({MethodArgumentNotValidException.class, ConstraintViolationException.class, UnsupportedOperationException.class})
+    @ExceptionHandler({MethodArgumentNotValidException.class, ConstraintViolationException.class,
+            UnsupportedOperationException.class, InvalidCursorException.class})
     public ErrorResponse handleValidationExceptions(Throwable ex) {
         ErrorResponse errorResponse = new ErrorResponse(ex.toString());
         errorResponse.log();
@@ -1,15 +1,22 @@
 package ru.practicum.shareit.item;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import ru.practicum.shareit.item.dto.*;
 import ru.practicum.shareit.item.model.Comment;
 import ru.practicum.shareit.item.service.ItemService;
+import ru.practicum.shareit.user.service.UserService;
 import ru.practicum.shareit.utils.DtoMapper;
+import ru.practicum.shareit.utils.NdjsonResponses;
 import ru.practicum.shareit.utils.annotations.Marker;
+import ru.practicum.shareit.utils.annotations.QueryBudget;
 
-import javax.transaction.Transactional;
 import javax.validation.Valid;
 import javax.validation.constraints.Min;
 import java.util.Collections;
@@ -22,20 +29,36 @@ import java.util.List;
 @Transactional
 public class ItemController {
     private final ItemService itemService;
+    private final UserService userService;
+    private final ObjectMapper objectMapper;
 
     @GetMapping("/{itemId}")
+    @Transactional(readOnly = true)
     public ItemDtoOwner get(@RequestHeader("X-Sharer-User-id") Long userId, @PathVariable Long itemId) {
         return itemService.getItem(userId, itemId);
     }
 
     @GetMapping
+    @Transactional(readOnly = true)
+    @QueryBudget(6)
     public List<ItemDtoOwner> getAll(@RequestHeader("X-Sharer-User-Id") Long ownerId,
                                      @RequestParam(value = "from", defaultValue = "0", required = false) @Min(value = 0) int from,
                                      @RequestParam(value = "size", defaultValue = "10", required = false) @Min(value = 0) int size) {
         return itemService.getItems(ownerId, from, size);
     }
 
+    // Потоковая выгрузка всех вещей владельца, см. BookingController.streamBookingsForOwner
+    @GetMapping(path = "/stream", produces = "application/x-ndjson")
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public ResponseEntity<StreamingResponseBody> streamAll(@RequestHeader("X-Sharer-User-Id") Long ownerId) {
+        userService.checkUserExists(ownerId);
+
+        return NdjsonResponses.<ItemDtoOwner>of(objectMapper,
+                consumer -> itemService.streamItems(ownerId, consumer));
+    }
+
     @GetMapping("/search")
+    @Transactional(readOnly = true)
     public List<ItemDto> find(@RequestParam(value = "text", required = true) String text,
                               @RequestParam(value = "from", defaultValue = "0", required = false) @Min(value = 0) int from,
                               @RequestParam(value = "size", defaultValue = "10", required = false) @Min(value = 0) int size) {
@@ -64,6 +87,7 @@ public class ItemController {
 
     @PatchMapping("/{id}")
     @Validated({Marker.OnUpdate.class})
+    @QueryBudget(6)
     public ItemDto update(@Valid @RequestBody ItemDtoRequest itemDtoRequest,
                           @PathVariable Long id,
                           @RequestHeader("X-Sharer-User-Id") Long ownerId) {
@@ -0,0 +1,160 @@
+package ru.practicum.shareit.item.cache;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.practicum.shareit.booking.event.BookingStatusChangedEvent;
+import ru.practicum.shareit.item.dto.ItemDtoOwner;
+import ru.practicum.shareit.item.event.CommentCreatedEvent;
+import ru.practicum.shareit.item.event.ItemChangedEvent;
+import ru.practicum.shareit.item.storage.CommentJpaRepository;
+import ru.practicum.shareit.user.event.UserChangedEvent;
+import ru.practicum.shareit.utils.enums.BookingStatus;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// Кэш собранных ответов GET /items/{itemId}. Владелец видит последнее и следующее бронирование,
+// остальные нет, поэтому для вещи хранится до двух вариантов ответа.
+// Ответ владельца живет до начала следующего бронирования: в этот момент оно становится последним.
+@Component
+public class ItemViewCache {
+    private static final int VERSION_STRIPES = 1024;
+
+    private final CommentJpaRepository commentStorage;
+    private final int maxViews;
+    private final Duration ttl;
+    private final ConcurrentMap<Key, CachedView> views = new ConcurrentHashMap<>();
+    // Версии вещей по полосам id: растут при изменении вещи, и ответ не кладется в кэш,
+    // если за время его сборки вещь поменялась. Изменения вещей из других полос сборку не сбрасывают
+    private final AtomicLongArray versions = new AtomicLongArray(VERSION_STRIPES);
+
+    public ItemViewCache(CommentJpaRepository commentStorage,
+                         @Value("${shareit.item.view-cache.max-items:100000}") int maxViews,
+                         @Value("${shareit.item.view-cache.ttl:PT10M}") Duration ttl) {
+        this.commentStorage = commentStorage;
+        this.maxViews = maxViews;
+        this.ttl = ttl;
+    }
+
+    public ItemDtoOwner get(Long itemId, Long userId) {
+        LocalDateTime now = LocalDateTime.now();
+        CachedView ownerView = views.get(new Key(itemId, true));
+        if (ownerView != null && ownerView.getOwnerId().equals(userId)) {
+            return ownerView.getExpiresAt().isAfter(now) ? ownerView.getView() : null;
+        }
+
+        CachedView publicView = views.get(new Key(itemId, false));
+        if (publicView != null && !publicView.getOwnerId().equals(userId)) {
+            return publicView.getExpiresAt().isAfter(now) ? publicView.getView() : null;
+        }
+        return null;
+    }
+
+    public long version(Long itemId) {
+        return versions.get(stripe(itemId));
+    }
+
+    // Ответ попадает в кэш только после фиксации транзакции, в которой он собран,
+    // и только если с момента seenVersion вещь не менялась. Изменения и запись идут под одним монитором,
+    // чтобы инвалидация не проскочила между проверкой версии и записью
+    public void put(Long itemId,
+                    Long ownerId,
+                    boolean owner,
+                    ItemDtoOwner view,
+                    LocalDateTime nextBookingStart,
+                    long seenVersion) {
+        LocalDateTime expiresAt = LocalDateTime.now().plus(ttl);
+        if (nextBookingStart != null && nextBookingStart.isBefore(expiresAt)) {
+            expiresAt = nextBookingStart;
+        }
+        Key key = new Key(itemId, owner);
+        CachedView cachedView = new CachedView(ownerId, view, expiresAt);
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    store(key, cachedView, seenVersion);
+                }
+            });
+        } else {
+            store(key, cachedView, seenVersion);
+        }
+    }
+
+    @TransactionalEventListener
+    public void onItemChanged(ItemChangedEvent event) {
+        evict(event.getItemId());
+    }
+
+    @TransactionalEventListener
+    public void onCommentCreated(CommentCreatedEvent event) {
+        evict(event.getItemId());
+    }
+
+    // Ответ владельца показывает только подтвержденные бронирования, поэтому новые,
+    // а также отклоненные из ожидания бронирования его не меняют
+    @TransactionalEventListener
+    public synchronized void onBookingStatusChanged(BookingStatusChangedEvent event) {
+        if (event.getPreviousStatus() != BookingStatus.APPROVED && event.getStatus() != BookingStatus.APPROVED) {
+            return;
+        }
+
+        versions.incrementAndGet(stripe(event.getItemId()));
+        views.remove(new Key(event.getItemId(), true));
+    }
+
+    // Имя пользователя входит в его отзывы. Новый пользователь отзывов не имеет,
+    // а удалить пользователя с вещами, бронированиями или отзывами не дают внешние ключи
+    @TransactionalEventListener
+    public void onUserChanged(UserChangedEvent event) {
+        if (event.isCreated() || event.isDeleted()) {
+            return;
+        }
+
+        commentStorage.findItemIdsByAuthorId(event.getUserId()).forEach(this::evict);
+    }
+
+    private synchronized void evict(Long itemId) {
+        versions.incrementAndGet(stripe(itemId));
+        views.remove(new Key(itemId, true));
+        views.remove(new Key(itemId, false));
+    }
+
+    private synchronized void store(Key key, CachedView cachedView, long seenVersion) {
+        if (versions.get(stripe(key.getItemId())) != seenVersion) {
+            return;
+        }
+
+        Iterator<Key> keys = views.keySet().iterator();
+        while (views.size() >= maxViews && keys.hasNext()) {
+            keys.next();
+            keys.remove();
+        }
+        views.put(key, cachedView);
+    }
+
+    private static int stripe(Long itemId) {
+        return Long.hashCode(itemId) & (VERSION_STRIPES - 1);
+    }
+
+    @lombok.Value
+    private static class Key {
+        Long itemId;
+        boolean owner;
+    }
+
+    @lombok.Value
+    private static class CachedView {
+        Long ownerId;
+        ItemDtoOwner view;
+        LocalDateTime expiresAt;
+    }
+}
@@ -0,0 +1,362 @@
+package ru.practicum.shareit.item.dashboard;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.shareit.booking.calendar.ItemAvailabilityCalendar;
+import ru.practicum.shareit.booking.dto.BookingRef;
+import ru.practicum.shareit.booking.dto.LastAndNextBookings;
+import ru.practicum.shareit.booking.event.BookingStatusChangedEvent;
+import ru.practicum.shareit.booking.storage.BookingJpaRepository;
+import ru.practicum.shareit.item.dto.CommentDto;
+import ru.practicum.shareit.item.dto.CommentView;
+import ru.practicum.shareit.item.dto.ItemDtoOwner;
+import ru.practicum.shareit.item.event.CommentCreatedEvent;
+import ru.practicum.shareit.item.event.ItemChangedEvent;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.model.OwnerItemView;
+import ru.practicum.shareit.item.storage.CommentJpaRepository;
+import ru.practicum.shareit.item.storage.ItemJpaRepository;
+import ru.practicum.shareit.item.storage.OwnerItemViewJpaRepository;
+import ru.practicum.shareit.outbox.event.OutboxBatchDelivered;
+import ru.practicum.shareit.outbox.event.OutboxMessage;
+import ru.practicum.shareit.outbox.service.OutboxRelay;
+import ru.practicum.shareit.user.event.UserChangedEvent;
+import ru.practicum.shareit.utils.DtoMapper;
+import ru.practicum.shareit.utils.enums.BookingStatus;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+// Read-модель GET /items для владельца: одна строка owner_item_views на вещь с полями вещи,
+// последним и следующим подтвержденным бронированием и отзывами.
+// Строки пересобираются по событиям из outbox в транзакции ретранслятора. Пересборка строки целиком
+// не зависит от порядка и повторов событий.
+// Читать модель можно, пока ретранслятор разбирал очередь не раньше, чем max-staleness назад
+// и у владельца нет недоставленных событий, иначе список собирается из исходных таблиц.
+// Второе условие дает владельцу увидеть собственные изменения сразу после записи
+@Slf4j
+@Component
+public class OwnerDashboardProjection {
+    private static final int REFRESH_CHUNK_SIZE = 100;
+    private static final TypeReference<List<CommentDto>> COMMENTS_TYPE = new TypeReference<>() {
+    };
+
+    private final OwnerItemViewJpaRepository viewStorage;
+    private final ItemJpaRepository itemStorage;
+    private final CommentJpaRepository commentStorage;
+    private final BookingJpaRepository bookingStorage;
+    private final ItemAvailabilityCalendar availabilityCalendar;
+    private final OutboxRelay outboxRelay;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate refreshTransaction;
+    private final boolean enabled;
+    private final Duration maxStaleness;
+    private final Timer applyLag;
+    private final Counter modelReads;
+    private final Counter fallbackReads;
+    private volatile boolean initialized;
+
+    public OwnerDashboardProjection(OwnerItemViewJpaRepository viewStorage,
+                                    ItemJpaRepository itemStorage,
+                                    CommentJpaRepository commentStorage,
+                                    BookingJpaRepository bookingStorage,
+                                    ItemAvailabilityCalendar availabilityCalendar,
+                                    OutboxRelay outboxRelay,
+                                    ObjectMapper objectMapper,
+                                    PlatformTransactionManager transactionManager,
+                                    MeterRegistry meterRegistry,
+                                    @Value("${shareit.owner-dashboard.enabled:true}") boolean enabled,
+                                    @Value("${shareit.owner-dashboard.max-staleness:PT5S}") Duration maxStaleness) {
+        this.viewStorage = viewStorage;
+        this.itemStorage = itemStorage;
+        this.commentStorage = commentStorage;
+        this.bookingStorage = bookingStorage;
+        this.availabilityCalendar = availabilityCalendar;
+        this.outboxRelay = outboxRelay;
+        this.objectMapper = objectMapper;
+        this.refreshTransaction = new TransactionTemplate(transactionManager);
+        this.enabled = enabled;
+        this.maxStaleness = maxStaleness;
+        this.applyLag = Timer.builder("shareit.owner-dashboard.apply.lag")
+                .description("Время от записи события в outbox до обновления read-модели")
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+        Gauge.builder("shareit.owner-dashboard.staleness", this, OwnerDashboardProjection::stalenessSeconds)
+                .description("Верхняя граница отставания read-модели от исходных таблиц")
+                .baseUnit("seconds")
+                .register(meterRegistry);
+        this.modelReads = Counter.builder("shareit.owner-dashboard.reads")
+                .tag("source", "read-model")
+                .register(meterRegistry);
+        this.fallbackReads = Counter.builder("shareit.owner-dashboard.reads")
+                .tag("source", "tables")
+                .register(meterRegistry);
+    }
+
+    // Строки для вещей, созданных до появления модели, и пропущенные из-за сбоев
+    @EventListener(ApplicationReadyEvent.class)
+    public void fillMissing() {
+        if (!enabled) {
+            return;
+        }
+
+        long filled = 0;
+        List<Long> itemIds;
+        do {
+            itemIds = refreshTransaction.execute(status -> {
+                List<Long> missing = viewStorage.findItemIdsWithoutView(PageRequest.of(0, REFRESH_CHUNK_SIZE));
+                refresh(missing);
+                return missing;
+            });
+            filled += itemIds.size();
+        } while (itemIds.size() == REFRESH_CHUNK_SIZE);
+        initialized = true;
+        log.info("Read-модель списка вещей владельца готова, добавлено строк: {}", filled);
+    }
+
+    public boolean isFresh(Long ownerId) {
+        boolean fresh = enabled && initialized && outboxRelay.caughtUpAt()
+                .map(caughtUpAt -> !caughtUpAt.plus(maxStaleness).isBefore(LocalDateTime.now()))
+                .orElse(false)
+                && !outboxRelay.hasUndelivered(ownerId);
+        (fresh ? modelReads : fallbackReads).increment();
+        return fresh;
+    }
+
+    public List<ItemDtoOwner> getItems(Long ownerId, int from, int size) {
+        LocalDateTime now = LocalDateTime.now();
+        return viewStorage.findPageByOwnerId(ownerId, PageRequest.of(from / size, size)).stream()
+                .map(view -> toItemDtoOwner(view, now))
+                .collect(Collectors.toList());
+    }
+
+    @EventListener
+    public void onItemChanged(OutboxMessage<ItemChangedEvent> message) {
+        markChanged(message, List.of(message.getPayload().getItemId()));
+    }
+
+    @EventListener
+    public void onCommentCreated(OutboxMessage<CommentCreatedEvent> message) {
+        markChanged(message, List.of(message.getPayload().getItemId()));
+    }
+
+    @EventListener
+    public void onBookingStatusChanged(OutboxMessage<BookingStatusChangedEvent> message) {
+        BookingStatusChangedEvent event = message.getPayload();
+        // Как и в календаре: ожидающие и отклоненные бронирования в список владельца не попадают
+        if (event.getPreviousStatus() != BookingStatus.APPROVED && event.getStatus() != BookingStatus.APPROVED) {
+            return;
+        }
+        markChanged(message, List.of(event.getItemId()));
+    }
+
+    // Имя автора входит в отзывы. Удалить пользователя с вещами или отзывами не дают внешние ключи
+    @EventListener
+    public void onUserChanged(OutboxMessage<UserChangedEvent> message) {
+        if (!message.getPayload().isCreated() && !message.getPayload().isDeleted()) {
+            markChanged(message, commentStorage.findItemIdsByAuthorId(message.getPayload().getUserId()));
+        }
+    }
+
+    // Следующее бронирование, которое уже началось, становится последним без всяких событий.
+    // Чтение учитывает это само, а здесь такие строки догоняются, чтобы чтение не ходило в календарь
+    @Scheduled(fixedDelayString = "${shareit.owner-dashboard.refresh-interval:PT1M}")
+    public void refreshStartedBookings() {
+        if (!enabled) {
+            return;
+        }
+
+        List<Long> itemIds;
+        do {
+            itemIds = refreshTransaction.execute(status -> {
+                List<Long> started = viewStorage.findItemIdsWithNextBookingStartedBy(LocalDateTime.now(),
+                        PageRequest.of(0, REFRESH_CHUNK_SIZE));
+                refresh(started);
+                return started;
+            });
+        } while (itemIds.size() == REFRESH_CHUNK_SIZE);
+    }
+
+    @EventListener
+    public void onBatchDelivered(OutboxBatchDelivered event) {
+        ChangedItems changed = (ChangedItems) TransactionSynchronizationManager.unbindResourceIfPossible(this);
+        if (changed != null) {
+            apply(changed);
+        }
+    }
+
+    // Изменения копятся до конца пачки: вещь, затронутая несколькими событиями, пересобирается один раз
+    private void markChanged(OutboxMessage<?> message, Collection<Long> itemIds) {
+        ChangedItems changed = new ChangedItems();
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            changed.add(message, itemIds);
+            refreshTransaction.executeWithoutResult(status -> apply(changed));
+            return;
+        }
+
+        ChangedItems bound = (ChangedItems) TransactionSynchronizationManager.getResource(this);
+        if (bound == null) {
+            TransactionSynchronizationManager.bindResource(this, changed);
+            // Если пачка откатилась до OutboxBatchDelivered, накопленное не должно перейти в следующую транзакцию потока
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(OwnerDashboardProjection.this);
+                }
+            });
+            bound = changed;
+        }
+        bound.add(message, itemIds);
+    }
+
+    private void apply(ChangedItems changed) {
+        refresh(changed.itemIds);
+        LocalDateTime now = LocalDateTime.now();
+        changed.eventTimes.forEach(createdAt -> applyLag.record(Duration.between(createdAt, now)));
+    }
+
+    // Пересборка идет кусками по REFRESH_CHUNK_SIZE: на кусок приходится по одному запросу
+    // вещей, строк модели, отзывов, последних и ближайших бронирований
+    private void refresh(Collection<Long> itemIds) {
+        List<Long> ids = new ArrayList<>(itemIds);
+        for (int from = 0; from < ids.size(); from += REFRESH_CHUNK_SIZE) {
+            refreshChunk(ids.subList(from, Math.min(from + REFRESH_CHUNK_SIZE, ids.size())));
+        }
+    }
+
+    private void refreshChunk(List<Long> ids) {
+        Map<Long, Item> items = itemStorage.findAllById(ids).stream()
+                .collect(Collectors.toMap(Item::getId, Function.identity()));
+        Map<Long, OwnerItemView> views = viewStorage.findAllById(ids).stream()
+                .collect(Collectors.toMap(OwnerItemView::getItemId, Function.identity()));
+        Map<Long, List<CommentDto>> commentsByItemId = items.isEmpty()
+                ? Collections.emptyMap()
+                : commentStorage.findViewsByItemIdIn(new ArrayList<>(items.keySet())).stream()
+                .collect(Collectors.groupingBy(CommentView::getItemId,
+                        Collectors.mapping(DtoMapper::toCommentDto, Collectors.toList())));
+        // Запросы идут в пишущей транзакции ретранслятора и видят еще не зафиксированные подтверждения пачки
+        Map<Long, ItemDtoOwner.ItemLastBooking> lastBookings = items.isEmpty()
+                ? Collections.emptyMap()
+                : bookingStorage.findLastBookingsForItems(new ArrayList<>(items.keySet())).stream()
+                .collect(Collectors.toMap(ItemDtoOwner.ItemLastBooking::getItemId, Function.identity(),
+                        (first, second) -> first));
+        Map<Long, ItemDtoOwner.ItemNextBooking> nextBookings = items.isEmpty()
+                ? Collections.emptyMap()
+                : bookingStorage.findNextBookingsForItems(new ArrayList<>(items.keySet())).stream()
+                .collect(Collectors.toMap(ItemDtoOwner.ItemNextBooking::getItemId, Function.identity(),
+                        (first, second) -> first));
+
+        LocalDateTime now = LocalDateTime.now();
+        List<OwnerItemView> changed = new ArrayList<>(ids.size());
+        for (Long itemId : ids) {
+            Item item = items.get(itemId);
+            OwnerItemView view = views.get(itemId);
+            if (item == null) {
+                if (view != null) {
+                    viewStorage.delete(view);
+                }
+                continue;
+            }
+
+            ItemDtoOwner.ItemLastBooking lastBooking = lastBookings.get(itemId);
+            ItemDtoOwner.ItemNextBooking nextBooking = nextBookings.get(itemId);
+            List<CommentDto> comments = commentsByItemId.getOrDefault(itemId, Collections.emptyList());
+            OwnerItemView.OwnerItemViewBuilder builder = view == null
+                    ? OwnerItemView.builder().itemId(itemId)
+                    : view.toBuilder();
+            changed.add(builder
+                    .ownerId(item.getOwner().getId())
+                    .name(item.getName())
+                    .description(item.getDescription())
+                    .available(item.getAvailable())
+                    .lastBookingId(lastBooking == null ? null : lastBooking.getid())
+                    .lastBookerId(lastBooking == null ? null : lastBooking.getBookerId())
+                    .nextBookingId(nextBooking == null ? null : nextBooking.getid())
+                    .nextBookerId(nextBooking == null ? null : nextBooking.getBookerId())
+                    .nextBookingStart(nextBooking == null ? null : nextBooking.getStartDate())
+                    .commentCount(comments.size())
+                    .comments(writeComments(comments))
+                    .refreshedAt(now)
+                    .build());
+        }
+        viewStorage.saveAll(changed);
+    }
+
+    private ItemDtoOwner toItemDtoOwner(OwnerItemView view, LocalDateTime now) {
+        ItemDtoOwner.LastBooking lastBooking;
+        ItemDtoOwner.NextBooking nextBooking;
+        if (view.getNextBookingStart() != null && !view.getNextBookingStart().isAfter(now)) {
+            LastAndNextBookings bookings = availabilityCalendar.lastAndNext(view.getItemId(), now);
+            lastBooking = bookings.getLastBooking();
+            nextBooking = bookings.getNextBooking();
+        } else {
+            lastBooking = view.getLastBookingId() == null
+                    ? null
+                    : new BookingRef(view.getLastBookingId(), view.getLastBookerId());
+            nextBooking = view.getNextBookingId() == null
+                    ? null
+                    : new BookingRef(view.getNextBookingId(), view.getNextBookerId());
+        }
+
+        return ItemDtoOwner.builder()
+                .id(view.getItemId())
+                .name(view.getName())
+                .description(view.getDescription())
+                .available(view.getAvailable())
+                .lastBooking(lastBooking)
+                .nextBooking(nextBooking)
+                .comments(view.getCommentCount() == 0 ? Collections.emptyList() : readComments(view))
+                .build();
+    }
+
+    private String writeComments(List<CommentDto> comments) {
+        try {
+            return objectMapper.writeValueAsString(comments);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Не удалось сериализовать отзывы", e);
+        }
+    }
+
+    private List<CommentDto> readComments(OwnerItemView view) {
+        try {
+            return objectMapper.readValue(view.getComments(), COMMENTS_TYPE);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Не удалось прочитать отзывы вещи " + view.getItemId(), e);
+        }
+    }
+
+    private double stalenessSeconds() {
+        return outboxRelay.caughtUpAt()
+                .map(caughtUpAt -> Duration.between(caughtUpAt, LocalDateTime.now()).toMillis() / 1000.0)
+                .orElse(Double.NaN);
+    }
+
+    private static class ChangedItems {
+        private final Set<Long> itemIds = new LinkedHashSet<>();
+        private final List<LocalDateTime> eventTimes = new ArrayList<>();
+
+        void add(OutboxMessage<?> message, Collection<Long> changedItemIds) {
+            itemIds.addAll(changedItemIds);
+            eventTimes.add(message.getCreatedAt());
+        }
+    }
+}
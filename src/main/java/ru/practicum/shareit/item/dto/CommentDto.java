@@ -4,11 +4,13 @@ import lombok.AccessLevel;
 import lombok.Builder;
 import lombok.Data;
 import lombok.experimental.FieldDefaults;
+import lombok.extern.jackson.Jacksonized;
 
 import java.time.LocalDateTime;
 
 @Data
 @Builder
+@Jacksonized
 @FieldDefaults(level = AccessLevel.PRIVATE)
 public class CommentDto {
     Long id;
@@ -1,10 +1,12 @@
 package ru.practicum.shareit.item.dto;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import lombok.AccessLevel;
 import lombok.Builder;
 import lombok.Data;
 import lombok.experimental.FieldDefaults;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 @Data
@@ -31,4 +33,17 @@ public class ItemDtoOwner {
 
         Long getBookerId();
     }
+
+    public interface ItemLastBooking extends LastBooking {
+        @JsonIgnore
+        Long getItemId();
+    }
+
+    public interface ItemNextBooking extends NextBooking {
+        @JsonIgnore
+        Long getItemId();
+
+        @JsonIgnore
+        LocalDateTime getStartDate();
+    }
 }
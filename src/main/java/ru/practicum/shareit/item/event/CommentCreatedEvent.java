@@ -0,0 +1,26 @@
+package ru.practicum.shareit.item.event;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import lombok.AllArgsConstructor;
+import lombok.Value;
+import ru.practicum.shareit.item.model.Comment;
+import ru.practicum.shareit.outbox.event.OutboxEvent;
+
+@Value
+@AllArgsConstructor(onConstructor_ = @JsonCreator)
+public class CommentCreatedEvent implements OutboxEvent {
+    Long commentId;
+    Long itemId;
+    Long ownerId;
+
+    public static CommentCreatedEvent of(Comment comment) {
+        return new CommentCreatedEvent(comment.getId(),
+                comment.getItem().getId(),
+                comment.getItem().getOwner().getId());
+    }
+
+    @Override
+    public Long ownerId() {
+        return ownerId;
+    }
+}
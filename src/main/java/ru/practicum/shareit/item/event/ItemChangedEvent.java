@@ -0,0 +1,47 @@
+package ru.practicum.shareit.item.event;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import lombok.AllArgsConstructor;
+import lombok.Value;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.outbox.event.OutboxEvent;
+
+@Value
+@AllArgsConstructor(onConstructor_ = @JsonCreator)
+public class ItemChangedEvent implements OutboxEvent {
+    Long itemId;
+    // Состояние до изменения, null при создании вещи
+    Snapshot before;
+    // Состояние после изменения, null при удалении вещи
+    Snapshot after;
+    Long ownerId;
+
+    public static ItemChangedEvent created(Item item) {
+        return new ItemChangedEvent(item.getId(), null, Snapshot.of(item), item.getOwner().getId());
+    }
+
+    public static ItemChangedEvent updated(Snapshot before, Item item) {
+        return new ItemChangedEvent(item.getId(), before, Snapshot.of(item), item.getOwner().getId());
+    }
+
+    public static ItemChangedEvent deleted(Item item) {
+        return new ItemChangedEvent(item.getId(), Snapshot.of(item), null, item.getOwner().getId());
+    }
+
+    @Override
+    public Long ownerId() {
+        return ownerId;
+    }
+
+    @Value
+    @AllArgsConstructor(onConstructor_ = @JsonCreator)
+    public static class Snapshot {
+        String name;
+        String description;
+        Boolean available;
+
+        public static Snapshot of(Item item) {
+            return new Snapshot(item.getName(), item.getDescription(), item.getAvailable());
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package ru.practicum.shareit.item.model;
+
+import lombok.*;
+import lombok.experimental.FieldDefaults;
+import org.springframework.data.domain.Persistable;
+
+import javax.persistence.*;
+import java.time.LocalDateTime;
+
+// Строка read-модели списка вещей владельца. Ключ совпадает с id вещи и задается явно,
+// поэтому новизна строки хранится в самой сущности, иначе save() делал бы лишний SELECT через merge
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder(toBuilder = true)
+@Entity
+@Table(name = "owner_item_views", schema = "public")
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class OwnerItemView implements Persistable<Long> {
+    @Id
+    @Column(name = "item_id")
+    Long itemId;
+    @Column(name = "owner_id", nullable = false)
+    Long ownerId;
+    String name;
+    String description;
+    @Column(name = "is_available", nullable = false)
+    Boolean available;
+    @Column(name = "last_booking_id")
+    Long lastBookingId;
+    @Column(name = "last_booker_id")
+    Long lastBookerId;
+    @Column(name = "next_booking_id")
+    Long nextBookingId;
+    @Column(name = "next_booker_id")
+    Long nextBookerId;
+    @Column(name = "next_booking_start")
+    LocalDateTime nextBookingStart;
+    @Column(name = "comment_count", nullable = false)
+    int commentCount;
+    // Отзывы в виде JSON-массива CommentDto
+    @Column(name = "comments", nullable = false)
+    String comments;
+    @Column(name = "refreshed_at", nullable = false)
+    LocalDateTime refreshedAt;
+    @Transient
+    @Builder.Default
+    boolean created = true;
+
+    @Override
+    public Long getId() {
+        return itemId;
+    }
+
+    @Override
+    public boolean isNew() {
+        return created;
+    }
+
+    @PostLoad
+    @PostPersist
+    void markPersisted() {
+        created = false;
+    }
+}
@@ -0,0 +1,241 @@
+package ru.practicum.shareit.item.search;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.shareit.item.dto.ItemSearchView;
+import ru.practicum.shareit.item.event.ItemChangedEvent;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.storage.ItemJpaRepository;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+// Встроенный поиск по вещам: триграммы названия и описания -> отсортированные id доступных вещей.
+// Индекс хранит и сами тексты в нижнем регистре, поэтому ложные совпадения триграмм отсеиваются без базы,
+// а из базы загружается только запрошенная страница
+@Slf4j
+@Component
+public class ItemSearchIndex {
+    public static final int MIN_QUERY_LENGTH = 3;
+
+    private final ItemJpaRepository itemStorage;
+    private final TransactionTemplate readOnlyTransaction;
+    private final boolean enabled;
+    private final Map<String, LongPostingList> postings = new HashMap<>();
+    private final Map<Long, String[]> texts = new HashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private volatile boolean ready;
+
+    public ItemSearchIndex(ItemJpaRepository itemStorage,
+                           PlatformTransactionManager transactionManager,
+                           @Value("${shareit.search.index.enabled:false}") boolean enabled) {
+        this.itemStorage = itemStorage;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.enabled = enabled;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        if (!enabled) {
+            return;
+        }
+
+        ready = false;
+        lock.writeLock().lock();
+        try {
+            postings.clear();
+            texts.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        AtomicLong indexed = new AtomicLong();
+        readOnlyTransaction.executeWithoutResult(status -> {
+            try (Stream<ItemSearchView> rows = itemStorage.streamAvailableForIndex()) {
+                rows.forEach(row -> {
+                    add(row.getId(), row.getName(), row.getDescription());
+                    indexed.incrementAndGet();
+                });
+            }
+        });
+        ready = true;
+        log.info("Поисковый индекс вещей построен: {} вещей, {} триграмм", indexed.get(), gramCount());
+    }
+
+    @TransactionalEventListener
+    public void onItemChanged(ItemChangedEvent event) {
+        if (!enabled) {
+            return;
+        }
+
+        ItemChangedEvent.Snapshot before = event.getBefore();
+        ItemChangedEvent.Snapshot after = event.getAfter();
+        if (before != null && Boolean.TRUE.equals(before.getAvailable())) {
+            remove(event.getItemId(), before.getName(), before.getDescription());
+        }
+        if (after != null && Boolean.TRUE.equals(after.getAvailable())) {
+            add(event.getItemId(), after.getName(), after.getDescription());
+        }
+    }
+
+    public boolean supports(String text) {
+        return enabled && ready && text.length() >= MIN_QUERY_LENGTH;
+    }
+
+    // Та же постраничная семантика, что и у запроса в базу: страница from / size по возрастанию id
+    public List<Item> search(String text, int from, int size) {
+        List<Long> pageIds = findPage(text.toLowerCase(), (long) (from / size) * size, size);
+        if (pageIds.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        // Вещь могла измениться после чтения индекса, поэтому загруженная страница проверяется повторно
+        String needle = text.toLowerCase();
+        return itemStorage.findAllById(pageIds).stream()
+                .filter(item -> matches(item, needle))
+                .sorted(Comparator.comparingLong(Item::getId))
+                .collect(Collectors.toList());
+    }
+
+    List<Long> findPage(String needle, long offset, int size) {
+        long[] candidates = findCandidates(needle);
+        List<Long> page = new ArrayList<>(Math.min(size, candidates.length));
+        long skipped = 0;
+        lock.readLock().lock();
+        try {
+            for (int i = 0; i < candidates.length && page.size() < size; i++) {
+                String[] itemTexts = texts.get(candidates[i]);
+                if (itemTexts == null || !contains(itemTexts, needle)) {
+                    continue;
+                }
+                if (skipped < offset) {
+                    skipped++;
+                } else {
+                    page.add(candidates[i]);
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return page;
+    }
+
+    long[] findCandidates(String needle) {
+        Set<String> grams = grams(needle);
+        lock.readLock().lock();
+        try {
+            List<LongPostingList> lists = new ArrayList<>(grams.size());
+            for (String gram : grams) {
+                LongPostingList list = postings.get(gram);
+                if (list == null) {
+                    return new long[0];
+                }
+                lists.add(list);
+            }
+            if (lists.isEmpty()) {
+                return new long[0];
+            }
+
+            lists.sort(Comparator.comparingInt(LongPostingList::size));
+            long[] shortest = lists.get(0).toArray();
+            int matched = 0;
+            for (long id : shortest) {
+                boolean inAll = true;
+                for (int i = 1; i < lists.size() && inAll; i++) {
+                    inAll = lists.get(i).contains(id);
+                }
+                if (inAll) {
+                    shortest[matched++] = id;
+                }
+            }
+            return Arrays.copyOf(shortest, matched);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void add(Long id, String name, String description) {
+        Set<String> grams = grams(name, description);
+        lock.writeLock().lock();
+        try {
+            for (String gram : grams) {
+                postings.computeIfAbsent(gram, key -> new LongPostingList()).add(id);
+            }
+            texts.put(id, new String[]{lower(name), lower(description)});
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void remove(Long id, String name, String description) {
+        Set<String> grams = grams(name, description);
+        lock.writeLock().lock();
+        try {
+            for (String gram : grams) {
+                LongPostingList list = postings.get(gram);
+                if (list != null) {
+                    list.remove(id);
+                    if (list.isEmpty()) {
+                        postings.remove(gram);
+                    }
+                }
+            }
+            texts.remove(id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private int gramCount() {
+        lock.readLock().lock();
+        try {
+            return postings.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private static boolean matches(Item item, String needle) {
+        return Boolean.TRUE.equals(item.getAvailable())
+                && (item.getName().toLowerCase().contains(needle)
+                || item.getDescription().toLowerCase().contains(needle));
+    }
+
+    private static boolean contains(String[] itemTexts, String needle) {
+        for (String itemText : itemTexts) {
+            if (itemText != null && itemText.contains(needle)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String lower(String text) {
+        return text == null ? null : text.toLowerCase();
+    }
+
+    private static Set<String> grams(String... texts) {
+        Set<String> grams = new HashSet<>();
+        for (String text : texts) {
+            if (text == null) {
+                continue;
+            }
+            String lower = text.toLowerCase();
+            for (int i = 0; i + MIN_QUERY_LENGTH <= lower.length(); i++) {
+                grams.add(lower.substring(i, i + MIN_QUERY_LENGTH));
+            }
+        }
+        return grams;
+    }
+}
@@ -7,12 +7,15 @@ import ru.practicum.shareit.item.dto.ItemDtoRequest;
 import ru.practicum.shareit.item.model.Comment;
 
 import java.util.List;
+import java.util.function.Consumer;
 
 public interface ItemService {
     ItemDtoOwner getItem(Long userId, Long itemId);
 
     List<ItemDtoOwner> getItems(Long ownerId, int from, int size);
 
+    void streamItems(Long ownerId, Consumer<ItemDtoOwner> consumer);
+
     List<ItemDto> findItems(String text, int from, int size);
 
     ItemDto createItem(ItemDtoRequest itemDtoRequest, Long ownerId);
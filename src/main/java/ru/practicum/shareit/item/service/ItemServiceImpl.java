@@ -1,20 +1,32 @@
 package ru.practicum.shareit.item.service;
 
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.shareit.booking.calendar.ItemAvailabilityCalendar;
+import ru.practicum.shareit.booking.dto.LastAndNextBookings;
 import ru.practicum.shareit.booking.storage.BookingJpaRepository;
 import ru.practicum.shareit.error.ElementAccessException;
 import ru.practicum.shareit.error.EntityNotExistsExeption;
 import ru.practicum.shareit.error.PermissionException;
+import ru.practicum.shareit.item.cache.ItemViewCache;
+import ru.practicum.shareit.item.dashboard.OwnerDashboardProjection;
+import ru.practicum.shareit.item.dto.CommentDto;
 import ru.practicum.shareit.item.dto.CommentDtoRequest;
+import ru.practicum.shareit.item.dto.CommentView;
 import ru.practicum.shareit.item.dto.ItemDto;
 import ru.practicum.shareit.item.dto.ItemDtoOwner;
 import ru.practicum.shareit.item.dto.ItemDtoRequest;
+import ru.practicum.shareit.item.dto.ItemListView;
+import ru.practicum.shareit.item.event.CommentCreatedEvent;
+import ru.practicum.shareit.item.event.ItemChangedEvent;
 import ru.practicum.shareit.item.model.Comment;
 import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.search.ItemSearchIndex;
 import ru.practicum.shareit.item.storage.CommentJpaRepository;
 import ru.practicum.shareit.item.storage.ItemJpaRepository;
 import ru.practicum.shareit.request.model.ItemRequest;
@@ -22,75 +34,145 @@ import ru.practicum.shareit.request.model.Reply;
 import ru.practicum.shareit.request.storage.ItemRequestJpaRepository;
 import ru.practicum.shareit.request.storage.ReplyJpaRepository;
 import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.user.registry.UserRegistry;
 import ru.practicum.shareit.user.storage.UserJpaRepository;
 import ru.practicum.shareit.utils.DtoMapper;
 
+import java.time.LocalDateTime;
 import java.util.*;
+import java.util.function.Consumer;
+import java.util.function.Function;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 @RequiredArgsConstructor
 public class ItemServiceImpl implements ItemService {
+    private static final int STREAM_CHUNK_SIZE = 100;
+
     private final ItemJpaRepository itemStorage;
     private final UserJpaRepository userStorage;
+    private final UserRegistry userRegistry;
     private final BookingJpaRepository bookingStorage;
+    private final ItemAvailabilityCalendar availabilityCalendar;
     private final CommentJpaRepository commentStorage;
     private final ItemRequestJpaRepository itemRequestStorage;
     private final ReplyJpaRepository replyStorage;
+    private final ItemSearchIndex searchIndex;
+    private final ItemViewCache itemViewCache;
+    private final OwnerDashboardProjection ownerDashboard;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Transactional(readOnly = true)
     @Override
     public ItemDtoOwner getItem(Long userId, Long itemId) {
-        userStorage.findById(userId).orElseThrow(() -> new EntityNotExistsExeption(userId.toString()));
+        if (!userRegistry.exists(userId)) {
+            throw new EntityNotExistsExeption(userId.toString());
+        }
+        ItemDtoOwner cachedView = itemViewCache.get(itemId, userId);
+        if (cachedView != null) {
+            return cachedView;
+        }
+
+        long cacheVersion = itemViewCache.version(itemId);
         Item item = itemStorage.findById(itemId).orElseThrow(() -> new EntityNotExistsExeption(itemId.toString()));
-        if (item.getOwner().getId().equals(userId)) {
-            return DtoMapper.toItemDtoOwner(item,
-                    bookingStorage.findLastBookingForItem(itemId).stream().findFirst().orElse(null),
-                    bookingStorage.findNextBookingForItem(itemId).stream().findFirst().orElse(null),
+        Long ownerId = item.getOwner().getId();
+        ItemDtoOwner view;
+        LocalDateTime nextBookingStart = null;
+        if (ownerId.equals(userId)) {
+            LastAndNextBookings bookings = availabilityCalendar.lastAndNext(itemId, LocalDateTime.now());
+            view = DtoMapper.toItemDtoOwner(item,
+                    bookings.getLastBooking(),
+                    bookings.getNextBooking(),
                     commentStorage.findByItemId(itemId).stream()
                             .map(DtoMapper::toCommentDto)
                             .collect(Collectors.toList()));
+            nextBookingStart = bookings.getNextBookingStart();
         } else {
-            return DtoMapper.toItemDtoOwner(item,
+            view = DtoMapper.toItemDtoOwner(item,
                     null,
                     null,
                     commentStorage.findByItemId(itemId).stream()
                             .map(DtoMapper::toCommentDto)
                             .collect(Collectors.toList()));
         }
+
+        itemViewCache.put(itemId, ownerId, ownerId.equals(userId), view, nextBookingStart, cacheVersion);
+        return view;
     }
 
     @Transactional(readOnly = true)
     @Override
     public List<ItemDtoOwner> getItems(Long ownerId, int from, int size) {
-        userStorage.findById(ownerId).orElseThrow(() -> new EntityNotExistsExeption(ownerId.toString()));
+        if (!userRegistry.exists(ownerId)) {
+            throw new EntityNotExistsExeption(ownerId.toString());
+        }
+        if (ownerDashboard.isFresh(ownerId)) {
+            return ownerDashboard.getItems(ownerId, from, size);
+        }
+
         int page = from / size;
         Pageable pageable = PageRequest.of(page, size);
         List<Item> items = itemStorage.findByOwnerId(ownerId, pageable);
 
+        if (items.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        List<Long> itemIds = items.stream().map(Item::getId).collect(Collectors.toList());
+        Map<Long, ItemDtoOwner.ItemLastBooking> lastBookings = bookingStorage.findLastBookingsForItems(itemIds).stream()
+                .collect(Collectors.toMap(ItemDtoOwner.ItemLastBooking::getItemId, Function.identity(),
+                        (first, second) -> first));
+        Map<Long, ItemDtoOwner.ItemNextBooking> nextBookings = bookingStorage.findNextBookingsForItems(itemIds).stream()
+                .collect(Collectors.toMap(ItemDtoOwner.ItemNextBooking::getItemId, Function.identity(),
+                        (first, second) -> first));
+        Map<Long, List<CommentDto>> commentsByItemId = commentStorage.findByItemIdIn(itemIds).stream()
+                .collect(Collectors.groupingBy(comment -> comment.getItem().getId(),
+                        Collectors.mapping(DtoMapper::toCommentDto, Collectors.toList())));
+
         List<ItemDtoOwner> itemDtoOwners = items.stream()
                 .map(x -> DtoMapper.toItemDtoOwner(x,
-                        bookingStorage.findLastBookingForItem(x.getId()).stream().findFirst().orElse(null),
-                        bookingStorage.findNextBookingForItem(x.getId()).stream().findFirst().orElse(null),
-                        commentStorage.findByItemId(x.getId()).stream()
-                                .map(DtoMapper::toCommentDto)
-                                .collect(Collectors.toList())))
+                        lastBookings.get(x.getId()),
+                        nextBookings.get(x.getId()),
+                        commentsByItemId.getOrDefault(x.getId(), Collections.emptyList())))
                 .sorted(Comparator.comparingLong(ItemDtoOwner::getId))
                 .collect(Collectors.toList());
         return itemDtoOwners;
     }
 
+    @Transactional(readOnly = true)
+    @Override
+    public void streamItems(Long ownerId, Consumer<ItemDtoOwner> consumer) {
+        if (!userRegistry.exists(ownerId)) {
+            throw new EntityNotExistsExeption(ownerId.toString());
+        }
+
+        // Вещи читаются курсором, бронирования и комментарии догружаются пачками,
+        // поэтому в памяти одновременно находится не больше одной пачки
+        try (Stream<ItemListView> items = itemStorage.streamByOwnerId(ownerId)) {
+            Iterator<ItemListView> iterator = items.iterator();
+            List<ItemListView> chunk = new ArrayList<>(STREAM_CHUNK_SIZE);
+            while (iterator.hasNext()) {
+                chunk.add(iterator.next());
+                if (chunk.size() == STREAM_CHUNK_SIZE || !iterator.hasNext()) {
+                    streamChunk(chunk, consumer);
+                    chunk.clear();
+                }
+            }
+        }
+    }
+
     @Transactional(readOnly = true)
     @Override
     public List<ItemDto> findItems(String text, int from, int size) {
         int page = from / size;
-        Pageable pageable = PageRequest.of(page, size);
-        List<Item> items = itemStorage.findAll(pageable).stream()
-                .filter(item ->
-                        (item.getName().toLowerCase().contains(text.toLowerCase())
-                                || item.getDescription().toLowerCase().contains(text.toLowerCase()))
-                                && item.getAvailable())
-                .collect(Collectors.toList());
+        List<Item> items;
+        if (searchIndex.supports(text)) {
+            items = searchIndex.search(text, from, size);
+        } else {
+            Pageable pageable = PageRequest.of(page, size, Sort.by(Sort.Direction.ASC, "id"));
+            items = itemStorage.search(toLikePattern(text), pageable);
+        }
 
         List<Long> itemIds = items.stream().map(Item::getId).collect(Collectors.toList());
         List<Comment> comments = commentStorage.findByItemIdIn(itemIds);
@@ -136,6 +218,7 @@ public class ItemServiceImpl implements ItemService {
             savedItem = itemStorage.save(item);
         }
 
+        eventPublisher.publishEvent(ItemChangedEvent.created(savedItem));
         return DtoMapper.toItemDto(savedItem, user, requestId, Collections.emptyList());
     }
 
@@ -159,13 +242,20 @@ public class ItemServiceImpl implements ItemService {
                 .text(commentDtoRequest.getText())
                 .build();
 
-        return commentStorage.save(comment);
+        Comment savedComment = commentStorage.save(comment);
+        eventPublisher.publishEvent(CommentCreatedEvent.of(savedComment));
+
+        return savedComment;
     }
 
     @Transactional
     @Override
     public ItemDto updateItem(ItemDtoRequest itemDtoRequest, Long itemId, Long ownerId) {
-        User user = userStorage.findById(ownerId).orElseThrow(() -> new EntityNotExistsExeption(ownerId.toString()));
+        // Владелец проверяется по реестру, а в ответ попадает item.getOwner(): он приходит вместе с вещью,
+        // отдельная загрузка пользователя по ownerId была бы вторым чтением той же строки
+        if (!userRegistry.exists(ownerId)) {
+            throw new EntityNotExistsExeption(ownerId.toString());
+        }
 
         Item item = itemStorage.findById(itemId).orElseThrow(
                 () -> new EntityNotExistsExeption(itemId.toString()));
@@ -174,16 +264,18 @@ public class ItemServiceImpl implements ItemService {
             throw new PermissionException(ownerId.toString());
         }
 
+        ItemChangedEvent.Snapshot before = ItemChangedEvent.Snapshot.of(item);
         Item updateItem = item.toBuilder()
                 .name(itemDtoRequest.getName() == null ? item.getName() : itemDtoRequest.getName())
                 .description(itemDtoRequest.getDescription() == null ? item.getDescription() : itemDtoRequest.getDescription())
                 .available(itemDtoRequest.getAvailable() == null ? item.getAvailable() : itemDtoRequest.getAvailable())
                 .build();
         Item savedItem = itemStorage.save(updateItem);
+        eventPublisher.publishEvent(ItemChangedEvent.updated(before, savedItem));
         List<Comment> comments = commentStorage.findByItemId(savedItem.getId());
         Long requestId = savedItem.getRequest() != null ? savedItem.getRequest().getId() : null;
 
-        return DtoMapper.toItemDto(savedItem, user, requestId, comments);
+        return DtoMapper.toItemDto(savedItem, savedItem.getOwner(), requestId, comments);
     }
 
     @Transactional
@@ -196,8 +288,35 @@ public class ItemServiceImpl implements ItemService {
 
         if (Objects.equals(user.getId(), ownerId)) {
             itemStorage.delete(item);
+            eventPublisher.publishEvent(ItemChangedEvent.deleted(item));
         } else {
             throw new PermissionException(ownerId.toString());
         }
     }
+
+    private static String toLikePattern(String text) {
+        String escaped = text.toLowerCase()
+                .replace("!", "!!")
+                .replace("%", "!%")
+                .replace("_", "!_");
+        return "%" + escaped + "%";
+    }
+
+    private void streamChunk(List<ItemListView> items, Consumer<ItemDtoOwner> consumer) {
+        List<Long> itemIds = items.stream().map(ItemListView::getId).collect(Collectors.toList());
+        Map<Long, ItemDtoOwner.ItemLastBooking> lastBookings = bookingStorage.findLastBookingsForItems(itemIds).stream()
+                .collect(Collectors.toMap(ItemDtoOwner.ItemLastBooking::getItemId, Function.identity(),
+                        (first, second) -> first));
+        Map<Long, ItemDtoOwner.ItemNextBooking> nextBookings = bookingStorage.findNextBookingsForItems(itemIds).stream()
+                .collect(Collectors.toMap(ItemDtoOwner.ItemNextBooking::getItemId, Function.identity(),
+                        (first, second) -> first));
+        Map<Long, List<CommentDto>> commentsByItemId = commentStorage.findViewsByItemIdIn(itemIds).stream()
+                .collect(Collectors.groupingBy(CommentView::getItemId,
+                        Collectors.mapping(DtoMapper::toCommentDto, Collectors.toList())));
+
+        items.forEach(item -> consumer.accept(DtoMapper.toItemDtoOwner(item,
+                lastBookings.get(item.getId()),
+                nextBookings.get(item.getId()),
+                commentsByItemId.getOrDefault(item.getId(), Collections.emptyList()))));
+    }
 }
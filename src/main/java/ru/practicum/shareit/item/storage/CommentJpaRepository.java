@@ -1,6 +1,10 @@
 package ru.practicum.shareit.item.storage;
 
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import ru.practicum.shareit.item.dto.CommentView;
 import ru.practicum.shareit.item.model.Comment;
 
 import java.util.List;
@@ -9,5 +13,13 @@ import java.util.List;
 public interface CommentJpaRepository extends JpaRepository<Comment, Long> {
     List<Comment> findByItemId(Long itemId);
 
+    @EntityGraph(attributePaths = {"user"})
     List<Comment> findByItemIdIn(List<Long> itemIds);
+
+    @Query("SELECT c.item.id as itemId, c.id as id, c.text as text, u.name as authorName, c.createdAt as created " +
+            "FROM Comment c JOIN c.user u WHERE c.item.id IN :itemIds")
+    List<CommentView> findViewsByItemIdIn(@Param("itemIds") List<Long> itemIds);
+
+    @Query("SELECT DISTINCT c.item.id FROM Comment c WHERE c.user.id = :userId")
+    List<Long> findItemIdsByAuthorId(@Param("userId") Long userId);
 }
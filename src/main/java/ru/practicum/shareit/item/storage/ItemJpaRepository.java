@@ -2,10 +2,44 @@ package ru.practicum.shareit.item.storage;
 
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import ru.practicum.shareit.item.dto.ItemListView;
+import ru.practicum.shareit.item.dto.ItemSearchView;
 import ru.practicum.shareit.item.model.Item;
 
+import javax.persistence.LockModeType;
+import javax.persistence.QueryHint;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 public interface ItemJpaRepository extends JpaRepository<Item, Long> {
     List<Item> findByOwnerId(Long ownerId, Pageable pageable);
+
+    // Поиск доступных вещей по подстроке в названии или описании, pattern уже экранирован
+    @Query("SELECT i FROM Item i " +
+            "WHERE i.available = TRUE " +
+            "AND (LOWER(i.name) LIKE :pattern ESCAPE '!' " +
+            "OR LOWER(i.description) LIKE :pattern ESCAPE '!')")
+    List<Item> search(@Param("pattern") String pattern, Pageable pageable);
+
+    // Потоковое чтение доступных вещей для построения поискового индекса, без загрузки сущностей
+    @QueryHints(@QueryHint(name = org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("SELECT i.id as id, i.name as name, i.description as description FROM Item i " +
+            "WHERE i.available = TRUE")
+    Stream<ItemSearchView> streamAvailableForIndex();
+
+    // Потоковое чтение вещей владельца по возрастанию id для выгрузки списка, без загрузки сущностей
+    @QueryHints(@QueryHint(name = org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("SELECT i.id as id, i.name as name, i.description as description, i.available as available " +
+            "FROM Item i WHERE i.owner.id = :ownerId ORDER BY i.id")
+    Stream<ItemListView> streamByOwnerId(@Param("ownerId") Long ownerId);
+
+    // Блокировка строки вещи до конца транзакции, сериализует подтверждение бронирований одной вещи
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT i FROM Item i WHERE i.id = :itemId")
+    Optional<Item> lockById(@Param("itemId") Long itemId);
 }
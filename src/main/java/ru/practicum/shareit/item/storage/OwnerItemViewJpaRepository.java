@@ -0,0 +1,25 @@
+package ru.practicum.shareit.item.storage;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import ru.practicum.shareit.item.model.OwnerItemView;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface OwnerItemViewJpaRepository extends JpaRepository<OwnerItemView, Long> {
+
+    // Одна выборка по индексу (owner_id, item_id) на страницу
+    @Query("SELECT v FROM OwnerItemView v WHERE v.ownerId = :ownerId ORDER BY v.itemId")
+    List<OwnerItemView> findPageByOwnerId(@Param("ownerId") Long ownerId, Pageable pageable);
+
+    @Query("SELECT v.itemId FROM OwnerItemView v WHERE v.nextBookingStart <= :moment ORDER BY v.nextBookingStart")
+    List<Long> findItemIdsWithNextBookingStartedBy(@Param("moment") LocalDateTime moment, Pageable pageable);
+
+    // Вещи, для которых строки еще нет: первичное заполнение после миграции
+    @Query("SELECT i.id FROM Item i WHERE NOT EXISTS " +
+            "(SELECT v.itemId FROM OwnerItemView v WHERE v.itemId = i.id) ORDER BY i.id")
+    List<Long> findItemIdsWithoutView(Pageable pageable);
+}
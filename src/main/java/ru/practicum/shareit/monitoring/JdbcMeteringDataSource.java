@@ -0,0 +1,86 @@
+package ru.practicum.shareit.monitoring;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+// Время выполнения запросов и число прочитанных строк для RequestQueryStats.
+// Обертка ставится только на соединения, взятые при открытом подсчете: фоновые задачи
+// и асинхронная запись ответа работают с соединениями пула напрямую
+public class JdbcMeteringDataSource extends DelegatingDataSource {
+
+    public JdbcMeteringDataSource(DataSource targetDataSource) {
+        super(targetDataSource);
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return meter(super.getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return meter(super.getConnection(username, password));
+    }
+
+    private static Connection meter(Connection connection) {
+        RequestQueryStats stats = RequestQueryStats.current();
+        if (stats == null) {
+            return connection;
+        }
+        return proxy(Connection.class, connection, (target, method, args) -> {
+            Object result = invoke(connection, method, args);
+            return result instanceof Statement ? meter(method.getReturnType(), (Statement) result, stats) : result;
+        });
+    }
+
+    private static Object meter(Class<?> type, Statement statement, RequestQueryStats stats) {
+        return proxy(type, statement, (target, method, args) -> {
+            if (!method.getName().startsWith("execute")) {
+                Object result = invoke(statement, method, args);
+                return method.getName().equals("getResultSet") && result != null
+                        ? meter((ResultSet) result, stats)
+                        : result;
+            }
+
+            long startedAt = System.nanoTime();
+            try {
+                Object result = invoke(statement, method, args);
+                return result instanceof ResultSet ? meter((ResultSet) result, stats) : result;
+            } finally {
+                stats.jdbcExecuted(System.nanoTime() - startedAt);
+            }
+        });
+    }
+
+    private static ResultSet meter(ResultSet resultSet, RequestQueryStats stats) {
+        return proxy(ResultSet.class, resultSet, (target, method, args) -> {
+            Object result = invoke(resultSet, method, args);
+            if (Boolean.TRUE.equals(result) && method.getName().equals("next")) {
+                stats.rowFetched();
+            }
+            return result;
+        });
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T proxy(Class<?> type, Object target, InvocationHandler handler) {
+        return (T) Proxy.newProxyInstance(JdbcMeteringDataSource.class.getClassLoader(), new Class<?>[]{type}, handler);
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getTargetException();
+        }
+    }
+}
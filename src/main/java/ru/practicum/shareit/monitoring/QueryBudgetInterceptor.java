@@ -0,0 +1,99 @@
+package ru.practicum.shareit.monitoring;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+import ru.practicum.shareit.utils.annotations.QueryBudget;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+// Считает SQL-запросы обработчика и пишет предупреждение, если их больше бюджета.
+// Транзакция контроллера открывается внутри вызова обработчика, поэтому все ее запросы попадают в подсчет.
+// Итог по обработчику уходит в метрики shareit.sql.* с тегом endpoint, например ItemController.getAll
+@Slf4j
+@RequiredArgsConstructor
+public class QueryBudgetInterceptor implements AsyncHandlerInterceptor {
+    // Атрибуты запроса с итогами, по ним тесты проверяют бюджет после выполнения запроса
+    public static final String STATS_ATTRIBUTE = QueryBudgetInterceptor.class.getName() + ".stats";
+    public static final String BUDGET_ATTRIBUTE = QueryBudgetInterceptor.class.getName() + ".budget";
+
+    private final QueryBudgetProperties properties;
+    private final MeterRegistry meterRegistry;
+
+    public static String endpointName(HandlerMethod handlerMethod) {
+        return handlerMethod.getBeanType().getSimpleName() + "." + handlerMethod.getMethod().getName();
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (handler instanceof HandlerMethod) {
+            RequestQueryStats.start();
+        }
+        return true;
+    }
+
+    // Ответ пишется в другом потоке, счет в потоке запроса на этом заканчивается
+    @Override
+    public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        RequestQueryStats.finish();
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request,
+                                HttpServletResponse response,
+                                Object handler,
+                                Exception ex) {
+        RequestQueryStats stats = RequestQueryStats.current();
+        RequestQueryStats.finish();
+        if (stats == null || !(handler instanceof HandlerMethod)) {
+            return;
+        }
+
+        HandlerMethod handlerMethod = (HandlerMethod) handler;
+        String endpoint = endpointName(handlerMethod);
+        QueryBudget declared = handlerMethod.getMethodAnnotation(QueryBudget.class);
+        int budget = properties.budgetFor(endpoint, declared == null ? null : declared.value());
+        request.setAttribute(STATS_ATTRIBUTE, stats);
+        request.setAttribute(BUDGET_ATTRIBUTE, budget);
+        record(endpoint, stats, budget);
+
+        if (stats.getStatements() > budget) {
+            log.warn("{} выполнил {} SQL-запросов при бюджете {}: {}", endpoint, stats.getStatements(), budget, stats);
+        } else {
+            log.debug("{}: {}", endpoint, stats);
+        }
+    }
+
+    private void record(String endpoint, RequestQueryStats stats, int budget) {
+        DistributionSummary.builder("shareit.sql.statements")
+                .description("SQL-запросов на вызов обработчика")
+                .tag("endpoint", endpoint)
+                .register(meterRegistry)
+                .record(stats.getStatements());
+        // Без JdbcMeteringDataSource строки и время остаются нулевыми и только исказили бы метрики
+        if (properties.isJdbcMetering()) {
+            DistributionSummary.builder("shareit.sql.rows")
+                    .description("Строк, прочитанных из JDBC ResultSet на вызов обработчика")
+                    .tag("endpoint", endpoint)
+                    .register(meterRegistry)
+                    .record(stats.getRows());
+            Timer.builder("shareit.sql.jdbc.time")
+                    .description("Время выполнения SQL на вызов обработчика")
+                    .tag("endpoint", endpoint)
+                    .register(meterRegistry)
+                    .record(stats.getJdbcTime());
+        }
+        if (stats.getStatements() > budget) {
+            Counter.builder("shareit.sql.budget.exceeded")
+                    .tag("endpoint", endpoint)
+                    .register(meterRegistry)
+                    .increment();
+        }
+    }
+}
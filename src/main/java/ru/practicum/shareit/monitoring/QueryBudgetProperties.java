@@ -0,0 +1,27 @@
+package ru.practicum.shareit.monitoring;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.HashMap;
+import java.util.Map;
+
+// shareit.query-budget.endpoints[ItemController.getAll]=5 задает бюджет отдельного обработчика
+// поверх @QueryBudget, остальные получают default-budget.
+// jdbc-metering включает подсчет строк и времени JDBC, без него пишется только число запросов
+@Data
+@ConfigurationProperties(prefix = "shareit.query-budget")
+public class QueryBudgetProperties {
+    private boolean enabled = true;
+    private int defaultBudget = 10;
+    private boolean jdbcMetering = false;
+    private Map<String, Integer> endpoints = new HashMap<>();
+
+    public int budgetFor(String endpoint, Integer declaredBudget) {
+        Integer configured = endpoints.get(endpoint);
+        if (configured != null) {
+            return configured;
+        }
+        return declaredBudget != null ? declaredBudget : defaultBudget;
+    }
+}
@@ -0,0 +1,100 @@
+package ru.practicum.shareit.monitoring;
+
+import java.io.Serializable;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+// Счетчики SQL одного HTTP-запроса, привязанные к потоку, который его обрабатывает.
+// Запросы из других потоков (асинхронная выгрузка, фоновые задачи) сюда не попадают
+public final class RequestQueryStats {
+    private static final ThreadLocal<RequestQueryStats> CURRENT = new ThreadLocal<>();
+
+    private int statements;
+    private long rows;
+    private long jdbcNanos;
+    // Загрузки сущностей в контекст постоянства по типу и id. Внутри одной транзакции строка читается
+    // не больше одного раза, повтор означает второй контекст или clear() в пределах запроса
+    private final Map<String, Integer> entityLoads = new LinkedHashMap<>();
+    // Тексты запросов хранятся только при startCapturing, в обычном подсчете они не нужны
+    private final List<String> sql;
+
+    private RequestQueryStats(boolean captureSql) {
+        this.sql = captureSql ? new ArrayList<>() : null;
+    }
+
+    public static RequestQueryStats start() {
+        return begin(false);
+    }
+
+    // Как start, но дополнительно сохраняет SQL в том виде, в каком его сгенерировал Hibernate
+    public static RequestQueryStats startCapturing() {
+        return begin(true);
+    }
+
+    private static RequestQueryStats begin(boolean captureSql) {
+        RequestQueryStats stats = new RequestQueryStats(captureSql);
+        CURRENT.set(stats);
+        return stats;
+    }
+
+    public static RequestQueryStats current() {
+        return CURRENT.get();
+    }
+
+    public static void finish() {
+        CURRENT.remove();
+    }
+
+    void statementPrepared(String statement) {
+        statements++;
+        if (sql != null) {
+            sql.add(statement);
+        }
+    }
+
+    void rowFetched() {
+        rows++;
+    }
+
+    void jdbcExecuted(long nanos) {
+        jdbcNanos += nanos;
+    }
+
+    void entityLoaded(Class<?> type, Serializable id) {
+        entityLoads.merge(type.getSimpleName() + "#" + id, 1, Integer::sum);
+    }
+
+    public int getStatements() {
+        return statements;
+    }
+
+    public long getRows() {
+        return rows;
+    }
+
+    public Duration getJdbcTime() {
+        return Duration.ofNanos(jdbcNanos);
+    }
+
+    public List<String> getSql() {
+        return sql == null ? List.of() : Collections.unmodifiableList(sql);
+    }
+
+    public Map<String, Integer> getRepeatedLoads() {
+        return entityLoads.entrySet().stream()
+                .filter(entry -> entry.getValue() > 1)
+                .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue,
+                        (first, second) -> first, LinkedHashMap::new));
+    }
+
+    @Override
+    public String toString() {
+        return statements + " SQL-запросов, " + rows + " строк, JDBC " + getJdbcTime().toMillis()
+                + " мс, повторные загрузки сущностей: " + getRepeatedLoads();
+    }
+}
@@ -0,0 +1,10 @@
+package ru.practicum.shareit.outbox.event;
+
+import lombok.Value;
+
+// Публикуется ретранслятором после рассылки пачки, в той же транзакции.
+// Слушатели, копившие изменения по сообщениям пачки, применяют их здесь одним проходом
+@Value
+public class OutboxBatchDelivered {
+    int size;
+}
@@ -0,0 +1,11 @@
+package ru.practicum.shareit.outbox.event;
+
+// Доменное событие, которое кроме обычной публикации в транзакции записывается в outbox_events
+// и после фиксации доставляется слушателям OutboxMessage. Событие должно читаться Jackson из JSON
+public interface OutboxEvent {
+    // Владелец вещей, которые меняет событие, или null. Сохраняется в outbox_events.owner_id,
+    // чтобы чтение read-модели владельца могло убедиться, что все его изменения уже доставлены
+    default Long ownerId() {
+        return null;
+    }
+}
@@ -0,0 +1,22 @@
+package ru.practicum.shareit.outbox.event;
+
+import lombok.Value;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.ResolvableTypeProvider;
+
+import java.time.LocalDateTime;
+
+// Событие из outbox, доставленное ретранслятором. Слушатели подписываются на конкретный тип:
+// @EventListener void on(OutboxMessage<ItemChangedEvent> message).
+// Доставка "хотя бы один раз", повторное сообщение можно распознать по id
+@Value
+public class OutboxMessage<T extends OutboxEvent> implements ResolvableTypeProvider {
+    Long id;
+    T payload;
+    LocalDateTime createdAt;
+
+    @Override
+    public ResolvableType getResolvableType() {
+        return ResolvableType.forClassWithGenerics(getClass(), ResolvableType.forInstance(payload));
+    }
+}
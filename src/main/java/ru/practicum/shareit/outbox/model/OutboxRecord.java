@@ -0,0 +1,45 @@
+package ru.practicum.shareit.outbox.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.*;
+import java.time.LocalDateTime;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder(toBuilder = true)
+@Entity
+@Table(name = "outbox_events", schema = "public")
+public class OutboxRecord {
+    public static final int LAST_ERROR_LENGTH = 1000;
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "outbox_events_seq")
+    @SequenceGenerator(name = "outbox_events_seq", sequenceName = "outbox_events_seq", allocationSize = 50)
+    Long id;
+    @Column(name = "event_type", nullable = false, updatable = false)
+    String eventType;
+    @Column(name = "payload", nullable = false, updatable = false)
+    String payload;
+    @Column(name = "created_at", nullable = false, updatable = false)
+    LocalDateTime createdAt;
+    @Column(name = "published_at")
+    LocalDateTime publishedAt;
+    @Column(name = "owner_id", updatable = false)
+    Long ownerId;
+    @Column(name = "attempts", nullable = false)
+    int attempts;
+    @Column(name = "last_error", length = LAST_ERROR_LENGTH)
+    String lastError;
+    @Column(name = "parked_at")
+    LocalDateTime parkedAt;
+
+    @PrePersist
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+    }
+}
@@ -0,0 +1,211 @@
+package ru.practicum.shareit.outbox.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.shareit.outbox.event.OutboxBatchDelivered;
+import ru.practicum.shareit.outbox.event.OutboxEvent;
+import ru.practicum.shareit.outbox.event.OutboxMessage;
+import ru.practicum.shareit.outbox.model.OutboxRecord;
+import ru.practicum.shareit.outbox.storage.OutboxRecordJpaRepository;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicReference;
+
+// Фоновая доставка событий из outbox_events слушателям OutboxMessage.
+// Пачка выбирается, рассылается и отмечается опубликованной в одной транзакции:
+// исключение слушателя откатывает всю пачку, и она будет доставлена повторно на следующем проходе.
+// Порядок доставки совпадает с порядком id, то есть с порядком записи в пределах одного экземпляра приложения.
+// Если пачка откатилась, события доставляются по одному до первого сбойного. Его попытки и последняя ошибка
+// сохраняются, после max-attempts неудач оно откладывается (parked_at) и больше не задерживает очередь.
+// Отложенные события не удаляются очисткой, вернуть их в очередь можно, сбросив parked_at и attempts
+@Slf4j
+@Component
+public class OutboxRelay {
+    private final OutboxRecordJpaRepository outboxRepository;
+    private final ObjectMapper objectMapper;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate relayTransaction;
+    private final int batchSize;
+    private final int maxAttempts;
+    private final Duration retention;
+    private final Timer deliveryLag;
+    private final Counter skipped;
+    private final Counter failures;
+    private final Counter parked;
+    // Момент начала последнего прохода, который разобрал очередь до конца: все, что зафиксировано раньше,
+    // уже доставлено. При нескольких экземплярах строки, занятые соседом (SKIP LOCKED), сюда не входят
+    private volatile LocalDateTime caughtUpAt;
+
+    public OutboxRelay(OutboxRecordJpaRepository outboxRepository,
+                       ObjectMapper objectMapper,
+                       ApplicationEventPublisher eventPublisher,
+                       PlatformTransactionManager transactionManager,
+                       MeterRegistry meterRegistry,
+                       @Value("${shareit.outbox.relay.batch-size:100}") int batchSize,
+                       @Value("${shareit.outbox.relay.max-attempts:10}") int maxAttempts,
+                       @Value("${shareit.outbox.retention:P1D}") Duration retention) {
+        this.outboxRepository = outboxRepository;
+        this.objectMapper = objectMapper;
+        this.eventPublisher = eventPublisher;
+        this.relayTransaction = new TransactionTemplate(transactionManager);
+        this.batchSize = batchSize;
+        this.maxAttempts = maxAttempts;
+        this.retention = retention;
+        this.deliveryLag = Timer.builder("shareit.outbox.delivery.lag")
+                .description("Время от записи события в outbox до его доставки слушателям")
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+        this.skipped = Counter.builder("shareit.outbox.skipped")
+                .description("События outbox, которые не удалось прочитать")
+                .register(meterRegistry);
+        this.failures = Counter.builder("shareit.outbox.failures")
+                .description("Неудачные попытки доставить событие outbox")
+                .register(meterRegistry);
+        this.parked = Counter.builder("shareit.outbox.parked")
+                .description("События outbox, отложенные после max-attempts неудачных попыток")
+                .register(meterRegistry);
+    }
+
+    // Пока пачки приходят полными, отставание разбирается без ожидания следующего запуска
+    @Scheduled(fixedDelayString = "${shareit.outbox.relay.interval:PT1S}")
+    public void relay() {
+        int relayed;
+        do {
+            relayed = relayBatch();
+        } while (relayed == batchSize);
+    }
+
+    public int relayBatch() {
+        LocalDateTime startedAt = LocalDateTime.now();
+        Integer relayed;
+        try {
+            relayed = relayTransaction.execute(status ->
+                    deliver(outboxRepository.findUnpublished(PageRequest.of(0, batchSize))));
+        } catch (RuntimeException e) {
+            log.warn("Пачка outbox откатилась, события доставляются по одному", e);
+            return relayOneByOne();
+        }
+        if (relayed != null && relayed < batchSize) {
+            caughtUpAt = startedAt;
+        }
+        return relayed == null ? 0 : relayed;
+    }
+
+    public Optional<LocalDateTime> caughtUpAt() {
+        return Optional.ofNullable(caughtUpAt);
+    }
+
+    // Пачка отмечается опубликованной в той же транзакции, в которой ее применяют слушатели,
+    // поэтому отсутствие недоставленных событий владельца значит, что его изменения уже видны в read-моделях
+    public boolean hasUndelivered(Long ownerId) {
+        return outboxRepository.existsUnpublishedForOwner(ownerId);
+    }
+
+    @Scheduled(fixedDelayString = "${shareit.outbox.purge.interval:PT1H}")
+    public void purge() {
+        LocalDateTime before = LocalDateTime.now().minus(retention);
+        Integer deleted = relayTransaction.execute(status -> outboxRepository.deletePublishedBefore(before));
+        log.debug("Из outbox удалено {} опубликованных событий старше {}", deleted, before);
+    }
+
+    private int deliver(List<OutboxRecord> records) {
+        LocalDateTime now = LocalDateTime.now();
+        for (OutboxRecord record : records) {
+            OutboxEvent event = read(record);
+            if (event != null) {
+                eventPublisher.publishEvent(new OutboxMessage<>(record.getId(), event, record.getCreatedAt()));
+                deliveryLag.record(Duration.between(record.getCreatedAt(), now));
+            }
+            record.setPublishedAt(now);
+        }
+        if (!records.isEmpty()) {
+            eventPublisher.publishEvent(new OutboxBatchDelivered(records.size()));
+        }
+        return records.size();
+    }
+
+    // Каждое событие в своей транзакции: доставленные до сбойного фиксируются, на сбойном проход
+    // останавливается, пока оно не отложено, чтобы следующие события не обгоняли его
+    private int relayOneByOne() {
+        int relayed = 0;
+        while (relayed < batchSize) {
+            AtomicReference<Long> currentId = new AtomicReference<>();
+            Integer delivered;
+            try {
+                delivered = relayTransaction.execute(status -> {
+                    List<OutboxRecord> records = outboxRepository.findUnpublished(PageRequest.of(0, 1));
+                    records.forEach(record -> currentId.set(record.getId()));
+                    return deliver(records);
+                });
+            } catch (RuntimeException e) {
+                if (currentId.get() == null || !recordFailure(currentId.get(), e)) {
+                    return relayed;
+                }
+                continue;
+            }
+            if (delivered == null || delivered == 0) {
+                return relayed;
+            }
+            relayed += delivered;
+        }
+        return relayed;
+    }
+
+    // Возвращает true, если событие отложено
+    private boolean recordFailure(Long id, RuntimeException error) {
+        failures.increment();
+        Boolean parkedNow = relayTransaction.execute(status -> outboxRepository.findById(id)
+                .map(record -> {
+                    record.setAttempts(record.getAttempts() + 1);
+                    record.setLastError(abbreviate(error.toString()));
+                    if (record.getAttempts() < maxAttempts) {
+                        return false;
+                    }
+                    record.setParkedAt(LocalDateTime.now());
+                    return true;
+                })
+                .orElse(false));
+        if (Boolean.TRUE.equals(parkedNow)) {
+            parked.increment();
+            log.error("Событие outbox {} отложено после {} неудачных попыток", id, maxAttempts, error);
+            return true;
+        }
+        log.warn("Не удалось доставить событие outbox {}", id, error);
+        return false;
+    }
+
+    private static String abbreviate(String message) {
+        return message.length() <= OutboxRecord.LAST_ERROR_LENGTH
+                ? message
+                : message.substring(0, OutboxRecord.LAST_ERROR_LENGTH);
+    }
+
+    // Нечитаемое событие не должно навсегда останавливать очередь: оно пропускается с ошибкой в журнале
+    private OutboxEvent read(OutboxRecord record) {
+        try {
+            Class<?> type = Class.forName(record.getEventType());
+            if (!OutboxEvent.class.isAssignableFrom(type)) {
+                throw new IllegalArgumentException(type + " не является OutboxEvent");
+            }
+            return (OutboxEvent) objectMapper.readValue(record.getPayload(), type);
+        } catch (ClassNotFoundException | IllegalArgumentException | IOException e) {
+            log.error("Событие outbox {} типа {} пропущено", record.getId(), record.getEventType(), e);
+            skipped.increment();
+            return null;
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package ru.practicum.shareit.outbox.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.shareit.outbox.event.OutboxEvent;
+import ru.practicum.shareit.outbox.model.OutboxRecord;
+import ru.practicum.shareit.outbox.storage.OutboxRecordJpaRepository;
+
+// Синхронный слушатель: запись в outbox идет в транзакции сервиса, опубликовавшего событие,
+// и откатывается вместе с ней. Событие вне транзакции - ошибка в сервисе, а не повод терять запись
+@Component
+@RequiredArgsConstructor
+@Transactional(propagation = Propagation.MANDATORY)
+public class OutboxWriter {
+    private final OutboxRecordJpaRepository outboxRepository;
+    private final ObjectMapper objectMapper;
+
+    @EventListener
+    public void write(OutboxEvent event) {
+        outboxRepository.save(OutboxRecord.builder()
+                .eventType(event.getClass().getName())
+                .payload(serialize(event))
+                .ownerId(event.ownerId())
+                .build());
+    }
+
+    private String serialize(OutboxEvent event) {
+        try {
+            return objectMapper.writeValueAsString(event);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Не удалось сериализовать событие " + event, e);
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package ru.practicum.shareit.outbox.storage;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import ru.practicum.shareit.outbox.model.OutboxRecord;
+
+import javax.persistence.LockModeType;
+import javax.persistence.QueryHint;
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface OutboxRecordJpaRepository extends JpaRepository<OutboxRecord, Long> {
+
+    // Таймаут блокировки -2 превращается в SKIP LOCKED: несколько экземпляров приложения
+    // разбирают разные пачки и не ждут друг друга. На H2 остается обычный FOR UPDATE
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "javax.persistence.lock.timeout", value = "-2"))
+    @Query("SELECT o FROM OutboxRecord o WHERE o.publishedAt IS NULL AND o.parkedAt IS NULL ORDER BY o.id")
+    List<OutboxRecord> findUnpublished(Pageable pageable);
+
+    // Отложенные события тоже считаются недоставленными: read-модель владельца их не видела
+    @Query("SELECT CASE WHEN COUNT(o) > 0 THEN TRUE ELSE FALSE END " +
+            "FROM OutboxRecord o WHERE o.ownerId = :ownerId AND o.publishedAt IS NULL")
+    boolean existsUnpublishedForOwner(@Param("ownerId") Long ownerId);
+
+    @Modifying
+    @Query("DELETE FROM OutboxRecord o WHERE o.publishedAt < :before")
+    int deletePublishedBefore(@Param("before") LocalDateTime before);
+}
@@ -0,0 +1,18 @@
+package ru.practicum.shareit.request.event;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import lombok.AllArgsConstructor;
+import lombok.Value;
+import ru.practicum.shareit.outbox.event.OutboxEvent;
+import ru.practicum.shareit.request.model.ItemRequest;
+
+@Value
+@AllArgsConstructor(onConstructor_ = @JsonCreator)
+public class ItemRequestCreatedEvent implements OutboxEvent {
+    Long requestId;
+    Long applicantId;
+
+    public static ItemRequestCreatedEvent of(ItemRequest itemRequest) {
+        return new ItemRequestCreatedEvent(itemRequest.getId(), itemRequest.getApplicant().getId());
+    }
+}
@@ -16,7 +16,8 @@ import javax.persistence.*;
 @FieldDefaults(level = AccessLevel.PRIVATE)
 public class Reply {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "replies_seq")
+    @SequenceGenerator(name = "replies_seq", sequenceName = "replies_seq", allocationSize = 50)
     Long id;
     @ManyToOne
     @JoinColumn(name = "request_id", nullable = false)
@@ -1,6 +1,7 @@
 package ru.practicum.shareit.request.service;
 
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
@@ -10,9 +11,11 @@ import ru.practicum.shareit.error.EntityNotExistsExeption;
 import ru.practicum.shareit.request.dto.ItemRequestCreateDto;
 import ru.practicum.shareit.request.dto.ItemRequestResponseDto;
 import ru.practicum.shareit.request.dto.ReplyDto;
+import ru.practicum.shareit.request.event.ItemRequestCreatedEvent;
 import ru.practicum.shareit.request.model.ItemRequest;
 import ru.practicum.shareit.request.storage.ItemRequestJpaRepository;
 import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.user.registry.UserRegistry;
 import ru.practicum.shareit.user.storage.UserJpaRepository;
 import ru.practicum.shareit.utils.DtoMapper;
 
@@ -25,22 +28,26 @@ import java.util.stream.Collectors;
 public class ItemRequestServiceImpl implements ItemRequestService {
     private final ItemRequestJpaRepository itemRequestStorage;
     private final UserJpaRepository userJpaRepository;
+    private final UserRegistry userRegistry;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Transactional
     @Override
     public ItemRequestResponseDto createItemRequest(Long userId, ItemRequestCreateDto itemRequestCreateDto) {
         User user = userJpaRepository.findById(userId).orElseThrow(
                 () -> new EntityNotExistsExeption("Пользователя " + userId + "нет"));
-        ItemRequest itemRequest = DtoMapper.toItemRequestEntity(user, itemRequestCreateDto);
+        ItemRequest itemRequest = itemRequestStorage.save(DtoMapper.toItemRequestEntity(user, itemRequestCreateDto));
+        eventPublisher.publishEvent(ItemRequestCreatedEvent.of(itemRequest));
 
-        return DtoMapper.toItemRequestResponseDto(itemRequestStorage.save(itemRequest), Collections.emptyList());
+        return DtoMapper.toItemRequestResponseDto(itemRequest, Collections.emptyList());
     }
 
     @Transactional(readOnly = true)
     @Override
     public List<ItemRequestResponseDto> getAllRequestsForUser(Long userId) {
-        User user = userJpaRepository.findById(userId).orElseThrow(
-                () -> new EntityNotExistsExeption("Пользователя " + userId + "нет"));
+        if (!userRegistry.exists(userId)) {
+            throw new EntityNotExistsExeption("Пользователя " + userId + "нет");
+        }
         Sort sort = Sort.by(Sort.Direction.DESC, "createdAt");
 
         return itemRequestStorage.findByApplicantId(userId, sort).stream()
@@ -75,8 +82,9 @@ public class ItemRequestServiceImpl implements ItemRequestService {
     @Transactional(readOnly = true)
     @Override
     public ItemRequestResponseDto getItemRequest(Long userId, Long requestId) {
-        userJpaRepository.findById(userId).orElseThrow(
-                () -> new EntityNotExistsExeption("Пользователя " + userId + "не существует"));
+        if (!userRegistry.exists(userId)) {
+            throw new EntityNotExistsExeption("Пользователя " + userId + "не существует");
+        }
 
         ItemRequest itemRequest = itemRequestStorage.findById(requestId).orElseThrow(() ->
                 new EntityNotExistsExeption("Запроса " + requestId + " не существует"));
@@ -3,11 +3,15 @@ package ru.practicum.shareit.request.storage;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.QueryHints;
 import ru.practicum.shareit.request.model.ItemRequest;
 
+import javax.persistence.QueryHint;
 import java.util.List;
 
 public interface ItemRequestJpaRepository extends JpaRepository<ItemRequest, Long> {
+    // Свои запросы пользователя меняются только при создании нового запроса
+    @QueryHints(@QueryHint(name = org.hibernate.jpa.QueryHints.HINT_CACHEABLE, value = "true"))
     List<ItemRequest> findByApplicantId(Long userId, Sort sort);
 
     List<ItemRequest> findByApplicantIdNot(Long userId, Pageable pageable);
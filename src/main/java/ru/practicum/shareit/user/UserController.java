@@ -1,6 +1,7 @@
 package ru.practicum.shareit.user;
 
 import lombok.RequiredArgsConstructor;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
 import ru.practicum.shareit.user.dto.UserDto;
@@ -8,7 +9,6 @@ import ru.practicum.shareit.user.model.User;
 import ru.practicum.shareit.user.service.UserService;
 import ru.practicum.shareit.utils.annotations.Marker;
 
-import javax.transaction.Transactional;
 import javax.validation.Valid;
 import java.util.List;
 
@@ -21,11 +21,13 @@ public class UserController {
     private final UserService userService;
 
     @GetMapping("/{id}")
+    @Transactional(readOnly = true)
     public User get(@PathVariable Long id) {
         return userService.getUser(id);
     }
 
     @GetMapping
+    @Transactional(readOnly = true)
     public List<User> getAll() {
         return userService.getUsers();
     }
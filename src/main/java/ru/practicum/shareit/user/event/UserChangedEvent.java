@@ -0,0 +1,27 @@
+package ru.practicum.shareit.user.event;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import lombok.AllArgsConstructor;
+import lombok.Value;
+import ru.practicum.shareit.outbox.event.OutboxEvent;
+import ru.practicum.shareit.user.model.User;
+
+@Value
+@AllArgsConstructor(onConstructor_ = @JsonCreator)
+public class UserChangedEvent implements OutboxEvent {
+    Long userId;
+    boolean created;
+    boolean deleted;
+
+    public static UserChangedEvent created(User user) {
+        return new UserChangedEvent(user.getId(), true, false);
+    }
+
+    public static UserChangedEvent updated(User user) {
+        return new UserChangedEvent(user.getId(), false, false);
+    }
+
+    public static UserChangedEvent deleted(Long userId) {
+        return new UserChangedEvent(userId, false, true);
+    }
+}
@@ -0,0 +1,68 @@
+package ru.practicum.shareit.user.registry;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// Битовая карта id пользователей: чтение без блокировок, запись под монитором с ростом массива по мере надобности
+class UserBitmap {
+    private static final int INITIAL_WORDS = 1024;
+
+    private final long maxId;
+    private volatile AtomicLongArray words = new AtomicLongArray(INITIAL_WORDS);
+
+    UserBitmap(long maxId) {
+        this.maxId = maxId;
+    }
+
+    boolean contains(long id) {
+        if (id < 0 || id > maxId) {
+            return false;
+        }
+
+        AtomicLongArray current = words;
+        int word = (int) (id >>> 6);
+        return word < current.length() && (current.get(word) & (1L << id)) != 0;
+    }
+
+    synchronized void add(long id) {
+        if (id < 0 || id > maxId) {
+            return;
+        }
+
+        int word = (int) (id >>> 6);
+        AtomicLongArray current = ensureCapacity(word);
+        current.set(word, current.get(word) | (1L << id));
+    }
+
+    synchronized void remove(long id) {
+        AtomicLongArray current = words;
+        int word = (int) (id >>> 6);
+        if (id < 0 || word >= current.length()) {
+            return;
+        }
+
+        current.set(word, current.get(word) & ~(1L << id));
+    }
+
+    synchronized void clear() {
+        words = new AtomicLongArray(INITIAL_WORDS);
+    }
+
+    private AtomicLongArray ensureCapacity(int word) {
+        AtomicLongArray current = words;
+        if (word < current.length()) {
+            return current;
+        }
+
+        int length = current.length();
+        while (length <= word) {
+            length = (int) Math.min((long) length * 2, (maxId >>> 6) + 1);
+        }
+
+        AtomicLongArray grown = new AtomicLongArray(length);
+        for (int i = 0; i < current.length(); i++) {
+            grown.set(i, current.get(i));
+        }
+        words = grown;
+        return grown;
+    }
+}
@@ -0,0 +1,130 @@
+package ru.practicum.shareit.user.registry;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.shareit.user.event.UserChangedEvent;
+import ru.practicum.shareit.user.storage.UserJpaRepository;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+// Реестр существующих пользователей для проверок прав без загрузки сущности.
+// Положительный ответ битовой карты окончательный, отрицательный перепроверяется в базе,
+// поэтому несуществующий пользователь по-прежнему получает 404.
+// Бит снимается только событием удаления в этом же процессе: при нескольких экземплярах приложения
+// или удалении в обход UserService удаленный пользователь продолжит проходить проверку.
+// Поэтому реестр включается shareit.user.registry.enabled=true только для одного экземпляра,
+// выключенный реестр каждый раз спрашивает базу
+@Slf4j
+@Component
+public class UserRegistry {
+    private final UserJpaRepository userStorage;
+    private final TransactionTemplate readOnlyTransaction;
+    private final UserBitmap bitmap;
+    private final boolean enabled;
+    // Счетчик удалений: id, найденный в базе до удаления, не должен попасть в карту после него
+    private final AtomicLong deletions = new AtomicLong();
+    private Set<Long> deletedDuringLoad;
+
+    public UserRegistry(UserJpaRepository userStorage,
+                        PlatformTransactionManager transactionManager,
+                        @Value("${shareit.user.registry.enabled:false}") boolean enabled,
+                        @Value("${shareit.user.registry.max-id:100000000}") long maxId) {
+        this.userStorage = userStorage;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.bitmap = new UserBitmap(maxId);
+        this.enabled = enabled;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        if (!enabled) {
+            return;
+        }
+
+        synchronized (this) {
+            bitmap.clear();
+            deletedDuringLoad = new HashSet<>();
+        }
+
+        AtomicLong loaded = new AtomicLong();
+        readOnlyTransaction.executeWithoutResult(status -> {
+            try (Stream<Long> ids = userStorage.streamAllIds()) {
+                ids.forEach(id -> {
+                    bitmap.add(id);
+                    loaded.incrementAndGet();
+                });
+            }
+        });
+
+        // Удаления, пришедшие во время чтения, могли не попасть в выборку до их фиксации
+        synchronized (this) {
+            deletedDuringLoad.forEach(bitmap::remove);
+            deletedDuringLoad = null;
+        }
+        log.info("Реестр пользователей загружен: {} пользователей", loaded.get());
+    }
+
+    public boolean exists(Long userId) {
+        if (!enabled) {
+            return userStorage.existsById(userId);
+        }
+        if (bitmap.contains(userId)) {
+            return true;
+        }
+
+        long epoch = deletions.get();
+        if (!userStorage.existsById(userId)) {
+            return false;
+        }
+
+        // Строка может быть видна только текущей транзакции, поэтому в карту она попадает после фиксации
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    remember(userId, epoch);
+                }
+            });
+        } else {
+            remember(userId, epoch);
+        }
+        return true;
+    }
+
+    @TransactionalEventListener
+    public void onUserChanged(UserChangedEvent event) {
+        if (!enabled) {
+            return;
+        }
+        if (!event.isDeleted()) {
+            bitmap.add(event.getUserId());
+            return;
+        }
+
+        synchronized (this) {
+            deletions.incrementAndGet();
+            bitmap.remove(event.getUserId());
+            if (deletedDuringLoad != null) {
+                deletedDuringLoad.add(event.getUserId());
+            }
+        }
+    }
+
+    private synchronized void remember(Long userId, long epoch) {
+        if (deletions.get() == epoch) {
+            bitmap.add(userId);
+        }
+    }
+}
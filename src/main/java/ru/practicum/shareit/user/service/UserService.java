@@ -8,6 +8,8 @@ import java.util.List;
 public interface UserService {
     User getUser(Long id);
 
+    void checkUserExists(Long id);
+
     List<User> getUsers();
 
     User createUser(UserDto userDto);
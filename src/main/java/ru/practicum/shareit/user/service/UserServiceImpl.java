@@ -1,11 +1,14 @@
 package ru.practicum.shareit.user.service;
 
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import ru.practicum.shareit.error.EntityNotExistsExeption;
 import ru.practicum.shareit.user.dto.UserDto;
+import ru.practicum.shareit.user.event.UserChangedEvent;
 import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.user.registry.UserRegistry;
 import ru.practicum.shareit.user.storage.UserJpaRepository;
 
 import java.util.List;
@@ -14,6 +17,8 @@ import java.util.List;
 @RequiredArgsConstructor
 public class UserServiceImpl implements UserService {
     private final UserJpaRepository userStorage;
+    private final ApplicationEventPublisher eventPublisher;
+    private final UserRegistry userRegistry;
 
     @Transactional(readOnly = true)
     @Override
@@ -21,6 +26,16 @@ public class UserServiceImpl implements UserService {
         return userStorage.findById(id).orElseThrow(() -> new EntityNotExistsExeption(id.toString()));
     }
 
+    // Проверка без загрузки пользователя. Потоковые выгрузки вызывают ее до начала записи ответа,
+    // чтобы неизвестный пользователь получил 404, а не оборванный ответ 200
+    @Transactional(readOnly = true)
+    @Override
+    public void checkUserExists(Long id) {
+        if (!userRegistry.exists(id)) {
+            throw new EntityNotExistsExeption(id.toString());
+        }
+    }
+
     @Transactional(readOnly = true)
     @Override
     public List<User> getUsers() {
@@ -36,7 +51,10 @@ public class UserServiceImpl implements UserService {
                 .email(userDto.getEmail())
                 .build();
 
-        return userStorage.save(user);
+        User savedUser = userStorage.save(user);
+        eventPublisher.publishEvent(UserChangedEvent.created(savedUser));
+
+        return savedUser;
     }
 
     @Transactional
@@ -50,12 +68,16 @@ public class UserServiceImpl implements UserService {
                 .email(userDto.getEmail() == null ? user.getEmail() : userDto.getEmail())
                 .build();
 
-        return userStorage.save(userToUpdate);
+        User savedUser = userStorage.save(userToUpdate);
+        eventPublisher.publishEvent(UserChangedEvent.updated(savedUser));
+
+        return savedUser;
     }
 
     @Transactional
     @Override
     public void deleteUser(Long id) {
         userStorage.delete(userStorage.findById(id).orElseThrow(() -> new EntityNotExistsExeption(id.toString())));
+        eventPublisher.publishEvent(UserChangedEvent.deleted(id));
     }
 }
@@ -1,7 +1,25 @@
 package ru.practicum.shareit.user.storage;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import ru.practicum.shareit.user.model.User;
 
+import javax.persistence.QueryHint;
+import java.util.stream.Stream;
+
 public interface UserJpaRepository extends JpaRepository<User, Long> {
+
+    // Проверка существования пользователя идет почти в каждом запросе, результат берется из кэша запросов,
+    // который Hibernate сбрасывает при любой записи в таблицу users
+    @QueryHints(@QueryHint(name = org.hibernate.jpa.QueryHints.HINT_CACHEABLE, value = "true"))
+    @Query("SELECT CASE WHEN COUNT(u) > 0 THEN TRUE ELSE FALSE END FROM User u WHERE u.id = :id")
+    @Override
+    boolean existsById(@Param("id") Long id);
+
+    // Потоковое чтение id для загрузки реестра пользователей
+    @QueryHints(@QueryHint(name = org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("SELECT u.id FROM User u")
+    Stream<Long> streamAllIds();
 }
@@ -3,9 +3,11 @@ package ru.practicum.shareit.utils;
 import ru.practicum.shareit.booking.dto.BookingDto;
 import ru.practicum.shareit.booking.model.Booking;
 import ru.practicum.shareit.item.dto.CommentDto;
+import ru.practicum.shareit.item.dto.CommentView;
 import ru.practicum.shareit.item.dto.ItemDto;
 import ru.practicum.shareit.item.dto.ItemDtoOwner;
 import ru.practicum.shareit.item.dto.ItemDtoRequest;
+import ru.practicum.shareit.item.dto.ItemListView;
 import ru.practicum.shareit.item.model.Comment;
 import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.request.dto.ItemRequestCreateDto;
@@ -40,6 +42,15 @@ public abstract class DtoMapper {
                 .build();
     }
 
+    public static CommentDto toCommentDto(CommentView comment) {
+        return CommentDto.builder()
+                .id(comment.getId())
+                .text(comment.getText())
+                .authorName(comment.getAuthorName())
+                .created(comment.getCreated())
+                .build();
+    }
+
     public static ItemDto toItemDto(Item item, User user, Long requestId, List<Comment> comments) {
         return ItemDto.builder()
                 .id(item.getId())
@@ -75,6 +86,21 @@ public abstract class DtoMapper {
                 .build();
     }
 
+    public static ItemDtoOwner toItemDtoOwner(ItemListView item,
+                                              ItemDtoOwner.LastBooking lastBooking,
+                                              ItemDtoOwner.NextBooking nextBooking,
+                                              List<CommentDto> comments) {
+        return ItemDtoOwner.builder()
+                .id(item.getId())
+                .name(item.getName())
+                .description(item.getDescription())
+                .available(item.getAvailable())
+                .lastBooking(lastBooking)
+                .nextBooking(nextBooking)
+                .comments(comments)
+                .build();
+    }
+
     public static UserDto toUserDto(User user) {
         return UserDto.builder()
                 .name(user.getName())
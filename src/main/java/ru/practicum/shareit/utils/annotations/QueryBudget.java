@@ -0,0 +1,14 @@
+package ru.practicum.shareit.utils.annotations;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+// Сколько SQL-запросов допускается обработчику. Превышение пишется в журнал и в метрики,
+// а тесты проверяют его через QueryBudgetMatchers. shareit.query-budget.endpoints[...] переопределяет значение
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface QueryBudget {
+    int value();
+}
@@ -0,0 +1,17 @@
+package ru.practicum.shareit.utils.enums;
+
+public enum BookingRole {
+    // Арендатор видит бронирования по дате начала, владелец - по дате создания
+    BOOKER("startDate"),
+    OWNER("createdAt");
+
+    private final String sortAttribute;
+
+    BookingRole(String sortAttribute) {
+        this.sortAttribute = sortAttribute;
+    }
+
+    public String getSortAttribute() {
+        return sortAttribute;
+    }
+}
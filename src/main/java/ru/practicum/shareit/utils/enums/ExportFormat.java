@@ -0,0 +1,15 @@
+package ru.practicum.shareit.utils.enums;
+
+public enum ExportFormat {
+    CSV,
+    NDJSON;
+
+    public static ExportFormat from(String value) {
+        for (ExportFormat format : values()) {
+            if (format.name().equalsIgnoreCase(value)) {
+                return format;
+            }
+        }
+        throw new UnsupportedOperationException("Неизвестный формат выгрузки: " + value);
+    }
+}
@@ -0,0 +1,5 @@
+-- Неудачные попытки доставки события: после shareit.outbox.relay.max-attempts событие откладывается
+-- и больше не задерживает очередь
+ALTER TABLE outbox_events ADD COLUMN IF NOT EXISTS attempts INT DEFAULT 0 NOT NULL;
+ALTER TABLE outbox_events ADD COLUMN IF NOT EXISTS last_error VARCHAR(1000);
+ALTER TABLE outbox_events ADD COLUMN IF NOT EXISTS parked_at TIMESTAMP;
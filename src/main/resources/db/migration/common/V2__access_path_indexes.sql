@@ -0,0 +1,20 @@
+-- findByOwnerId, поиск бронирований владельца через items
+CREATE INDEX IF NOT EXISTS idx_items_owner ON items (owner_id, id);
+
+-- findLastBookingForItem, findNextBookingForItem, existsApprovedBookingByItemIdAndTimeRange, календарь занятости
+CREATE INDEX IF NOT EXISTS idx_bookings_item_status_start ON bookings (item_id, status, start_date);
+
+-- бронирования арендатора: сортировка по start_date, курсор (start_date, id)
+CREATE INDEX IF NOT EXISTS idx_bookings_user_start ON bookings (user_id, start_date DESC, id DESC);
+
+-- бронирования владельца: сортировка по created_at, курсор (created_at, id)
+CREATE INDEX IF NOT EXISTS idx_bookings_item_created ON bookings (item_id, created_at DESC, id DESC);
+
+-- findByItemId, findByItemIdIn
+CREATE INDEX IF NOT EXISTS idx_comments_item ON comments (item_id);
+
+-- findByApplicantId, findByApplicantIdNot с сортировкой по created_at
+CREATE INDEX IF NOT EXISTS idx_requests_user_created ON requests (user_id, created_at DESC);
+
+-- ответы на запрос при загрузке ItemRequest.replies
+CREATE INDEX IF NOT EXISTS idx_replies_request ON replies (request_id);
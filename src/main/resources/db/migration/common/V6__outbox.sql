@@ -0,0 +1,14 @@
+-- Исходящие доменные события, пишутся в той же транзакции, что и изменение данных
+CREATE SEQUENCE IF NOT EXISTS outbox_events_seq START WITH 1 INCREMENT BY 50;
+
+CREATE TABLE IF NOT EXISTS outbox_events (
+    id BIGINT NOT NULL,
+    event_type VARCHAR(255) NOT NULL,
+    payload VARCHAR(4000) NOT NULL,
+    created_at TIMESTAMP NOT NULL,
+    published_at TIMESTAMP,
+    CONSTRAINT pk_outbox_events PRIMARY KEY (id)
+);
+
+-- выборка неопубликованных событий по порядку и очистка опубликованных
+CREATE INDEX IF NOT EXISTS idx_outbox_events_published ON outbox_events (published_at, id);
@@ -0,0 +1,24 @@
+-- Денормализованный список вещей владельца для GET /items, обновляется из outbox.
+-- Внешних ключей нет: строка удаляется по событию удаления вещи, а не каскадом
+CREATE TABLE IF NOT EXISTS owner_item_views (
+    item_id BIGINT NOT NULL,
+    owner_id BIGINT NOT NULL,
+    name VARCHAR(255) NOT NULL,
+    description VARCHAR(512) NOT NULL,
+    is_available BOOLEAN NOT NULL,
+    last_booking_id BIGINT,
+    last_booker_id BIGINT,
+    next_booking_id BIGINT,
+    next_booker_id BIGINT,
+    next_booking_start TIMESTAMP,
+    comment_count INT NOT NULL,
+    comments VARCHAR NOT NULL,
+    refreshed_at TIMESTAMP NOT NULL,
+    CONSTRAINT pk_owner_item_views PRIMARY KEY (item_id)
+);
+
+-- страница вещей владельца одним диапазоном индекса
+CREATE INDEX IF NOT EXISTS idx_owner_item_views_owner ON owner_item_views (owner_id, item_id);
+
+-- строки, у которых следующее бронирование уже началось и стало последним
+CREATE INDEX IF NOT EXISTS idx_owner_item_views_next_start ON owner_item_views (next_booking_start);
@@ -0,0 +1,14 @@
+-- Владелец вещи копируется в bookings, чтобы фильтр и курсор (created_at, id) списка владельца
+-- шли по одному индексу без соединения с items. Владелец вещи не меняется, копия не расходится
+ALTER TABLE bookings ADD COLUMN IF NOT EXISTS owner_id BIGINT;
+
+UPDATE bookings SET owner_id = (SELECT items.owner_id FROM items WHERE items.id = bookings.item_id)
+WHERE owner_id IS NULL;
+
+ALTER TABLE bookings ALTER COLUMN owner_id SET NOT NULL;
+
+-- бронирования владельца: сортировка по created_at, курсор (created_at, id)
+CREATE INDEX IF NOT EXISTS idx_bookings_owner_created ON bookings (owner_id, created_at DESC, id DESC);
+
+-- заменен idx_bookings_owner_created
+DROP INDEX IF EXISTS idx_bookings_item_created;
@@ -0,0 +1,6 @@
+-- Владелец вещей, которые меняет событие: чтение read-модели владельца откатывается к исходным таблицам,
+-- пока его события не доставлены
+ALTER TABLE outbox_events ADD COLUMN IF NOT EXISTS owner_id BIGINT;
+
+-- недоставленные события владельца
+CREATE INDEX IF NOT EXISTS idx_outbox_events_owner_published ON outbox_events (owner_id, published_at);
@@ -0,0 +1,2 @@
+-- В H2 нет pg_trgm, поиск по подстроке остается полным просмотром; миграция держит номера версий одинаковыми
+SELECT 1;
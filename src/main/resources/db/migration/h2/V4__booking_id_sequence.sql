@@ -0,0 +1,6 @@
+-- См. postgresql/V4__booking_id_sequence.sql. База H2 создается пустой, поэтому начальное значение
+-- последовательности не выравнивается по существующим id
+CREATE SEQUENCE IF NOT EXISTS bookings_seq START WITH 1 INCREMENT BY 50;
+
+ALTER TABLE bookings ALTER COLUMN id DROP IDENTITY;
+ALTER TABLE bookings ALTER COLUMN id SET DEFAULT NEXT VALUE FOR bookings_seq;
@@ -0,0 +1,9 @@
+-- id бронирований выделяются Hibernate из последовательности блоками по 50 (pooled-lo), что позволяет
+-- отправлять вставки пачками JDBC. Значение по умолчанию столбца берется из той же последовательности,
+-- поэтому прямые INSERT без id занимают целый блок и не пересекаются с блоками Hibernate
+CREATE SEQUENCE IF NOT EXISTS bookings_seq INCREMENT BY 50;
+SELECT setval('bookings_seq', (SELECT COALESCE(MAX(id), 0) + 1 FROM bookings), false);
+
+ALTER TABLE bookings ALTER COLUMN id DROP IDENTITY IF EXISTS;
+ALTER TABLE bookings ALTER COLUMN id SET DEFAULT nextval('bookings_seq');
+ALTER SEQUENCE bookings_seq OWNED BY bookings.id;
@@ -0,0 +1,32 @@
+-- Остальные таблицы переводятся на последовательности так же, как bookings в V4__booking_id_sequence.sql:
+-- Hibernate выделяет id блоками по 50 (pooled-lo) и может отправлять вставки пачками JDBC
+
+CREATE SEQUENCE IF NOT EXISTS users_seq INCREMENT BY 50;
+SELECT setval('users_seq', (SELECT COALESCE(MAX(id), 0) + 1 FROM users), false);
+ALTER TABLE users ALTER COLUMN id DROP IDENTITY IF EXISTS;
+ALTER TABLE users ALTER COLUMN id SET DEFAULT nextval('users_seq');
+ALTER SEQUENCE users_seq OWNED BY users.id;
+
+CREATE SEQUENCE IF NOT EXISTS requests_seq INCREMENT BY 50;
+SELECT setval('requests_seq', (SELECT COALESCE(MAX(id), 0) + 1 FROM requests), false);
+ALTER TABLE requests ALTER COLUMN id DROP IDENTITY IF EXISTS;
+ALTER TABLE requests ALTER COLUMN id SET DEFAULT nextval('requests_seq');
+ALTER SEQUENCE requests_seq OWNED BY requests.id;
+
+CREATE SEQUENCE IF NOT EXISTS items_seq INCREMENT BY 50;
+SELECT setval('items_seq', (SELECT COALESCE(MAX(id), 0) + 1 FROM items), false);
+ALTER TABLE items ALTER COLUMN id DROP IDENTITY IF EXISTS;
+ALTER TABLE items ALTER COLUMN id SET DEFAULT nextval('items_seq');
+ALTER SEQUENCE items_seq OWNED BY items.id;
+
+CREATE SEQUENCE IF NOT EXISTS comments_seq INCREMENT BY 50;
+SELECT setval('comments_seq', (SELECT COALESCE(MAX(id), 0) + 1 FROM comments), false);
+ALTER TABLE comments ALTER COLUMN id DROP IDENTITY IF EXISTS;
+ALTER TABLE comments ALTER COLUMN id SET DEFAULT nextval('comments_seq');
+ALTER SEQUENCE comments_seq OWNED BY comments.id;
+
+CREATE SEQUENCE IF NOT EXISTS replies_seq INCREMENT BY 50;
+SELECT setval('replies_seq', (SELECT COALESCE(MAX(id), 0) + 1 FROM replies), false);
+ALTER TABLE replies ALTER COLUMN id DROP IDENTITY IF EXISTS;
+ALTER TABLE replies ALTER COLUMN id SET DEFAULT nextval('replies_seq');
+ALTER SEQUENCE replies_seq OWNED BY replies.id;
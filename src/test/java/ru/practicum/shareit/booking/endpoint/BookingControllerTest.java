@@ -10,8 +10,12 @@ import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import ru.practicum.shareit.booking.controller.BookingController;
+import ru.practicum.shareit.booking.dto.BookingBatchRequest;
+import ru.practicum.shareit.booking.dto.BookingCursor;
 import ru.practicum.shareit.booking.dto.BookingDto;
+import ru.practicum.shareit.booking.dto.BookingPage;
 import ru.practicum.shareit.booking.dto.BookingRequest;
 import ru.practicum.shareit.booking.model.Booking;
 import ru.practicum.shareit.booking.service.BookingService;
@@ -20,13 +24,23 @@ import ru.practicum.shareit.error.PermissionException;
 import ru.practicum.shareit.error.handler.ErrorResponse;
 import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.user.service.UserService;
 import ru.practicum.shareit.utils.DtoMapper;
+import ru.practicum.shareit.utils.NdjsonResponses;
 import ru.practicum.shareit.utils.enums.State;
 
 import java.time.LocalDateTime;
 import java.util.Collections;
+import java.util.List;
+import java.util.function.Consumer;
 
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.containsString;
 import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
@@ -41,6 +55,9 @@ public class BookingControllerTest {
     @MockBean
     private BookingService bookingService;
 
+    @MockBean
+    private UserService userService;
+
     @Autowired
     private ObjectMapper objectMapper;
 
@@ -118,7 +135,7 @@ public class BookingControllerTest {
     @Test
     void testGetBookingsForBooker_success() throws Exception {
         when(bookingService.getBookingsForBooker(anyLong(), any(State.class), anyInt(), anyInt()))
-                .thenReturn(Collections.singletonList(booking));
+                .thenReturn(Collections.singletonList(bookingDto));
 
         mockMvc.perform(get("/bookings")
                         .header("X-Sharer-User-Id", 1L)
@@ -130,10 +147,34 @@ public class BookingControllerTest {
                 .andExpect(jsonPath("$[0].id").value(1L));
     }
 
+    @Test
+    void testGetBookingsForBooker_cursorModeReturnsNextCursor() throws Exception {
+        BookingCursor next = new BookingCursor(booking.getStartDate(), booking.getId());
+        when(bookingService.getBookingsForBookerAfter(anyLong(), any(State.class), isNull(), anyInt()))
+                .thenReturn(new BookingPage(Collections.singletonList(bookingDto), next));
+
+        mockMvc.perform(get("/bookings")
+                        .header("X-Sharer-User-Id", 1L)
+                        .param("cursor", "")
+                        .param("size", "1"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(BookingController.NEXT_CURSOR_HEADER,
+                        next.encode()))
+                .andExpect(jsonPath("$[0].id").value(1L));
+    }
+
+    @Test
+    void testGetBookingsForOwner_failedOnInvalidCursor() throws Exception {
+        mockMvc.perform(get("/bookings/owner")
+                        .header("X-Sharer-User-Id", 1L)
+                        .param("cursor", "not-a-cursor"))
+                .andExpect(status().isBadRequest());
+    }
+
     @Test
     void testGetBookingsForBooker_successWithoutParams() throws Exception {
         when(bookingService.getBookingsForBooker(anyLong(), any(State.class), anyInt(), anyInt()))
-                .thenReturn(Collections.singletonList(booking));
+                .thenReturn(Collections.singletonList(bookingDto));
 
         mockMvc.perform(get("/bookings")
                         .header("X-Sharer-User-Id", 1L))
@@ -201,7 +242,7 @@ public class BookingControllerTest {
     @Test
     void testGetBookingsForOwner_success() throws Exception {
         when(bookingService.getBookingsForOwner(anyLong(), any(State.class), anyInt(), anyInt()))
-                .thenReturn(Collections.singletonList(booking));
+                .thenReturn(Collections.singletonList(bookingDto));
 
         mockMvc.perform(get("/bookings/owner")
                         .header("X-Sharer-User-Id", 1L)
@@ -216,7 +257,7 @@ public class BookingControllerTest {
     @Test
     void testGetBookingsForOwner_successWithoutParams() throws Exception {
         when(bookingService.getBookingsForOwner(anyLong(), any(State.class), anyInt(), anyInt()))
-                .thenReturn(Collections.singletonList(booking));
+                .thenReturn(Collections.singletonList(bookingDto));
 
         mockMvc.perform(get("/bookings/owner")
                         .header("X-Sharer-User-Id", 1L))
@@ -281,6 +322,111 @@ public class BookingControllerTest {
                 .andExpect(jsonPath("$.error").hasJsonPath());
     }
 
+    @Test
+    void testStreamBookingsForOwner_writesOneJsonLinePerBooking() throws Exception {
+        BookingDto secondDto = bookingDto.toBuilder().id(2L).build();
+        doAnswer(invocation -> {
+            Consumer<BookingDto> consumer = invocation.getArgument(2);
+            consumer.accept(bookingDto);
+            consumer.accept(secondDto);
+            return null;
+        }).when(bookingService).streamBookingsForOwner(eq(1L), eq(State.PAST), any());
+
+        MvcResult result = mockMvc.perform(get("/bookings/owner/stream")
+                        .header("X-Sharer-User-Id", 1L)
+                        .param("state", "PAST"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        String body = mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(NdjsonResponses.APPLICATION_NDJSON))
+                .andReturn().getResponse().getContentAsString();
+
+        String[] lines = body.split("\n");
+        assertThat(lines).hasSize(2);
+        assertThat(objectMapper.readTree(lines[0]).get("id").asLong()).isEqualTo(1L);
+        assertThat(objectMapper.readTree(lines[1]).get("id").asLong()).isEqualTo(2L);
+    }
+
+    @Test
+    void testStreamBookingsForBooker_failedUserNotFound() throws Exception {
+        doThrow(new EntityNotExistsExeption("99")).when(userService).checkUserExists(99L);
+
+        mockMvc.perform(get("/bookings/stream")
+                        .header("X-Sharer-User-Id", 99L))
+                .andExpect(request().asyncNotStarted())
+                .andExpect(status().isNotFound())
+                .andExpect(jsonPath("$.error").hasJsonPath());
+
+        verify(bookingService, never()).streamBookingsForBooker(anyLong(), any(), any());
+    }
+
+    @Test
+    void testStreamBookingsForOwner_failedUserNotFound() throws Exception {
+        doThrow(new EntityNotExistsExeption("99")).when(userService).checkUserExists(99L);
+
+        mockMvc.perform(get("/bookings/owner/stream")
+                        .header("X-Sharer-User-Id", 99L))
+                .andExpect(request().asyncNotStarted())
+                .andExpect(status().isNotFound())
+                .andExpect(jsonPath("$.error").hasJsonPath());
+
+        verify(bookingService, never()).streamBookingsForOwner(anyLong(), any(), any());
+    }
+
+    @Test
+    void testExportBookingsForOwner_writesCsvWithHeader() throws Exception {
+        BookingDto quoted = bookingDto.toBuilder()
+                .id(2L)
+                .item(new BookingDto.ItemResponse(3L, "Drill, \"Bosch\""))
+                .build();
+        doAnswer(invocation -> {
+            Consumer<BookingDto> consumer = invocation.getArgument(1);
+            consumer.accept(quoted);
+            return null;
+        }).when(bookingService).exportBookingsForOwner(eq(1L), any());
+
+        MvcResult result = mockMvc.perform(get("/bookings/owner/export")
+                        .header("X-Sharer-User-Id", 1L))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        String[] lines = mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith("text/csv"))
+                .andExpect(header().string("Content-Disposition", containsString("bookings-1.csv")))
+                .andReturn().getResponse().getContentAsString().split("\r\n");
+
+        assertThat(lines).hasSize(2);
+        assertThat(lines[0]).isEqualTo("id,start,end,status,item_id,item_name,booker_id");
+        assertThat(lines[1]).startsWith("2,").contains(",3,\"Drill, \"\"Bosch\"\"\",");
+    }
+
+    @Test
+    void testExportBookingsForOwner_failedOnUnknownFormat() throws Exception {
+        mockMvc.perform(get("/bookings/owner/export")
+                        .header("X-Sharer-User-Id", 1L)
+                        .param("format", "xml"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.error").hasJsonPath());
+
+        verify(bookingService, never()).exportBookingsForOwner(anyLong(), any());
+    }
+
+    @Test
+    void testExportBookingsForOwner_failedUserNotFound() throws Exception {
+        doThrow(new EntityNotExistsExeption("99")).when(userService).checkUserExists(99L);
+
+        mockMvc.perform(get("/bookings/owner/export")
+                        .header("X-Sharer-User-Id", 99L))
+                .andExpect(request().asyncNotStarted())
+                .andExpect(status().isNotFound())
+                .andExpect(jsonPath("$.error").hasJsonPath());
+
+        verify(bookingService, never()).exportBookingsForOwner(anyLong(), any());
+    }
+
     @Test
     void testAddBooking_success() throws Exception {
         BookingRequest bookingRequest = new BookingRequest();
@@ -301,6 +447,54 @@ public class BookingControllerTest {
                 .andExpect(jsonPath("$.item.name").value("Test Item"));
     }
 
+    @Test
+    void testAddBookings_success() throws Exception {
+        BookingRequest bookingRequest = new BookingRequest();
+        bookingRequest.setItemId(1L);
+        bookingRequest.setStart(LocalDateTime.now().plusDays(1));
+        bookingRequest.setEnd(LocalDateTime.now().plusDays(2));
+        BookingBatchRequest batchRequest = new BookingBatchRequest();
+        batchRequest.setBookings(List.of(bookingRequest));
+
+        when(bookingService.createBatch(anyLong(), anyList())).thenReturn(List.of(booking));
+
+        mockMvc.perform(post("/bookings/batch")
+                        .header("X-Sharer-User-Id", 2)
+                        .content(objectMapper.writeValueAsString(batchRequest))
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+                .andExpect(jsonPath("$[0].id").value(1L))
+                .andExpect(jsonPath("$[0].item.name").value("Test Item"));
+    }
+
+    @Test
+    void testAddBookings_failedOnEmptyOrInvalidBatch() throws Exception {
+        BookingBatchRequest emptyRequest = new BookingBatchRequest();
+        emptyRequest.setBookings(List.of());
+
+        mockMvc.perform(post("/bookings/batch")
+                        .header("X-Sharer-User-Id", 2)
+                        .content(objectMapper.writeValueAsString(emptyRequest))
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest());
+
+        BookingRequest invalidRequest = new BookingRequest();
+        invalidRequest.setItemId(1L);
+        invalidRequest.setStart(LocalDateTime.now().plusDays(2));
+        invalidRequest.setEnd(LocalDateTime.now().plusDays(1));
+        BookingBatchRequest batchRequest = new BookingBatchRequest();
+        batchRequest.setBookings(List.of(invalidRequest));
+
+        mockMvc.perform(post("/bookings/batch")
+                        .header("X-Sharer-User-Id", 2)
+                        .content(objectMapper.writeValueAsString(batchRequest))
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest());
+
+        verify(bookingService, never()).createBatch(anyLong(), anyList());
+    }
+
     @Test
     void testAddBooking_failedBecauseUserNotExists() throws Exception {
         BookingRequest bookingRequest = new BookingRequest();
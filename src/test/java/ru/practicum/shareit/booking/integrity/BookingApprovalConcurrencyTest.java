@@ -0,0 +1,122 @@
+package ru.practicum.shareit.booking.integrity;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.service.BookingService;
+import ru.practicum.shareit.booking.storage.BookingJpaRepository;
+import ru.practicum.shareit.error.ElementAccessException;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.storage.ItemJpaRepository;
+import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.user.storage.UserJpaRepository;
+import ru.practicum.shareit.utils.enums.BookingStatus;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Без @Transactional: каждое подтверждение идет в своей транзакции, как в рабочем приложении
+@SpringBootTest
+public class BookingApprovalConcurrencyTest {
+    private static final int THREADS = 16;
+    private static final int ROUNDS = 5;
+
+    @Autowired
+    private BookingJpaRepository bookingRepository;
+
+    @Autowired
+    private UserJpaRepository userRepository;
+
+    @Autowired
+    private ItemJpaRepository itemRepository;
+
+    @Autowired
+    private BookingService bookingService;
+
+    private User owner;
+    private User booker;
+    private Item item;
+    private final List<Long> createdBookingIds = new ArrayList<>();
+
+    @BeforeEach
+    public void setUp() {
+        owner = userRepository.save(User.builder().name("Concurrent Owner").email("concurrent-owner@example.com").build());
+        booker = userRepository.save(User.builder().name("Concurrent Booker").email("concurrent-booker@example.com").build());
+        item = itemRepository.save(Item.builder()
+                .name("Concurrent Item")
+                .description("Contended item")
+                .available(true)
+                .owner(owner)
+                .build());
+    }
+
+    @AfterEach
+    public void tearDown() {
+        bookingRepository.deleteAllById(createdBookingIds);
+        itemRepository.deleteById(item.getId());
+        userRepository.deleteById(booker.getId());
+        userRepository.deleteById(owner.getId());
+    }
+
+    @Test
+    public void setApprove_neverApprovesOverlappingBookingsUnderContention() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            for (int round = 0; round < ROUNDS; round++) {
+                LocalDateTime start = LocalDateTime.now().plusDays(10L * (round + 1));
+                List<Long> bookingIds = new ArrayList<>();
+                for (int i = 0; i < THREADS; i++) {
+                    // Все интервалы раунда попарно пересекаются
+                    bookingIds.add(bookingRepository.save(Booking.builder()
+                            .item(item)
+                            .booker(booker)
+                            .startDate(start.plusHours(i))
+                            .endDate(start.plusDays(2).plusHours(i))
+                            .build()).getId());
+                }
+                createdBookingIds.addAll(bookingIds);
+
+                CountDownLatch ready = new CountDownLatch(THREADS);
+                CountDownLatch go = new CountDownLatch(1);
+                AtomicInteger approved = new AtomicInteger();
+                AtomicInteger rejectedAsOverlap = new AtomicInteger();
+                List<Future<?>> futures = new ArrayList<>();
+                for (Long bookingId : bookingIds) {
+                    futures.add(executor.submit(() -> {
+                        ready.countDown();
+                        go.await();
+                        try {
+                            bookingService.setApprove(owner.getId(), bookingId, true);
+                            approved.incrementAndGet();
+                        } catch (ElementAccessException e) {
+                            rejectedAsOverlap.incrementAndGet();
+                        }
+                        return null;
+                    }));
+                }
+                ready.await();
+                go.countDown();
+                for (Future<?> future : futures) {
+                    future.get(60, TimeUnit.SECONDS);
+                }
+
+                long approvedInDb = bookingRepository.findAllById(bookingIds).stream()
+                        .filter(booking -> booking.getStatus() == BookingStatus.APPROVED)
+                        .count();
+                assertEquals(1, approved.get());
+                assertEquals(THREADS - 1, rejectedAsOverlap.get());
+                assertEquals(1, approvedInDb);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -1,23 +1,34 @@
 package ru.practicum.shareit.booking.integrity;
 
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.shareit.booking.dto.BookingCursor;
+import ru.practicum.shareit.booking.dto.BookingDto;
+import ru.practicum.shareit.booking.dto.BookingPage;
 import ru.practicum.shareit.booking.dto.BookingRequest;
 import ru.practicum.shareit.booking.model.Booking;
 import ru.practicum.shareit.booking.service.BookingService;
 import ru.practicum.shareit.booking.storage.BookingJpaRepository;
 import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.item.storage.ItemJpaRepository;
+import ru.practicum.shareit.monitoring.RequestQueryStats;
 import ru.practicum.shareit.user.model.User;
 import ru.practicum.shareit.user.storage.UserJpaRepository;
+import ru.practicum.shareit.utils.DtoMapper;
 import ru.practicum.shareit.utils.enums.BookingStatus;
 import ru.practicum.shareit.utils.enums.State;
 
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Objects;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -37,6 +48,9 @@ public class BookingServiceIntegrationalTest {
     @Autowired
     private BookingService bookingService;
 
+    @PersistenceContext
+    private EntityManager entityManager;
+
     private User user;
     private Item item;
     private Booking booking;
@@ -77,12 +91,101 @@ public class BookingServiceIntegrationalTest {
 
     @Test
     public void testGetBookingsForBooker() {
-        List<Booking> bookings = bookingService.getBookingsForBooker(booker.getId(), State.ALL, 0, 10);
+        List<BookingDto> bookings = bookingService.getBookingsForBooker(booker.getId(), State.ALL, 0, 10);
 
         assertFalse(bookings.isEmpty());
         assertEquals(bookings.get(0).getId(), booking.getId());
     }
 
+    @Test
+    public void testGetBookingsForBookerAfterCursor() {
+        for (int i = 1; i <= 2; i++) {
+            bookingRepository.save(Booking.builder().booker(booker)
+                    .item(item)
+                    .startDate(LocalDateTime.now().plusDays(i))
+                    .endDate(LocalDateTime.now().plusDays(i + 1))
+                    .build());
+        }
+        List<BookingDto> all = bookingService.getBookingsForBooker(booker.getId(), State.ALL, 0, 10);
+
+        BookingPage firstPage = bookingService.getBookingsForBookerAfter(booker.getId(), State.ALL, null, 2);
+        BookingCursor cursor = BookingCursor.decode(firstPage.getNext().encode());
+        BookingPage secondPage = bookingService.getBookingsForBookerAfter(booker.getId(), State.ALL, cursor, 2);
+
+        assertEquals(3, all.size());
+        assertEquals(all.subList(0, 2), firstPage.getBookings());
+        assertEquals(1, secondPage.getBookings().size());
+        assertEquals(all.get(2).getId(), secondPage.getBookings().get(0).getId());
+        assertNull(secondPage.getNext());
+    }
+
+    @Test
+    public void testGetBookingsForBookerWithOffset() {
+        for (int i = 1; i <= 2; i++) {
+            bookingRepository.save(Booking.builder().booker(booker)
+                    .item(item)
+                    .startDate(LocalDateTime.now().plusDays(i))
+                    .endDate(LocalDateTime.now().plusDays(i + 1))
+                    .build());
+        }
+        List<BookingDto> all = bookingService.getBookingsForBooker(booker.getId(), State.ALL, 0, 10);
+
+        List<BookingDto> page = bookingService.getBookingsForBooker(booker.getId(), State.ALL, 1, 2);
+
+        assertEquals(all.subList(1, 3), page);
+    }
+
+    @Test
+    public void testGetBookingsForOwnerAfterCursor() {
+        BookingPage firstPage = bookingService.getBookingsForOwnerAfter(user.getId(), State.WAITING, null, 1);
+        BookingPage secondPage = bookingService.getBookingsForOwnerAfter(user.getId(), State.WAITING,
+                firstPage.getNext(), 1);
+
+        assertEquals(booking.getId(), firstPage.getBookings().get(0).getId());
+        assertTrue(secondPage.getBookings().isEmpty());
+        assertNull(secondPage.getNext());
+    }
+
+    @Test
+    public void testGetBooking_loadsItemOwnerAndBookerInOneStatement() {
+        long statements = countStatements(() -> DtoMapper.toBookingDto(
+                bookingService.getBooking(booker.getId(), booking.getId())));
+
+        assertEquals(1, statements);
+    }
+
+    @Test
+    public void testGetBookingsForBooker_pageOfHundredBookingsUsesFixedStatementCount() {
+        for (int i = 0; i < 5; i++) {
+            User owner = userRepository.save(User.builder()
+                    .name("Owner " + i)
+                    .email("owner" + i + "@example.com")
+                    .build());
+            Item ownedItem = itemRepository.save(Item.builder()
+                    .name("Item " + i)
+                    .description("Item of owner " + i)
+                    .available(true)
+                    .owner(owner)
+                    .build());
+            for (int j = 0; j < 20; j++) {
+                bookingRepository.save(Booking.builder().booker(booker)
+                        .item(ownedItem)
+                        .startDate(LocalDateTime.now().plusDays(i * 20L + j + 2))
+                        .endDate(LocalDateTime.now().plusDays(i * 20L + j + 3))
+                        .build());
+            }
+        }
+
+        List<List<BookingDto>> pages = new ArrayList<>();
+        long statements = countStatements(() -> pages.add(
+                bookingService.getBookingsForBooker(booker.getId(), State.ALL, 0, 100)));
+
+        // Проверка существования пользователя и один запрос-проекция на всю страницу
+        assertEquals(2, statements);
+        assertEquals(100, pages.get(0).size());
+        assertNotNull(pages.get(0).get(99).getItem().getName());
+    }
+
     @Test
     public void testCreateBooking() {
         BookingRequest bookingRequest = new BookingRequest();
@@ -97,6 +200,47 @@ public class BookingServiceIntegrationalTest {
         assertEquals(createdBooking.getBooker().getId(), booker.getId());
     }
 
+    @Test
+    public void testCreateBatch_insertsAllBookingsInOneJdbcBatch() {
+        List<BookingRequest> bookingRequests = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            BookingRequest bookingRequest = new BookingRequest();
+            bookingRequest.setItemId(item.getId());
+            bookingRequest.setStart(LocalDateTime.now().plusDays(i * 2L + 2));
+            bookingRequest.setEnd(LocalDateTime.now().plusDays(i * 2L + 3));
+            bookingRequests.add(bookingRequest);
+        }
+        entityManager.flush();
+
+        // Пересечения всех интервалов проверяются одним запросом к bookings, сколько бы их ни было в пакете
+        List<Booking> created;
+        RequestQueryStats stats = RequestQueryStats.startCapturing();
+        try {
+            created = bookingService.createBatch(booker.getId(), bookingRequests);
+        } finally {
+            RequestQueryStats.finish();
+        }
+        assertEquals(1, stats.getSql().stream()
+                .filter(sql -> sql.toLowerCase().startsWith("select") && sql.toLowerCase().contains(" from bookings "))
+                .count(), () -> String.join("\n", stats.getSql()));
+        assertTrue(stats.getStatements() <= 4, stats::toString);
+
+        // id выданы последовательностями до вставки, при flush бронирования и записи outbox
+        // уходят двумя пачками, по одной на таблицу
+        assertEquals(3, created.stream().map(Booking::getId).filter(Objects::nonNull).distinct().count());
+        Statistics statistics = entityManager.getEntityManagerFactory()
+                .unwrap(SessionFactory.class)
+                .getStatistics();
+        statistics.setStatisticsEnabled(true);
+        statistics.clear();
+        entityManager.flush();
+        assertEquals(6, statistics.getEntityInsertCount());
+        assertEquals(2, statistics.getPrepareStatementCount());
+
+        entityManager.clear();
+        assertEquals(4, bookingService.getBookingsForOwner(user.getId(), State.ALL, 0, 10).size());
+    }
+
     @Test
     public void testSetApprove() {
         Booking approvedBooking = bookingService.setApprove(user.getId(), booking.getId(), true);
@@ -110,7 +254,7 @@ public class BookingServiceIntegrationalTest {
         booking.setEndDate(LocalDateTime.now().minusDays(2));
         bookingRepository.save(booking);
 
-        List<Booking> bookings = bookingService.getBookingsForBooker(booker.getId(), State.PAST, 0, 10);
+        List<BookingDto> bookings = bookingService.getBookingsForBooker(booker.getId(), State.PAST, 0, 10);
         assertFalse(bookings.isEmpty());
         assertEquals(bookings.get(0).getId(), booking.getId());
 
@@ -128,7 +272,7 @@ public class BookingServiceIntegrationalTest {
         booking.setEndDate(LocalDateTime.now().minusDays(2));
         bookingRepository.save(booking);
 
-        List<Booking> bookings = bookingService.getBookingsForOwner(user.getId(), State.PAST, 0, 10);
+        List<BookingDto> bookings = bookingService.getBookingsForOwner(user.getId(), State.PAST, 0, 10);
         assertFalse(bookings.isEmpty());
         assertEquals(bookings.get(0).getId(), booking.getId());
 
@@ -140,4 +284,16 @@ public class BookingServiceIntegrationalTest {
         assertFalse(bookings.isEmpty());
         assertEquals(bookings.get(0).getId(), booking.getId());
     }
-}
\ No newline at end of file
+
+    private long countStatements(Runnable action) {
+        entityManager.flush();
+        entityManager.clear();
+        Statistics statistics = entityManager.getEntityManagerFactory()
+                .unwrap(SessionFactory.class)
+                .getStatistics();
+        statistics.setStatisticsEnabled(true);
+        statistics.clear();
+        action.run();
+        return statistics.getPrepareStatementCount();
+    }
+}
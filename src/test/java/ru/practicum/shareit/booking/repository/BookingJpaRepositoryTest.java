@@ -4,18 +4,27 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
-import org.springframework.data.domain.PageRequest;
+import ru.practicum.shareit.booking.dto.BookingDto;
+import ru.practicum.shareit.booking.dto.BookingInterval;
+import ru.practicum.shareit.booking.dto.BookingListRow;
+import ru.practicum.shareit.booking.dto.ItemBookingInterval;
 import ru.practicum.shareit.booking.model.Booking;
 import ru.practicum.shareit.booking.storage.BookingJpaRepository;
+import ru.practicum.shareit.booking.storage.BookingQuery;
 import ru.practicum.shareit.item.dto.ItemDtoOwner;
 import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.item.storage.ItemJpaRepository;
 import ru.practicum.shareit.user.model.User;
 import ru.practicum.shareit.user.storage.UserJpaRepository;
+import ru.practicum.shareit.utils.enums.BookingRole;
 import ru.practicum.shareit.utils.enums.BookingStatus;
+import ru.practicum.shareit.utils.enums.State;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
@@ -69,83 +78,172 @@ public class BookingJpaRepositoryTest {
     }
 
     @Test
-    public void testFindByBookerIdAndStartDateLessThanEqualAndEndDateGreaterThanEqual() {
-        List<Booking> bookings = bookingRepository.findByBookerIdAndStartDateLessThanEqualAndEndDateGreaterThanEqual(
-                booker.getId(), LocalDateTime.now().plusDays(1), LocalDateTime.now().plusDays(1), PageRequest.of(0, 10));
+    public void testFindBookingsForBookerCurrent() {
+        List<BookingListRow> bookings = findBookings(BookingRole.BOOKER, booker.getId(), State.CURRENT,
+                LocalDateTime.now().plusDays(1));
         assertThat(bookings).isNotEmpty();
     }
 
     @Test
-    public void testFindByBookerIdAndEndDateLessThan() {
-        List<Booking> bookings = bookingRepository.findByBookerIdAndEndDateLessThan(
-                booker.getId(), LocalDateTime.now().plusDays(3), PageRequest.of(0, 10));
+    public void testFindBookingsForBookerPast() {
+        List<BookingListRow> bookings = findBookings(BookingRole.BOOKER, booker.getId(), State.PAST,
+                LocalDateTime.now().plusDays(3));
         assertThat(bookings).isNotEmpty();
     }
 
     @Test
-    public void testFindByBookerIdAndStartDateGreaterThan() {
-        List<Booking> bookings = bookingRepository.findByBookerIdAndStartDateGreaterThan(
-                booker.getId(), LocalDateTime.now(), PageRequest.of(0, 10));
+    public void testFindBookingsForBookerFuture() {
+        List<BookingListRow> bookings = findBookings(BookingRole.BOOKER, booker.getId(), State.FUTURE,
+                LocalDateTime.now());
         assertThat(bookings).isNotEmpty();
     }
 
     @Test
-    public void testFindByBookerId() {
-        List<Booking> bookings = bookingRepository.findByBookerId(booker.getId(), PageRequest.of(0, 10));
+    public void testFindBookingsForBookerAll() {
+        List<BookingListRow> bookings = findBookings(BookingRole.BOOKER, booker.getId(), State.ALL,
+                LocalDateTime.now());
         assertThat(bookings).isNotEmpty();
-        assertThat(bookings.get(0).getBooker().getId()).isEqualTo(booker.getId());
+        assertThat(bookings.get(0).getBooking().getBooker().getId()).isEqualTo(booker.getId());
+        assertThat(bookings.get(0).getBooking().getItem().getName()).isEqualTo(item.getName());
+        assertThat(bookings.get(0).getPosition()).isEqualTo(booking.getStartDate());
     }
 
     @Test
-    public void testFindByBookerIdAndStatus() {
-        List<Booking> bookings = bookingRepository.findByBookerIdAndStatus(
-                booker.getId(), BookingStatus.WAITING, PageRequest.of(0, 10));
+    public void testFindBookingsForBookerByStatus() {
+        List<BookingListRow> bookings = findBookings(BookingRole.BOOKER, booker.getId(), State.WAITING,
+                LocalDateTime.now());
         assertThat(bookings).isNotEmpty();
-        List<Booking> emptyBookings = bookingRepository.findByBookerIdAndStatus(
-                booker.getId(), BookingStatus.APPROVED, PageRequest.of(0, 10));
+        List<BookingListRow> emptyBookings = findBookings(BookingRole.BOOKER, booker.getId(), State.REJECTED,
+                LocalDateTime.now());
         assertThat(emptyBookings).isEmpty();
     }
 
     @Test
-    public void testFindByItemOwnerIdAndStartDateLessThanEqualAndEndDateGreaterThanEqual() {
-        List<Booking> bookings = bookingRepository.findByItemOwnerIdAndStartDateLessThanEqualAndEndDateGreaterThanEqual(
-                owner.getId(), LocalDateTime.now().plusDays(1), LocalDateTime.now().plusDays(1), PageRequest.of(0, 10));
+    public void testFindBookingsForOwnerCurrent() {
+        List<BookingListRow> bookings = findBookings(BookingRole.OWNER, owner.getId(), State.CURRENT,
+                LocalDateTime.now().plusDays(1));
         assertThat(bookings).isNotEmpty();
     }
 
     @Test
-    public void testFindByItemOwnerIdAndEndDateLessThan() {
-        List<Booking> bookings = bookingRepository.findByItemOwnerIdAndEndDateLessThan(
-                owner.getId(), LocalDateTime.now().plusDays(3), PageRequest.of(0, 10));
+    public void testFindBookingsForOwnerPast() {
+        List<BookingListRow> bookings = findBookings(BookingRole.OWNER, owner.getId(), State.PAST,
+                LocalDateTime.now().plusDays(3));
         assertThat(bookings).isNotEmpty();
     }
 
     @Test
-    public void testFindByItemOwnerIdAndStartDateGreaterThan() {
-        List<Booking> bookings = bookingRepository.findByItemOwnerIdAndStartDateGreaterThan(
-                owner.getId(), LocalDateTime.now(), PageRequest.of(0, 10));
+    public void testFindBookingsForOwnerFuture() {
+        List<BookingListRow> bookings = findBookings(BookingRole.OWNER, owner.getId(), State.FUTURE,
+                LocalDateTime.now());
         assertThat(bookings).isNotEmpty();
     }
 
     @Test
-    public void testFindByItemOwnerId() {
-        List<Booking> bookings = bookingRepository.findByItemOwnerId(owner.getId(), PageRequest.of(0, 10));
+    public void testFindBookingsForOwnerAll() {
+        List<BookingListRow> bookings = findBookings(BookingRole.OWNER, owner.getId(), State.ALL,
+                LocalDateTime.now());
         assertThat(bookings).isNotEmpty();
-        assertThat(bookings.get(0).getItem().getOwner().getId()).isEqualTo(owner.getId());
+        assertThat(bookings.get(0).getBooking().getItem().getId()).isEqualTo(item.getId());
+        assertThat(booking.getOwnerId()).isEqualTo(owner.getId());
+        assertThat(findBookings(BookingRole.OWNER, booker.getId(), State.ALL, LocalDateTime.now())).isEmpty();
     }
 
     @Test
-    public void testFindByItemOwnerIdAndStatus() {
-        List<Booking> bookings = bookingRepository.findByItemOwnerIdAndStatus(
-                owner.getId(), BookingStatus.WAITING, PageRequest.of(0, 10));
+    public void testFindBookingsForOwnerByStatus() {
+        List<BookingListRow> bookings = findBookings(BookingRole.OWNER, owner.getId(), State.WAITING,
+                LocalDateTime.now());
         assertThat(bookings).isNotEmpty();
-        List<Booking> emptyBookings = bookingRepository.findByBookerIdAndStatus(
-                owner.getId(), BookingStatus.APPROVED, PageRequest.of(0, 10));
+        List<BookingListRow> emptyBookings = findBookings(BookingRole.OWNER, owner.getId(), State.REJECTED,
+                LocalDateTime.now());
         assertThat(emptyBookings).isEmpty();
     }
 
     @Test
-    public void testFindLastBookingForItem() {
+    public void testFindBookingsWithOffsetNotMultipleOfLimit() {
+        for (int i = 2; i <= 4; i++) {
+            bookingRepository.save(Booking.builder()
+                    .item(item)
+                    .booker(booker)
+                    .startDate(LocalDateTime.now().plusDays(i * 10L))
+                    .endDate(LocalDateTime.now().plusDays(i * 10L + 1))
+                    .build());
+        }
+
+        List<BookingListRow> all = findBookings(BookingRole.BOOKER, booker.getId(), State.ALL, LocalDateTime.now());
+        List<BookingListRow> page = bookingRepository.findBookings(BookingQuery.builder()
+                .role(BookingRole.BOOKER)
+                .userId(booker.getId())
+                .state(State.ALL)
+                .currentDate(LocalDateTime.now())
+                .offset(1)
+                .limit(2)
+                .build());
+
+        assertThat(page).hasSize(2);
+        assertThat(page.get(0).getBooking().getId()).isEqualTo(all.get(1).getBooking().getId());
+        assertThat(page.get(1).getBooking().getId()).isEqualTo(all.get(2).getBooking().getId());
+    }
+
+    @Test
+    public void testStreamBookingsReturnsAllRowsInListOrder() {
+        for (int i = 2; i <= 12; i++) {
+            bookingRepository.save(Booking.builder()
+                    .item(item)
+                    .booker(booker)
+                    .startDate(LocalDateTime.now().plusDays(i * 10L))
+                    .endDate(LocalDateTime.now().plusDays(i * 10L + 1))
+                    .build());
+        }
+        LocalDateTime now = LocalDateTime.now();
+
+        List<Long> listed = bookingRepository.findBookings(BookingQuery.builder()
+                        .role(BookingRole.OWNER)
+                        .userId(owner.getId())
+                        .state(State.FUTURE)
+                        .currentDate(now)
+                        .limit(100)
+                        .build()).stream()
+                .map(row -> row.getBooking().getId())
+                .collect(Collectors.toList());
+        List<Long> streamed;
+        try (Stream<BookingListRow> rows = bookingRepository.streamBookings(BookingQuery.builder()
+                .role(BookingRole.OWNER)
+                .userId(owner.getId())
+                .state(State.FUTURE)
+                .currentDate(now)
+                .build())) {
+            streamed = rows.map(row -> row.getBooking().getId()).collect(Collectors.toList());
+        }
+
+        assertThat(streamed).hasSizeGreaterThan(10).isEqualTo(listed);
+    }
+
+    @Test
+    public void testExportForOwnerReturnsAllBookingsOfOwnerItemsById() {
+        // Сессия без состояния читает напрямую из базы, поэтому отложенные вставки нужно сбросить
+        Booking second = bookingRepository.saveAndFlush(Booking.builder()
+                .item(item)
+                .booker(booker)
+                .startDate(LocalDateTime.now().minusDays(5))
+                .endDate(LocalDateTime.now().minusDays(4))
+                .build());
+
+        List<BookingDto> exported = new ArrayList<>();
+        bookingRepository.exportForOwner(owner.getId(), exported::add);
+
+        assertThat(exported).extracting(BookingDto::getId).containsExactly(booking.getId(), second.getId());
+        assertThat(exported.get(0).getItem().getName()).isEqualTo(item.getName());
+        assertThat(exported.get(0).getBooker().getId()).isEqualTo(booker.getId());
+        assertThat(exported.get(0).getStatus()).isEqualTo(BookingStatus.WAITING);
+
+        List<BookingDto> foreign = new ArrayList<>();
+        bookingRepository.exportForOwner(booker.getId(), foreign::add);
+        assertThat(foreign).isEmpty();
+    }
+
+    @Test
+    public void testFindLastBookingsForItems() {
         booking.setStartDate(LocalDateTime.now().minusDays(3));
         booking.setStatus(BookingStatus.APPROVED);
         bookingRepository.save(booking);
@@ -161,13 +259,13 @@ public class BookingJpaRepositoryTest {
         lastBooking.setStatus(BookingStatus.APPROVED);
         lastBooking = bookingRepository.save(lastBooking);
 
-        List<ItemDtoOwner.LastBooking> lastBookings = bookingRepository.findLastBookingForItem(item.getId());
-        assertThat(lastBookings).isNotEmpty();
-        assertThat(lastBookings.get(0).getid()).isEqualTo(lastBooking.getId());
+        List<ItemDtoOwner.ItemLastBooking> found = bookingRepository.findLastBookingsForItems(List.of(item.getId()));
+        assertThat(found).hasSize(1);
+        assertThat(found.get(0).getid()).isEqualTo(lastBooking.getId());
     }
 
     @Test
-    public void testFindNextBookingForItem() {
+    public void testFindNextBookingsForItems() {
         booking.setStartDate(LocalDateTime.now().plusDays(7));
         booking.setStatus(BookingStatus.APPROVED);
         bookingRepository.save(booking);
@@ -183,10 +281,62 @@ public class BookingJpaRepositoryTest {
         nextBooking.setStatus(BookingStatus.APPROVED);
         nextBooking = bookingRepository.save(nextBooking);
 
-        List<ItemDtoOwner.NextBooking> nextBookings = bookingRepository.findNextBookingForItem(item.getId());
-        assertThat(nextBookings).isNotEmpty();
-        assertThat(nextBookings.size()).isEqualTo(2);
-        assertThat(nextBookings.get(0).getid()).isEqualTo(nextBooking.getId());
+        List<ItemDtoOwner.ItemNextBooking> found = bookingRepository.findNextBookingsForItems(List.of(item.getId()));
+        assertThat(found).hasSize(1);
+        assertThat(found.get(0).getid()).isEqualTo(nextBooking.getId());
+    }
+
+    @Test
+    public void testFindLastAndNextBookingsForItems_oneRowPerItemOnEqualStart() {
+        LocalDateTime pastStart = LocalDateTime.now().minusDays(2);
+        LocalDateTime futureStart = LocalDateTime.now().plusDays(2);
+        List<Booking> saved = new ArrayList<>();
+        for (LocalDateTime start : List.of(pastStart, pastStart, futureStart, futureStart)) {
+            Booking approved = bookingRepository.save(Booking.builder()
+                    .item(item)
+                    .booker(booker)
+                    .startDate(start)
+                    .endDate(start.plusHours(1))
+                    .build());
+            approved.setStatus(BookingStatus.APPROVED);
+            saved.add(bookingRepository.save(approved));
+        }
+
+        List<ItemDtoOwner.ItemLastBooking> lastBookings = bookingRepository.findLastBookingsForItems(List.of(item.getId()));
+        List<ItemDtoOwner.ItemNextBooking> nextBookings = bookingRepository.findNextBookingsForItems(List.of(item.getId()));
+
+        assertThat(lastBookings).hasSize(1);
+        assertThat(lastBookings.get(0).getid()).isEqualTo(saved.get(0).getId());
+        assertThat(nextBookings).hasSize(1);
+        assertThat(nextBookings.get(0).getid()).isEqualTo(saved.get(2).getId());
+        // Календарь занятости строится из этих же строк и выбирает среди равных начал меньший id
+        assertThat(bookingRepository.findApprovedIntervalsForItem(item.getId()).stream()
+                .map(BookingInterval::getId)
+                .collect(Collectors.toList()))
+                .containsExactly(saved.stream().map(Booking::getId).toArray(Long[]::new));
+    }
+
+    @Test
+    public void testFindApprovedIntervalsForItems_returnsOnlyApprovedInsideWindow() {
+        LocalDateTime base = LocalDateTime.now().plusDays(10);
+        List<Booking> saved = new ArrayList<>();
+        for (int day : List.of(0, 2, 6)) {
+            Booking approved = bookingRepository.save(Booking.builder()
+                    .item(item)
+                    .booker(booker)
+                    .startDate(base.plusDays(day))
+                    .endDate(base.plusDays(day + 1))
+                    .build());
+            approved.setStatus(BookingStatus.APPROVED);
+            saved.add(bookingRepository.save(approved));
+        }
+
+        // Границы окна включаются: интервал, заканчивающийся в начале окна, тоже возвращается
+        assertThat(bookingRepository.findApprovedIntervalsForItems(List.of(item.getId()),
+                        base.plusDays(1), base.plusDays(3)).stream()
+                .map(ItemBookingInterval::getId)
+                .collect(Collectors.toList()))
+                .containsExactlyInAnyOrder(saved.get(0).getId(), saved.get(1).getId());
     }
 
     @Test
@@ -225,5 +375,14 @@ public class BookingJpaRepositoryTest {
                 item.getId(), booking.getStartDate(), booking.getEndDate());
         assertThat(exists).isTrue();
     }
-}
 
+    private List<BookingListRow> findBookings(BookingRole role, Long userId, State state, LocalDateTime currentDate) {
+        return bookingRepository.findBookings(BookingQuery.builder()
+                .role(role)
+                .userId(userId)
+                .state(state)
+                .currentDate(currentDate)
+                .limit(10)
+                .build());
+    }
+}
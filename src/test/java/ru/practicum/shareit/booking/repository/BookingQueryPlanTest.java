@@ -0,0 +1,82 @@
+package ru.practicum.shareit.booking.repository;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import ru.practicum.shareit.booking.dto.BookingCursor;
+import ru.practicum.shareit.booking.storage.BookingJpaRepository;
+import ru.practicum.shareit.booking.storage.BookingQuery;
+import ru.practicum.shareit.config.QueryBudgetConfiguration;
+import ru.practicum.shareit.utils.enums.BookingRole;
+import ru.practicum.shareit.utils.enums.State;
+
+import javax.persistence.EntityManager;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static ru.practicum.shareit.monitoring.QueryPlanAssertions.assertIndexed;
+import static ru.practicum.shareit.monitoring.QueryPlanAssertions.evictSecondLevelCache;
+
+@DataJpaTest
+@Import(QueryBudgetConfiguration.class)
+public class BookingQueryPlanTest {
+    @Autowired
+    private EntityManager entityManager;
+    @Autowired
+    private BookingJpaRepository bookingRepository;
+
+    @BeforeEach
+    void setUp() {
+        evictSecondLevelCache(entityManager);
+    }
+
+    @Test
+    void approvedIntervalsOfItem() {
+        assertIndexed(entityManager, () -> bookingRepository.findApprovedIntervalsForItem(1L));
+    }
+
+    @Test
+    void approvedIntervalsOfItems() {
+        assertIndexed(entityManager, () -> bookingRepository.findApprovedIntervalsForItems(List.of(1L, 2L),
+                LocalDateTime.now(), LocalDateTime.now().plusDays(1)));
+    }
+
+    @Test
+    void lastAndNextBookingsOfItems() {
+        assertIndexed(entityManager, () -> bookingRepository.findLastBookingsForItems(List.of(1L, 2L)));
+        assertIndexed(entityManager, () -> bookingRepository.findNextBookingsForItems(List.of(1L, 2L)));
+    }
+
+    @Test
+    void approvedOverlapOfItem() {
+        assertIndexed(entityManager, () -> bookingRepository.existsApprovedBookingByItemIdAndTimeRange(1L,
+                LocalDateTime.now(), LocalDateTime.now().plusDays(1)));
+    }
+
+    @Test
+    void bookingsOfBooker() {
+        assertIndexed(entityManager, () -> bookingRepository.findBookings(bookingQuery(BookingRole.BOOKER, null)));
+        assertIndexed(entityManager, () -> bookingRepository.findBookings(bookingQuery(BookingRole.BOOKER,
+                new BookingCursor(LocalDateTime.now(), 100L))));
+    }
+
+    @Test
+    void bookingsOfOwner() {
+        assertIndexed(entityManager, () -> bookingRepository.findBookings(bookingQuery(BookingRole.OWNER, null)));
+        assertIndexed(entityManager, () -> bookingRepository.findBookings(bookingQuery(BookingRole.OWNER,
+                new BookingCursor(LocalDateTime.now(), 100L))));
+    }
+
+    private static BookingQuery bookingQuery(BookingRole role, BookingCursor cursor) {
+        return BookingQuery.builder()
+                .role(role)
+                .userId(1L)
+                .state(State.ALL)
+                .currentDate(LocalDateTime.now())
+                .cursor(cursor)
+                .limit(10)
+                .build();
+    }
+}
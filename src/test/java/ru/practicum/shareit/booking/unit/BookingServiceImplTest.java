@@ -5,18 +5,29 @@ import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.springframework.boot.test.context.SpringBootTest;
-import org.springframework.data.domain.Pageable;
+import org.springframework.context.ApplicationEventPublisher;
+import ru.practicum.shareit.booking.calendar.ItemAvailabilityCalendar;
+import ru.practicum.shareit.booking.dto.BookingCursor;
+import ru.practicum.shareit.booking.dto.BookingDto;
+import ru.practicum.shareit.booking.dto.BookingListRow;
+import ru.practicum.shareit.booking.dto.BookingPage;
 import ru.practicum.shareit.booking.dto.BookingRequest;
+import ru.practicum.shareit.booking.dto.ItemBookingInterval;
+import ru.practicum.shareit.booking.event.BookingStatusChangedEvent;
 import ru.practicum.shareit.booking.model.Booking;
 import ru.practicum.shareit.booking.service.BookingServiceImpl;
 import ru.practicum.shareit.booking.storage.BookingJpaRepository;
+import ru.practicum.shareit.booking.storage.BookingQuery;
 import ru.practicum.shareit.error.ElementAccessException;
 import ru.practicum.shareit.error.EntityNotExistsExeption;
 import ru.practicum.shareit.error.PermissionException;
 import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.item.storage.ItemJpaRepository;
 import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.user.registry.UserRegistry;
 import ru.practicum.shareit.user.storage.UserJpaRepository;
+import ru.practicum.shareit.utils.DtoMapper;
+import ru.practicum.shareit.utils.enums.BookingRole;
 import ru.practicum.shareit.utils.enums.BookingStatus;
 import ru.practicum.shareit.utils.enums.State;
 
@@ -24,10 +35,10 @@ import java.time.LocalDateTime;
 import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.*;
-import static org.mockito.ArgumentMatchers.*;
-import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.*;
 
 @SpringBootTest
 public class BookingServiceImplTest {
@@ -38,9 +49,17 @@ public class BookingServiceImplTest {
     @Mock
     private UserJpaRepository userRepository;
 
+    @Mock
+    private UserRegistry userRegistry;
     @Mock
     private ItemJpaRepository itemRepository;
 
+    @Mock
+    private ItemAvailabilityCalendar availabilityCalendar;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
     @InjectMocks
     private BookingServiceImpl bookingService;
 
@@ -89,11 +108,11 @@ public class BookingServiceImplTest {
 
     @Test
     public void testGetBookingsForBooker_success() {
-        when(userRepository.existsById(anyLong())).thenReturn(true);
-        when(bookingRepository.findByBookerId(anyLong(), any(Pageable.class)))
-                .thenReturn(Collections.singletonList(booking));
+        when(userRegistry.exists(anyLong())).thenReturn(true);
+        when(bookingRepository.findBookings(any(BookingQuery.class)))
+                .thenReturn(Collections.singletonList(toRow(booking)));
 
-        List<Booking> bookings = bookingService.getBookingsForBooker(user.getId(), State.ALL, 0, 10);
+        List<BookingDto> bookings = bookingService.getBookingsForBooker(user.getId(), State.ALL, 0, 10);
 
         assertFalse(bookings.isEmpty());
         assertEquals(bookings.get(0).getId(), booking.getId());
@@ -101,7 +120,7 @@ public class BookingServiceImplTest {
 
     @Test
     public void testGetBookingsForBooker_failedBecauseUserDontExists() {
-        when(userRepository.existsById(anyLong())).thenReturn(false);
+        when(userRegistry.exists(anyLong())).thenReturn(false);
 
         Exception exception = assertThrows(EntityNotExistsExeption.class,
                 () -> bookingService.getBookingsForBooker(user.getId(), State.ALL, 0, 10));
@@ -109,38 +128,61 @@ public class BookingServiceImplTest {
         assertEquals(user.getId().toString(), exception.getMessage());
     }
 
+    @Test
+    public void testExportBookingsForOwner_failedBecauseUserDontExists() {
+        when(userRegistry.exists(anyLong())).thenReturn(false);
+
+        Exception exception = assertThrows(EntityNotExistsExeption.class,
+                () -> bookingService.exportBookingsForOwner(user.getId(), booking -> fail()));
+
+        assertEquals(user.getId().toString(), exception.getMessage());
+        verify(bookingRepository, never()).exportForOwner(anyLong(), any());
+    }
+
     @Test
     public void testGetBookingsForBookerWithVariousStates() {
-        when(userRepository.existsById(anyLong())).thenReturn(true);
-        when(bookingRepository.findByBookerId(anyLong(), any(Pageable.class))).thenReturn(Collections.singletonList(booking));
-        when(bookingRepository.findByBookerIdAndEndDateLessThan(anyLong(), any(LocalDateTime.class), any(Pageable.class))).thenReturn(Collections.singletonList(booking));
-        when(bookingRepository.findByBookerIdAndStartDateGreaterThan(anyLong(), any(LocalDateTime.class), any(Pageable.class))).thenReturn(Collections.singletonList(booking));
-        when(bookingRepository.findByBookerIdAndStartDateLessThanEqualAndEndDateGreaterThanEqual(anyLong(), any(LocalDateTime.class), any(LocalDateTime.class), any(Pageable.class))).thenReturn(Collections.singletonList(booking));
-        when(bookingRepository.findByBookerIdAndStatus(anyLong(), eq(BookingStatus.WAITING), any(Pageable.class))).thenReturn(Collections.singletonList(booking));
-        when(bookingRepository.findByBookerIdAndStatus(anyLong(), eq(BookingStatus.REJECTED), any(Pageable.class))).thenReturn(Collections.singletonList(booking));
+        when(userRegistry.exists(anyLong())).thenReturn(true);
+        when(bookingRepository.findBookings(any(BookingQuery.class)))
+                .thenReturn(Collections.singletonList(toRow(booking)));
 
         for (State state : State.values()) {
-            List<Booking> bookings = bookingService.getBookingsForBooker(user.getId(), state, 0, 10);
+            List<BookingDto> bookings = bookingService.getBookingsForBooker(user.getId(), state, 3, 10);
             assertFalse(bookings.isEmpty());
+            verify(bookingRepository).findBookings(argThat(query -> query.getRole() == BookingRole.BOOKER
+                    && query.getState() == state
+                    && query.getOffset() == 3
+                    && query.getLimit() == 10
+                    && query.getCursor() == null));
         }
     }
 
     @Test
     public void testGetBookingsForOwnerWithVariousStates() {
-        when(userRepository.existsById(anyLong())).thenReturn(true);
-        when(bookingRepository.findByItemOwnerId(anyLong(), any(Pageable.class))).thenReturn(Collections.singletonList(booking));
-        when(bookingRepository.findByItemOwnerIdAndEndDateLessThan(anyLong(), any(LocalDateTime.class), any(Pageable.class))).thenReturn(Collections.singletonList(booking));
-        when(bookingRepository.findByItemOwnerIdAndStartDateGreaterThan(anyLong(), any(LocalDateTime.class), any(Pageable.class))).thenReturn(Collections.singletonList(booking));
-        when(bookingRepository.findByItemOwnerIdAndStartDateLessThanEqualAndEndDateGreaterThanEqual(anyLong(), any(LocalDateTime.class), any(LocalDateTime.class), any(Pageable.class))).thenReturn(Collections.singletonList(booking));
-        when(bookingRepository.findByItemOwnerIdAndStatus(anyLong(), eq(BookingStatus.WAITING), any(Pageable.class))).thenReturn(Collections.singletonList(booking));
-        when(bookingRepository.findByItemOwnerIdAndStatus(anyLong(), eq(BookingStatus.REJECTED), any(Pageable.class))).thenReturn(Collections.singletonList(booking));
+        when(userRegistry.exists(anyLong())).thenReturn(true);
+        when(bookingRepository.findBookings(any(BookingQuery.class)))
+                .thenReturn(Collections.singletonList(toRow(booking)));
 
         for (State state : State.values()) {
-            List<Booking> bookings = bookingService.getBookingsForOwner(user.getId(), state, 0, 10);
+            List<BookingDto> bookings = bookingService.getBookingsForOwner(user.getId(), state, 0, 10);
             assertFalse(bookings.isEmpty());
+            verify(bookingRepository).findBookings(argThat(query -> query.getRole() == BookingRole.OWNER
+                    && query.getState() == state));
         }
     }
 
+    @Test
+    public void testGetBookingsForBookerAfter_nextCursorOnlyForFullPage() {
+        when(userRegistry.exists(anyLong())).thenReturn(true);
+        when(bookingRepository.findBookings(any(BookingQuery.class)))
+                .thenReturn(Collections.singletonList(toRow(booking)));
+
+        BookingPage fullPage = bookingService.getBookingsForBookerAfter(user.getId(), State.ALL, null, 1);
+        BookingPage lastPage = bookingService.getBookingsForBookerAfter(user.getId(), State.ALL, null, 2);
+
+        assertEquals(new BookingCursor(booking.getStartDate(), booking.getId()), fullPage.getNext());
+        assertNull(lastPage.getNext());
+    }
+
     @Test
     public void testCreateBooking_success() {
         User booker = User.builder().id(2L).build();
@@ -157,6 +199,7 @@ public class BookingServiceImplTest {
 
         assertNotNull(createdBooking);
         assertEquals(createdBooking.getId(), booking.getId());
+        verify(eventPublisher, times(1)).publishEvent(BookingStatusChangedEvent.of(booking, null));
     }
 
     @Test
@@ -228,7 +271,7 @@ public class BookingServiceImplTest {
         User booker = User.builder().id(2L).build();
         when(userRepository.findById(anyLong())).thenReturn(Optional.of(booker));
         when(itemRepository.findById(anyLong())).thenReturn(Optional.of(item));
-        when(bookingRepository.existsApprovedBookingByItemIdAndTimeRange(anyLong(),
+        when(availabilityCalendar.isBooked(anyLong(),
                 any(LocalDateTime.class), any(LocalDateTime.class))).thenReturn(true);
 
         BookingRequest bookingRequest = new BookingRequest();
@@ -244,20 +287,115 @@ public class BookingServiceImplTest {
                 + bookingRequest.getStart() + ", конец - " + bookingRequest.getEnd(), exception.getMessage());
     }
 
+    @Test
+    public void testCreateBatch_loadsUserAndItemOnceAndSavesAll() {
+        User booker = User.builder().id(2L).build();
+        when(userRepository.findById(anyLong())).thenReturn(Optional.of(booker));
+        when(itemRepository.findAllById(anySet())).thenReturn(List.of(item));
+        when(bookingRepository.saveAll(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
+
+        List<BookingRequest> bookingRequests = List.of(
+                bookingRequest(item.getId(), 1, 2),
+                bookingRequest(item.getId(), 3, 4),
+                bookingRequest(item.getId(), 5, 6));
+
+        List<Booking> created = bookingService.createBatch(booker.getId(), bookingRequests);
+
+        assertEquals(3, created.size());
+        verify(userRepository, times(1)).findById(booker.getId());
+        verify(itemRepository, times(1)).findAllById(Set.of(item.getId()));
+        verify(itemRepository, never()).findById(anyLong());
+        verify(bookingRepository, times(1)).findApprovedIntervalsForItems(eq(List.of(item.getId())),
+                any(LocalDateTime.class), any(LocalDateTime.class));
+        verify(availabilityCalendar, never()).isBooked(anyLong(), any(LocalDateTime.class), any(LocalDateTime.class));
+        verify(bookingRepository, times(1)).saveAll(anyList());
+        verify(bookingRepository, never()).save(any(Booking.class));
+        verify(eventPublisher, times(3)).publishEvent(any(BookingStatusChangedEvent.class));
+    }
+
+    @Test
+    public void testCreateBatch_failedIfApprovedBookingOverlaps() {
+        User booker = User.builder().id(2L).build();
+        when(userRepository.findById(anyLong())).thenReturn(Optional.of(booker));
+        when(itemRepository.findAllById(anySet())).thenReturn(List.of(item));
+        List<BookingRequest> bookingRequests = List.of(
+                bookingRequest(item.getId(), 1, 2),
+                bookingRequest(item.getId(), 5, 6));
+        ItemBookingInterval approved = mock(ItemBookingInterval.class);
+        when(approved.getItemId()).thenReturn(item.getId());
+        when(approved.getStartDate()).thenReturn(bookingRequests.get(1).getEnd());
+        when(approved.getEndDate()).thenReturn(bookingRequests.get(1).getEnd().plusDays(1));
+        when(bookingRepository.findApprovedIntervalsForItems(anyList(), any(LocalDateTime.class), any(LocalDateTime.class)))
+                .thenReturn(List.of(approved));
+
+        assertThrows(PermissionException.class,
+                () -> bookingService.createBatch(booker.getId(), bookingRequests));
+
+        verify(bookingRepository, never()).saveAll(anyList());
+    }
+
+    @Test
+    public void testCreateBatch_failedIfIntervalsOverlapWithinBatch() {
+        User booker = User.builder().id(2L).build();
+        when(userRepository.findById(anyLong())).thenReturn(Optional.of(booker));
+        when(itemRepository.findAllById(anySet())).thenReturn(List.of(item));
+
+        List<BookingRequest> bookingRequests = List.of(
+                bookingRequest(item.getId(), 1, 3),
+                bookingRequest(item.getId(), 2, 4));
+
+        assertThrows(ElementAccessException.class,
+                () -> bookingService.createBatch(booker.getId(), bookingRequests));
+
+        verify(bookingRepository, never()).saveAll(anyList());
+    }
+
+    @Test
+    public void testCreateBatch_failedIfIntervalsTouchWithinBatch() {
+        User booker = User.builder().id(2L).build();
+        when(userRepository.findById(anyLong())).thenReturn(Optional.of(booker));
+        when(itemRepository.findAllById(anySet())).thenReturn(List.of(item));
+
+        BookingRequest first = bookingRequest(item.getId(), 1, 3);
+        BookingRequest second = bookingRequest(item.getId(), 4, 5);
+        second.setStart(first.getEnd());
+        List<BookingRequest> bookingRequests = List.of(first, second);
+
+        assertThrows(ElementAccessException.class,
+                () -> bookingService.createBatch(booker.getId(), bookingRequests));
+
+        verify(bookingRepository, never()).saveAll(anyList());
+    }
+
+    @Test
+    public void testCreateBatch_failedIfItemNotExists() {
+        User booker = User.builder().id(2L).build();
+        when(userRepository.findById(anyLong())).thenReturn(Optional.of(booker));
+        when(itemRepository.findAllById(anySet())).thenReturn(Collections.emptyList());
+
+        Exception exception = assertThrows(EntityNotExistsExeption.class,
+                () -> bookingService.createBatch(booker.getId(), List.of(bookingRequest(99L, 1, 2))));
+
+        assertEquals("99", exception.getMessage());
+        verify(bookingRepository, never()).saveAll(anyList());
+    }
+
     @Test
     public void testSetApprove_success() {
-        when(userRepository.findById(anyLong())).thenReturn(Optional.of(user));
+        when(userRegistry.exists(anyLong())).thenReturn(true);
         when(bookingRepository.findById(anyLong())).thenReturn(Optional.of(booking));
+        when(itemRepository.lockById(item.getId())).thenReturn(Optional.of(item));
         when(bookingRepository.save(any(Booking.class))).thenReturn(booking);
 
         Booking approvedBooking = bookingService.setApprove(user.getId(), booking.getId(), true);
 
         assertEquals(approvedBooking.getStatus(), BookingStatus.APPROVED);
+        verify(eventPublisher, times(1)).publishEvent(any(BookingStatusChangedEvent.class));
     }
 
     @Test
     public void testSetRejected_success() {
-        when(userRepository.findById(anyLong())).thenReturn(Optional.of(user));
+        when(userRegistry.exists(anyLong())).thenReturn(true);
         when(bookingRepository.findById(anyLong())).thenReturn(Optional.of(booking));
         when(bookingRepository.save(any(Booking.class))).thenReturn(booking);
 
@@ -268,7 +406,7 @@ public class BookingServiceImplTest {
 
     @Test
     public void testSetApprove_failedIfUserNotExists() {
-        when(userRepository.findById(anyLong())).thenReturn(Optional.empty());
+        when(userRegistry.exists(anyLong())).thenReturn(false);
 
         Exception exception = assertThrows(EntityNotExistsExeption.class,
                 () -> bookingService.setApprove(user.getId(), booking.getId(), true));
@@ -278,7 +416,7 @@ public class BookingServiceImplTest {
 
     @Test
     public void testSetApprove_failedIfBookingNotExists() {
-        when(userRepository.findById(anyLong())).thenReturn(Optional.of(user));
+        when(userRegistry.exists(anyLong())).thenReturn(true);
         when(bookingRepository.findById(anyLong())).thenReturn(Optional.empty());
 
         Exception exception = assertThrows(EntityNotExistsExeption.class,
@@ -290,7 +428,7 @@ public class BookingServiceImplTest {
     @Test
     public void testSetApprove_failedIfUserDontOwnsItem() {
         User booker = User.builder().id(2L).build();
-        when(userRepository.findById(anyLong())).thenReturn(Optional.of(booker));
+        when(userRegistry.exists(anyLong())).thenReturn(true);
         when(bookingRepository.findById(anyLong())).thenReturn(Optional.of(booking));
 
         Exception exception = assertThrows(PermissionException.class,
@@ -300,10 +438,27 @@ public class BookingServiceImplTest {
                 exception.getMessage());
     }
 
+    @Test
+    public void testSetApprove_failedIfOverlapsApprovedBooking() {
+        when(userRegistry.exists(anyLong())).thenReturn(true);
+        when(bookingRepository.findById(anyLong())).thenReturn(Optional.of(booking));
+        when(itemRepository.lockById(item.getId())).thenReturn(Optional.of(item));
+        when(bookingRepository.existsOtherApprovedBookingByItemIdAndTimeRange(item.getId(), booking.getId(),
+                booking.getStartDate(), booking.getEndDate())).thenReturn(true);
+
+        assertThrows(ElementAccessException.class,
+                () -> bookingService.setApprove(user.getId(), booking.getId(), true));
+
+        assertEquals(BookingStatus.WAITING, booking.getStatus());
+        verify(bookingRepository, never()).save(any(Booking.class));
+        verify(eventPublisher, never()).publishEvent(any(BookingStatusChangedEvent.class));
+    }
+
     @Test
     public void testSetApprove_failedIfUserApprovedTwice() {
-        when(userRepository.findById(anyLong())).thenReturn(Optional.of(user));
+        when(userRegistry.exists(anyLong())).thenReturn(true);
         when(bookingRepository.findById(anyLong())).thenReturn(Optional.of(booking));
+        when(itemRepository.lockById(item.getId())).thenReturn(Optional.of(item));
         when(bookingRepository.save(any(Booking.class))).thenReturn(booking);
 
         Booking approvedBooking = bookingService.setApprove(user.getId(), booking.getId(), true);
@@ -316,4 +471,16 @@ public class BookingServiceImplTest {
         assertEquals(booking.getItem().getId().toString(),
                 exception.getMessage());
     }
+
+    private static BookingListRow toRow(Booking booking) {
+        return new BookingListRow(DtoMapper.toBookingDto(booking), booking.getStartDate());
+    }
+
+    private static BookingRequest bookingRequest(Long itemId, int startInDays, int endInDays) {
+        BookingRequest bookingRequest = new BookingRequest();
+        bookingRequest.setItemId(itemId);
+        bookingRequest.setStart(LocalDateTime.now().plusDays(startInDays));
+        bookingRequest.setEnd(LocalDateTime.now().plusDays(endInDays));
+        return bookingRequest;
+    }
 }
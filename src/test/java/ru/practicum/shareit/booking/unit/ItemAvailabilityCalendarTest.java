@@ -0,0 +1,238 @@
+package ru.practicum.shareit.booking.unit;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.practicum.shareit.booking.calendar.ItemAvailabilityCalendar;
+import ru.practicum.shareit.booking.dto.BookingInterval;
+import ru.practicum.shareit.booking.dto.BookingRef;
+import ru.practicum.shareit.booking.dto.LastAndNextBookings;
+import ru.practicum.shareit.booking.event.BookingStatusChangedEvent;
+import ru.practicum.shareit.booking.storage.BookingJpaRepository;
+import ru.practicum.shareit.utils.enums.BookingStatus;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class ItemAvailabilityCalendarTest {
+    private static final Long ITEM_ID = 1L;
+    private static final Long BOOKER_ID = 2L;
+    private static final Long OWNER_ID = 5L;
+    private static final LocalDateTime BASE = LocalDateTime.of(2030, 1, 1, 12, 0);
+
+    private BookingJpaRepository bookingRepository;
+    private ItemAvailabilityCalendar calendar;
+
+    @BeforeEach
+    void setUp() {
+        bookingRepository = mock(BookingJpaRepository.class);
+        calendar = new ItemAvailabilityCalendar(bookingRepository, true, 10, Duration.ofMinutes(1));
+        when(bookingRepository.findApprovedIntervalsForItem(ITEM_ID)).thenReturn(List.of(
+                interval(10L, BASE.plusDays(5), BASE.plusDays(6)),
+                interval(11L, BASE, BASE.plusDays(3))));
+    }
+
+    @Test
+    void isBooked_matchesInclusiveOverlapSemantics() {
+        assertTrue(calendar.isBooked(ITEM_ID, BASE.plusDays(1), BASE.plusDays(2)));
+        assertTrue(calendar.isBooked(ITEM_ID, BASE.plusDays(3), BASE.plusDays(4)));
+        assertTrue(calendar.isBooked(ITEM_ID, BASE.minusDays(1), BASE.plusDays(10)));
+        assertFalse(calendar.isBooked(ITEM_ID, BASE.plusDays(3).plusSeconds(1), BASE.plusDays(5).minusSeconds(1)));
+        assertFalse(calendar.isBooked(ITEM_ID, BASE.plusDays(7), BASE.plusDays(8)));
+
+        verify(bookingRepository, times(1)).findApprovedIntervalsForItem(ITEM_ID);
+    }
+
+    @Test
+    void isBooked_cachesSnapshotReadInWritingTransactionOnlyAfterCommit() {
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            assertTrue(calendar.isBooked(ITEM_ID, BASE.plusDays(1), BASE.plusDays(2)));
+            assertTrue(calendar.isBooked(ITEM_ID, BASE.plusDays(1), BASE.plusDays(2)));
+            verify(bookingRepository, times(2)).findApprovedIntervalsForItem(ITEM_ID);
+
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        assertTrue(calendar.isBooked(ITEM_ID, BASE.plusDays(1), BASE.plusDays(2)));
+        verify(bookingRepository, times(2)).findApprovedIntervalsForItem(ITEM_ID);
+    }
+
+    @Test
+    void isBooked_asksDatabaseWhenDisabled() {
+        ItemAvailabilityCalendar disabled =
+                new ItemAvailabilityCalendar(bookingRepository, false, 10, Duration.ofMinutes(1));
+        when(bookingRepository.existsApprovedBookingByItemIdAndTimeRange(ITEM_ID, BASE, BASE.plusDays(1)))
+                .thenReturn(true);
+
+        assertTrue(disabled.isBooked(ITEM_ID, BASE, BASE.plusDays(1)));
+        assertTrue(disabled.isBooked(ITEM_ID, BASE, BASE.plusDays(1)));
+
+        verify(bookingRepository, times(2)).existsApprovedBookingByItemIdAndTimeRange(ITEM_ID, BASE, BASE.plusDays(1));
+        verify(bookingRepository, never()).findApprovedIntervalsForItem(anyLong());
+    }
+
+    @Test
+    void isBooked_reloadsExpiredSnapshot() {
+        ItemAvailabilityCalendar expiring = new ItemAvailabilityCalendar(bookingRepository, true, 10, Duration.ZERO);
+
+        assertTrue(expiring.isBooked(ITEM_ID, BASE.plusDays(1), BASE.plusDays(2)));
+        assertTrue(expiring.isBooked(ITEM_ID, BASE.plusDays(1), BASE.plusDays(2)));
+
+        verify(bookingRepository, times(2)).findApprovedIntervalsForItem(ITEM_ID);
+    }
+
+    @Test
+    void isBooked_keepsSnapshotWhenOtherItemChangesDuringLoad() {
+        Long otherItemId = 2L;
+        when(bookingRepository.findApprovedIntervalsForItem(ITEM_ID)).thenAnswer(invocation -> {
+            calendar.onBookingStatusChanged(new BookingStatusChangedEvent(12L, otherItemId, 2L,
+                    BASE, BASE.plusDays(1), BookingStatus.WAITING, BookingStatus.APPROVED, OWNER_ID));
+            return List.of(interval(11L, BASE, BASE.plusDays(3)));
+        });
+
+        assertTrue(calendar.isBooked(ITEM_ID, BASE.plusDays(1), BASE.plusDays(2)));
+        assertTrue(calendar.isBooked(ITEM_ID, BASE.plusDays(1), BASE.plusDays(2)));
+
+        verify(bookingRepository, times(1)).findApprovedIntervalsForItem(ITEM_ID);
+    }
+
+    @Test
+    void isBooked_dropsSnapshotWhenSameItemChangesDuringLoad() {
+        when(bookingRepository.findApprovedIntervalsForItem(ITEM_ID)).thenAnswer(invocation -> {
+            calendar.onBookingStatusChanged(new BookingStatusChangedEvent(12L, ITEM_ID, 2L,
+                    BASE.plusDays(7), BASE.plusDays(9), BookingStatus.WAITING, BookingStatus.APPROVED, OWNER_ID));
+            return List.of(interval(11L, BASE, BASE.plusDays(3)));
+        });
+
+        assertTrue(calendar.isBooked(ITEM_ID, BASE.plusDays(1), BASE.plusDays(2)));
+        assertTrue(calendar.isBooked(ITEM_ID, BASE.plusDays(1), BASE.plusDays(2)));
+
+        verify(bookingRepository, times(2)).findApprovedIntervalsForItem(ITEM_ID);
+    }
+
+    @Test
+    void onBookingStatusChanged_updatesLoadedCalendar() {
+        assertFalse(calendar.isBooked(ITEM_ID, BASE.plusDays(7), BASE.plusDays(8)));
+
+        calendar.onBookingStatusChanged(new BookingStatusChangedEvent(12L, ITEM_ID, 2L,
+                BASE.plusDays(7), BASE.plusDays(9), BookingStatus.WAITING, BookingStatus.APPROVED, OWNER_ID));
+        assertTrue(calendar.isBooked(ITEM_ID, BASE.plusDays(7), BASE.plusDays(8)));
+
+        calendar.onBookingStatusChanged(new BookingStatusChangedEvent(11L, ITEM_ID, 2L,
+                BASE, BASE.plusDays(3), BookingStatus.APPROVED, BookingStatus.REJECTED, OWNER_ID));
+        assertFalse(calendar.isBooked(ITEM_ID, BASE.plusDays(1), BASE.plusDays(2)));
+
+        verify(bookingRepository, times(1)).findApprovedIntervalsForItem(ITEM_ID);
+    }
+
+    @Test
+    void onBookingStatusChanged_ignoresChangesOutsideApproved() {
+        assertFalse(calendar.isBooked(ITEM_ID, BASE.plusDays(7), BASE.plusDays(8)));
+
+        calendar.onBookingStatusChanged(new BookingStatusChangedEvent(13L, ITEM_ID, 2L,
+                BASE.plusDays(7), BASE.plusDays(9), null, BookingStatus.WAITING, OWNER_ID));
+        calendar.onBookingStatusChanged(new BookingStatusChangedEvent(13L, ITEM_ID, 2L,
+                BASE.plusDays(7), BASE.plusDays(9), BookingStatus.WAITING, BookingStatus.REJECTED, OWNER_ID));
+
+        assertFalse(calendar.isBooked(ITEM_ID, BASE.plusDays(7), BASE.plusDays(8)));
+        assertTrue(calendar.isBooked(ITEM_ID, BASE.plusDays(1), BASE.plusDays(2)));
+        verify(bookingRepository, times(1)).findApprovedIntervalsForItem(ITEM_ID);
+    }
+
+    @Test
+    void onBookingStatusChanged_ignoresItemsNotLoaded() {
+        calendar.onBookingStatusChanged(new BookingStatusChangedEvent(12L, 2L, 2L,
+                BASE, BASE.plusDays(1), BookingStatus.WAITING, BookingStatus.APPROVED, OWNER_ID));
+
+        assertFalse(calendar.isBooked(2L, BASE, BASE.plusDays(1)));
+        verify(bookingRepository, times(1)).findApprovedIntervalsForItem(2L);
+    }
+
+    @Test
+    void lastAndNext_dependsOnlyOnMoment() {
+        LastAndNextBookings between = calendar.lastAndNext(ITEM_ID, BASE.plusDays(4));
+        assertEquals(new BookingRef(11L, BOOKER_ID), between.getLastBooking());
+        assertEquals(new BookingRef(10L, BOOKER_ID), between.getNextBooking());
+        assertEquals(BASE.plusDays(5), between.getNextBookingStart());
+
+        LastAndNextBookings afterNextStarted = calendar.lastAndNext(ITEM_ID, BASE.plusDays(5).plusNanos(1));
+        assertEquals(new BookingRef(10L, BOOKER_ID), afterNextStarted.getLastBooking());
+        assertNull(afterNextStarted.getNextBooking());
+        assertNull(afterNextStarted.getNextBookingStart());
+
+        // Бронирование, начинающееся ровно в этот момент, не считается ни последним, ни следующим
+        LastAndNextBookings atStart = calendar.lastAndNext(ITEM_ID, BASE);
+        assertNull(atStart.getLastBooking());
+        assertEquals(new BookingRef(10L, BOOKER_ID), atStart.getNextBooking());
+
+        verify(bookingRepository, times(1)).findApprovedIntervalsForItem(ITEM_ID);
+    }
+
+    @Test
+    void lastAndNext_followsApprovals() {
+        assertNull(calendar.lastAndNext(ITEM_ID, BASE.plusDays(10)).getNextBooking());
+
+        calendar.onBookingStatusChanged(new BookingStatusChangedEvent(12L, ITEM_ID, 3L,
+                BASE.plusDays(12), BASE.plusDays(13), BookingStatus.WAITING, BookingStatus.APPROVED, OWNER_ID));
+
+        LastAndNextBookings bookings = calendar.lastAndNext(ITEM_ID, BASE.plusDays(10));
+        assertEquals(new BookingRef(10L, BOOKER_ID), bookings.getLastBooking());
+        assertEquals(new BookingRef(12L, 3L), bookings.getNextBooking());
+        assertEquals(BASE.plusDays(12), bookings.getNextBookingStart());
+    }
+
+    @Test
+    void lastAndNext_prefersLowerIdOnEqualStart() {
+        Long itemId = 5L;
+        when(bookingRepository.findApprovedIntervalsForItem(itemId)).thenReturn(List.of(
+                interval(41L, BASE.plusDays(5), BASE.plusDays(6)),
+                interval(31L, BASE, BASE.plusDays(1)),
+                interval(40L, BASE.plusDays(5), BASE.plusDays(6)),
+                interval(30L, BASE, BASE.plusDays(1))));
+
+        LastAndNextBookings bookings = calendar.lastAndNext(itemId, BASE.plusDays(3));
+        assertEquals(30L, bookings.getLastBooking().getid());
+        assertEquals(40L, bookings.getNextBooking().getid());
+
+        calendar.onBookingStatusChanged(new BookingStatusChangedEvent(29L, itemId, 3L,
+                BASE, BASE.plusDays(1), BookingStatus.WAITING, BookingStatus.APPROVED, OWNER_ID));
+        calendar.onBookingStatusChanged(new BookingStatusChangedEvent(42L, itemId, 3L,
+                BASE.plusDays(5), BASE.plusDays(6), BookingStatus.WAITING, BookingStatus.APPROVED, OWNER_ID));
+
+        bookings = calendar.lastAndNext(itemId, BASE.plusDays(3));
+        assertEquals(29L, bookings.getLastBooking().getid());
+        assertEquals(40L, bookings.getNextBooking().getid());
+    }
+
+    private static BookingInterval interval(Long id, LocalDateTime start, LocalDateTime end) {
+        return new BookingInterval() {
+            @Override
+            public Long getId() {
+                return id;
+            }
+
+            @Override
+            public Long getBookerId() {
+                return BOOKER_ID;
+            }
+
+            @Override
+            public LocalDateTime getStartDate() {
+                return start;
+            }
+
+            @Override
+            public LocalDateTime getEndDate() {
+                return end;
+            }
+        };
+    }
+}
@@ -10,6 +10,7 @@ import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import ru.practicum.shareit.error.EntityNotExistsExeption;
 import ru.practicum.shareit.error.handler.ErrorResponse;
 import ru.practicum.shareit.item.ItemController;
@@ -20,10 +21,13 @@ import ru.practicum.shareit.item.dto.ItemDtoRequest;
 import ru.practicum.shareit.item.model.Comment;
 import ru.practicum.shareit.item.service.ItemService;
 import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.user.service.UserService;
+import ru.practicum.shareit.utils.NdjsonResponses;
 
 import java.time.LocalDateTime;
 import java.util.Collections;
 import java.util.List;
+import java.util.function.Consumer;
 
 import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.Mockito.*;
@@ -40,6 +44,9 @@ public class ItemControllerTest {
     @MockBean
     private ItemService itemService;
 
+    @MockBean
+    private UserService userService;
+
     @Autowired
     private ObjectMapper objectMapper;
 
@@ -128,6 +135,40 @@ public class ItemControllerTest {
         verify(itemService, times(1)).getItems(1L, 0, 10);
     }
 
+    @Test
+    void streamAllItems_writesOneJsonLinePerItem() throws Exception {
+        doAnswer(invocation -> {
+            Consumer<ItemDtoOwner> consumer = invocation.getArgument(1);
+            consumer.accept(itemDtoOwner);
+            return null;
+        }).when(itemService).streamItems(eq(1L), any());
+
+        MvcResult result = mockMvc.perform(get("/items/stream")
+                        .header("X-Sharer-User-Id", 1L))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(NdjsonResponses.APPLICATION_NDJSON))
+                .andExpect(content().string(objectMapper.writeValueAsString(itemDtoOwner) + "\n"));
+
+        verify(itemService, never()).getItems(anyLong(), anyInt(), anyInt());
+    }
+
+    @Test
+    void streamAllItems_failedUserNotFound() throws Exception {
+        doThrow(new EntityNotExistsExeption("99")).when(userService).checkUserExists(99L);
+
+        mockMvc.perform(get("/items/stream")
+                        .header("X-Sharer-User-Id", 99L))
+                .andExpect(request().asyncNotStarted())
+                .andExpect(status().isNotFound())
+                .andExpect(jsonPath("$.error").hasJsonPath());
+
+        verify(itemService, never()).streamItems(anyLong(), any());
+    }
+
     @Test
     void getAllItems_failedNegativeParam() throws Exception {
         mockMvc.perform(get("/items")
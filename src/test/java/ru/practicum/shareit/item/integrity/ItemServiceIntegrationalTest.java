@@ -1,5 +1,7 @@
 package ru.practicum.shareit.item.integrity;
 
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -25,6 +27,7 @@ import ru.practicum.shareit.user.model.User;
 import ru.practicum.shareit.user.storage.UserJpaRepository;
 import ru.practicum.shareit.utils.enums.BookingStatus;
 
+import javax.persistence.EntityManager;
 import java.time.LocalDateTime;
 import java.util.List;
 
@@ -47,6 +50,8 @@ public class ItemServiceIntegrationalTest {
     private ReplyJpaRepository replyStorage;
     @Autowired
     private ItemServiceImpl itemService;
+    @Autowired
+    private EntityManager entityManager;
 
     private User itemOwner;
     private User itemSearcher;
@@ -93,6 +98,39 @@ public class ItemServiceIntegrationalTest {
         assertEquals(foundItem.getId(), item.getId());
     }
 
+    @Test
+    void getItem_ownerSeesLastAndNextApprovedBookings() {
+        Booking last = bookingStorage.save(Booking.builder()
+                .item(item)
+                .booker(itemSearcher)
+                .startDate(LocalDateTime.now().minusDays(2))
+                .endDate(LocalDateTime.now().minusDays(1))
+                .build());
+        last.setStatus(BookingStatus.APPROVED);
+        Booking next = bookingStorage.save(Booking.builder()
+                .item(item)
+                .booker(itemSearcher)
+                .startDate(LocalDateTime.now().plusDays(1))
+                .endDate(LocalDateTime.now().plusDays(2))
+                .build());
+        next.setStatus(BookingStatus.APPROVED);
+        bookingStorage.save(Booking.builder()
+                .item(item)
+                .booker(itemSearcher)
+                .startDate(LocalDateTime.now().plusDays(3))
+                .endDate(LocalDateTime.now().plusDays(4))
+                .build());
+
+        ItemDtoOwner ownerView = itemService.getItem(itemOwner.getId(), item.getId());
+        ItemDtoOwner searcherView = itemService.getItem(itemSearcher.getId(), item.getId());
+
+        assertEquals(last.getId(), ownerView.getLastBooking().getid());
+        assertEquals(itemSearcher.getId(), ownerView.getLastBooking().getBookerId());
+        assertEquals(next.getId(), ownerView.getNextBooking().getid());
+        assertNull(searcherView.getLastBooking());
+        assertNull(searcherView.getNextBooking());
+    }
+
     @Test
     void getItems() {
         List<ItemDtoOwner> foundItems = itemService.getItems(itemOwner.getId(), 0, 10);
@@ -101,6 +139,43 @@ public class ItemServiceIntegrationalTest {
         assertEquals(foundItems.get(0).getId(), item.getId());
     }
 
+    @Test
+    void getItems_queryCountDoesNotGrowWithPageSize() {
+        for (int i = 0; i < 5; i++) {
+            Item ownedItem = itemStorage.save(Item.builder()
+                    .owner(itemOwner)
+                    .name("item " + i)
+                    .description("description " + i)
+                    .available(true).build());
+            bookingStorage.save(Booking.builder()
+                    .item(ownedItem)
+                    .booker(itemSearcher)
+                    .startDate(LocalDateTime.now().minusDays(2))
+                    .endDate(LocalDateTime.now().minusDays(1))
+                    .build()).setStatus(BookingStatus.APPROVED);
+            bookingStorage.save(Booking.builder()
+                    .item(ownedItem)
+                    .booker(itemSearcher)
+                    .startDate(LocalDateTime.now().plusDays(1))
+                    .endDate(LocalDateTime.now().plusDays(2))
+                    .build()).setStatus(BookingStatus.APPROVED);
+            commentStorage.save(Comment.builder()
+                    .item(ownedItem)
+                    .user(itemSearcher)
+                    .text("comment " + i).build());
+        }
+
+        long smallPageStatements = countStatements(() -> itemService.getItems(itemOwner.getId(), 0, 2));
+        long largePageStatements = countStatements(() -> itemService.getItems(itemOwner.getId(), 0, 6));
+        List<ItemDtoOwner> largePage = itemService.getItems(itemOwner.getId(), 0, 6);
+
+        assertEquals(smallPageStatements, largePageStatements);
+        assertEquals(6, largePage.size());
+        assertNotNull(largePage.get(1).getLastBooking());
+        assertNotNull(largePage.get(1).getNextBooking());
+        assertEquals(1, largePage.get(1).getComments().size());
+    }
+
     @Test
     void findItems() {
         List<ItemDto> foundItems = itemService.findItems("tes", 0, 10);
@@ -108,6 +183,34 @@ public class ItemServiceIntegrationalTest {
         assertEquals(foundItems.get(0).getId(), item.getId());
     }
 
+    @Test
+    void findItems_filtersAvailabilityAndPaginatesInDatabase() {
+        itemStorage.save(Item.builder()
+                .owner(itemOwner)
+                .name("hidden drill")
+                .description("not available")
+                .available(false).build());
+        Item secondDrill = itemStorage.save(Item.builder()
+                .owner(itemOwner)
+                .name("Second drill")
+                .description("available")
+                .available(true).build());
+        Item firstDrill = itemStorage.save(Item.builder()
+                .owner(itemOwner)
+                .name("other")
+                .description("Cordless DRILL")
+                .available(true).build());
+
+        List<ItemDto> firstPage = itemService.findItems("drill", 0, 1);
+        List<ItemDto> secondPage = itemService.findItems("drill", 1, 1);
+
+        assertEquals(1, firstPage.size());
+        assertEquals(secondDrill.getId(), firstPage.get(0).getId());
+        assertEquals(1, secondPage.size());
+        assertEquals(firstDrill.getId(), secondPage.get(0).getId());
+        assertTrue(itemService.findItems("%", 0, 10).isEmpty());
+    }
+
     @Test
     void createItem_withRequestId() {
         ItemDtoRequest itemDtoRequest = ItemDtoRequest.builder()
@@ -192,4 +295,43 @@ public class ItemServiceIntegrationalTest {
                 () -> itemService.getItem(itemOwner.getId(), item.getId()));
     }
 
+    @Test
+    void interleavedUserAndItemInsertsAreGroupedIntoTwoJdbcBatches() {
+        entityManager.flush();
+        for (int i = 0; i < 5; i++) {
+            User owner = userStorage.save(User.builder()
+                    .name("Owner " + i)
+                    .email("batch.owner" + i + "@email.com")
+                    .build());
+            itemStorage.save(Item.builder()
+                    .owner(owner)
+                    .name("batch item " + i)
+                    .description("batch")
+                    .available(true)
+                    .build());
+        }
+
+        // id уже выданы последовательностями, при flush остаются только вставки, упорядоченные по сущностям
+        Statistics statistics = entityManager.getEntityManagerFactory()
+                .unwrap(SessionFactory.class)
+                .getStatistics();
+        statistics.setStatisticsEnabled(true);
+        statistics.clear();
+        entityManager.flush();
+
+        assertEquals(10, statistics.getEntityInsertCount());
+        assertEquals(2, statistics.getPrepareStatementCount());
+    }
+
+    private long countStatements(Runnable action) {
+        entityManager.flush();
+        entityManager.clear();
+        Statistics statistics = entityManager.getEntityManagerFactory()
+                .unwrap(SessionFactory.class)
+                .getStatistics();
+        statistics.setStatisticsEnabled(true);
+        statistics.clear();
+        action.run();
+        return statistics.getPrepareStatementCount();
+    }
 }
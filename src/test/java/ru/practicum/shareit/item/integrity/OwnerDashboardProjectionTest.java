@@ -0,0 +1,220 @@
+package ru.practicum.shareit.item.integrity;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.shareit.booking.dto.BookingRequest;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.service.BookingService;
+import ru.practicum.shareit.booking.storage.BookingJpaRepository;
+import ru.practicum.shareit.item.dashboard.OwnerDashboardProjection;
+import ru.practicum.shareit.item.dto.CommentDtoRequest;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.dto.ItemDtoOwner;
+import ru.practicum.shareit.item.dto.ItemDtoRequest;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.model.OwnerItemView;
+import ru.practicum.shareit.item.service.ItemService;
+import ru.practicum.shareit.item.storage.ItemJpaRepository;
+import ru.practicum.shareit.item.storage.OwnerItemViewJpaRepository;
+import ru.practicum.shareit.monitoring.RequestQueryStats;
+import ru.practicum.shareit.outbox.service.OutboxRelay;
+import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.user.storage.UserJpaRepository;
+import ru.practicum.shareit.utils.enums.BookingStatus;
+
+import javax.persistence.EntityManager;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@Transactional
+@TestPropertySource(properties = "shareit.owner-dashboard.max-staleness=PT1H")
+public class OwnerDashboardProjectionTest {
+    @Autowired
+    private ItemService itemService;
+    @Autowired
+    private BookingService bookingService;
+    @Autowired
+    private UserJpaRepository userStorage;
+    @Autowired
+    private ItemJpaRepository itemStorage;
+    @Autowired
+    private BookingJpaRepository bookingStorage;
+    @Autowired
+    private OwnerItemViewJpaRepository viewStorage;
+    @Autowired
+    private OutboxRelay outboxRelay;
+    @Autowired
+    private OwnerDashboardProjection ownerDashboard;
+    @Autowired
+    private EntityManager entityManager;
+
+    private User owner;
+    private User booker;
+
+    @BeforeEach
+    void setUp() {
+        owner = userStorage.save(User.builder().name("Owner").email("dashboard.owner@email.com").build());
+        booker = userStorage.save(User.builder().name("Booker").email("dashboard.booker@email.com").build());
+    }
+
+    @Test
+    void relay_buildsRowFromItemBookingAndCommentEvents() {
+        ItemDto itemDto = itemService.createItem(itemRequest("Drill"), owner.getId());
+        Item item = itemStorage.findById(itemDto.getId()).orElseThrow();
+        Booking past = bookingStorage.save(Booking.builder()
+                .item(item)
+                .booker(booker)
+                .startDate(LocalDateTime.now().minusDays(3))
+                .endDate(LocalDateTime.now().minusDays(2))
+                .build());
+        past.setStatus(BookingStatus.APPROVED);
+        itemService.createComment(booker.getId(), new CommentDtoRequest("Great drill"), item.getId());
+        BookingRequest bookingRequest = new BookingRequest();
+        bookingRequest.setItemId(item.getId());
+        bookingRequest.setStart(LocalDateTime.now().plusDays(1));
+        bookingRequest.setEnd(LocalDateTime.now().plusDays(2));
+        Booking next = bookingService.create(booker.getId(), bookingRequest);
+        bookingService.setApprove(owner.getId(), next.getId(), true);
+
+        outboxRelay.relay();
+        entityManager.flush();
+        entityManager.clear();
+
+        OwnerItemView view = viewStorage.findById(item.getId()).orElseThrow();
+        assertEquals(owner.getId(), view.getOwnerId());
+        assertEquals("Drill", view.getName());
+        assertEquals(past.getId(), view.getLastBookingId());
+        assertEquals(booker.getId(), view.getLastBookerId());
+        assertEquals(next.getId(), view.getNextBookingId());
+        assertNotNull(view.getNextBookingStart());
+        assertEquals(1, view.getCommentCount());
+
+        assertTrue(ownerDashboard.isFresh(owner.getId()));
+        List<ItemDtoOwner> items = itemService.getItems(owner.getId(), 0, 10);
+        assertEquals(1, items.size());
+        assertEquals(past.getId(), items.get(0).getLastBooking().getid());
+        assertEquals(next.getId(), items.get(0).getNextBooking().getid());
+        assertEquals("Booker", items.get(0).getComments().get(0).getAuthorName());
+        assertEquals("Great drill", items.get(0).getComments().get(0).getText());
+    }
+
+    @Test
+    void relay_updatesAndRemovesRowsIncrementally() {
+        ItemDto first = itemService.createItem(itemRequest("First"), owner.getId());
+        ItemDto second = itemService.createItem(itemRequest("Second"), owner.getId());
+        outboxRelay.relay();
+
+        itemService.updateItem(ItemDtoRequest.builder().name("Renamed").build(), first.getId(), owner.getId());
+        itemService.deleteItem(second.getId(), owner.getId());
+        outboxRelay.relay();
+        entityManager.flush();
+        entityManager.clear();
+
+        assertEquals("Renamed", viewStorage.findById(first.getId()).orElseThrow().getName());
+        assertTrue(viewStorage.findById(second.getId()).isEmpty());
+        assertEquals(List.of(first.getId()), viewStorage.findPageByOwnerId(owner.getId(), PageRequest.of(0, 10)).stream()
+                .map(OwnerItemView::getItemId)
+                .collect(Collectors.toList()));
+    }
+
+    @Test
+    void getItems_showsOwnItemBeforeRelay() {
+        ItemDto first = itemService.createItem(itemRequest("First"), owner.getId());
+        outboxRelay.relay();
+        assertTrue(ownerDashboard.isFresh(owner.getId()));
+
+        ItemDto second = itemService.createItem(itemRequest("Second"), owner.getId());
+        itemService.updateItem(ItemDtoRequest.builder().name("Renamed").build(), first.getId(), owner.getId());
+
+        assertFalse(ownerDashboard.isFresh(owner.getId()));
+        assertTrue(ownerDashboard.isFresh(booker.getId()));
+        List<ItemDtoOwner> items = itemService.getItems(owner.getId(), 0, 10);
+        assertEquals(List.of(first.getId(), second.getId()), items.stream()
+                .map(ItemDtoOwner::getId)
+                .collect(Collectors.toList()));
+        assertEquals("Renamed", items.get(0).getName());
+
+        outboxRelay.relay();
+        assertTrue(ownerDashboard.isFresh(owner.getId()));
+        assertEquals(2, itemService.getItems(owner.getId(), 0, 10).size());
+    }
+
+    @Test
+    void getItems_treatsStartedNextBookingAsLast() {
+        ItemDto itemDto = itemService.createItem(itemRequest("Saw"), owner.getId());
+        outboxRelay.relay();
+        entityManager.flush();
+        OwnerItemView view = viewStorage.findById(itemDto.getId()).orElseThrow();
+        Item item = itemStorage.findById(itemDto.getId()).orElseThrow();
+        Booking started = bookingStorage.save(Booking.builder()
+                .item(item)
+                .booker(booker)
+                .startDate(LocalDateTime.now().minusHours(1))
+                .endDate(LocalDateTime.now().plusDays(1))
+                .build());
+        started.setStatus(BookingStatus.APPROVED);
+        view.setNextBookingId(started.getId());
+        view.setNextBookerId(booker.getId());
+        view.setNextBookingStart(started.getStartDate());
+        entityManager.flush();
+
+        ItemDtoOwner result = ownerDashboard.getItems(owner.getId(), 0, 10).get(0);
+
+        assertEquals(started.getId(), result.getLastBooking().getid());
+        assertNull(result.getNextBooking());
+    }
+
+    @Test
+    void fillMissing_loadsBookingsOfAllItemsWithTwoQueries() {
+        List<Booking> pastBookings = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            ItemDto itemDto = itemService.createItem(itemRequest("Item " + i), owner.getId());
+            Booking past = bookingStorage.save(Booking.builder()
+                    .item(itemStorage.findById(itemDto.getId()).orElseThrow())
+                    .booker(booker)
+                    .startDate(LocalDateTime.now().minusDays(3))
+                    .endDate(LocalDateTime.now().minusDays(2))
+                    .build());
+            past.setStatus(BookingStatus.APPROVED);
+            pastBookings.add(past);
+        }
+        entityManager.flush();
+
+        // Последние и ближайшие бронирования всех вещей куска читаются двумя запросами, а не парой на вещь
+        RequestQueryStats stats = RequestQueryStats.startCapturing();
+        try {
+            ownerDashboard.fillMissing();
+        } finally {
+            RequestQueryStats.finish();
+        }
+        assertEquals(2, stats.getSql().stream()
+                .filter(sql -> sql.toLowerCase().startsWith("select") && sql.toLowerCase().contains(" from bookings "))
+                .count(), () -> String.join("\n", stats.getSql()));
+
+        entityManager.flush();
+        entityManager.clear();
+        for (Booking past : pastBookings) {
+            OwnerItemView view = viewStorage.findById(past.getItem().getId()).orElseThrow();
+            assertEquals(past.getId(), view.getLastBookingId());
+            assertNull(view.getNextBookingId());
+        }
+    }
+
+    private static ItemDtoRequest itemRequest(String name) {
+        return ItemDtoRequest.builder()
+                .name(name)
+                .description("dashboard")
+                .available(true)
+                .build();
+    }
+}
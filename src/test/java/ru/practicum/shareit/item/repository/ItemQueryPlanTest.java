@@ -0,0 +1,45 @@
+package ru.practicum.shareit.item.repository;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.PageRequest;
+import ru.practicum.shareit.config.QueryBudgetConfiguration;
+import ru.practicum.shareit.item.storage.CommentJpaRepository;
+import ru.practicum.shareit.item.storage.ItemJpaRepository;
+
+import javax.persistence.EntityManager;
+import java.util.List;
+
+import static ru.practicum.shareit.monitoring.QueryPlanAssertions.assertIndexed;
+import static ru.practicum.shareit.monitoring.QueryPlanAssertions.evictSecondLevelCache;
+
+@DataJpaTest
+@Import(QueryBudgetConfiguration.class)
+public class ItemQueryPlanTest {
+    @Autowired
+    private EntityManager entityManager;
+    @Autowired
+    private ItemJpaRepository itemRepository;
+    @Autowired
+    private CommentJpaRepository commentRepository;
+
+    @BeforeEach
+    void setUp() {
+        evictSecondLevelCache(entityManager);
+    }
+
+    @Test
+    void itemsOfOwner() {
+        assertIndexed(entityManager, () -> itemRepository.findByOwnerId(1L, PageRequest.of(0, 10)));
+    }
+
+    @Test
+    void commentsOfItems() {
+        assertIndexed(entityManager, () -> commentRepository.findByItemId(1L));
+        assertIndexed(entityManager, () -> commentRepository.findByItemIdIn(List.of(1L, 2L, 3L)));
+        assertIndexed(entityManager, () -> commentRepository.findViewsByItemIdIn(List.of(1L, 2L, 3L)));
+    }
+}
@@ -0,0 +1,137 @@
+package ru.practicum.shareit.item.unit;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+import ru.practicum.shareit.item.dto.ItemSearchView;
+import ru.practicum.shareit.item.event.ItemChangedEvent;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.search.ItemSearchIndex;
+import ru.practicum.shareit.item.storage.ItemJpaRepository;
+import ru.practicum.shareit.user.model.User;
+
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+class ItemSearchIndexTest {
+    private ItemJpaRepository itemStorage;
+    private ItemSearchIndex searchIndex;
+    private User owner;
+    private Item drill;
+    private Item saw;
+
+    @BeforeEach
+    void setUp() {
+        itemStorage = mock(ItemJpaRepository.class);
+        searchIndex = new ItemSearchIndex(itemStorage, mock(PlatformTransactionManager.class), true);
+
+        owner = User.builder().id(10L).build();
+        drill = Item.builder().id(1L).owner(owner).name("Дрель").description("Ударная дрель").available(true).build();
+        saw = Item.builder().id(2L).owner(owner).name("Пила").description("Не дрель").available(true).build();
+
+        when(itemStorage.streamAvailableForIndex()).thenReturn(Stream.of(view(drill), view(saw)));
+        when(itemStorage.findAllById(anyList())).thenAnswer(invocation -> {
+            List<Long> ids = invocation.getArgument(0);
+            return Stream.of(drill, saw)
+                    .filter(item -> ids.contains(item.getId()))
+                    .collect(Collectors.toList());
+        });
+    }
+
+    @Test
+    void supports_falseUntilRebuilt() {
+        assertFalse(searchIndex.supports("дрель"));
+
+        searchIndex.rebuild();
+
+        assertTrue(searchIndex.supports("дрель"));
+        assertFalse(searchIndex.supports("др"));
+    }
+
+    @Test
+    void search_findsSubstringInNameOrDescription() {
+        searchIndex.rebuild();
+
+        List<Item> found = searchIndex.search("ДРЕЛ", 0, 10);
+
+        assertEquals(List.of(drill, saw), found);
+        assertTrue(searchIndex.search("перфоратор", 0, 10).isEmpty());
+    }
+
+    @Test
+    void search_pagesLikeDatabaseQuery() {
+        searchIndex.rebuild();
+
+        // from округляется вниз до начала страницы, как в PageRequest.of(from / size, size)
+        assertEquals(List.of(drill, saw), searchIndex.search("дрел", 1, 10));
+        assertEquals(List.of(saw), searchIndex.search("дрел", 1, 1));
+        assertTrue(searchIndex.search("дрел", 3, 2).isEmpty());
+    }
+
+    @Test
+    void search_loadsOnlyRequestedPage() {
+        searchIndex.rebuild();
+        clearInvocations(itemStorage);
+
+        assertEquals(List.of(saw), searchIndex.search("дрель", 1, 1));
+        verify(itemStorage, times(1)).findAllById(List.of(2L));
+
+        assertTrue(searchIndex.search("дрел", 2, 2).isEmpty());
+        verifyNoMoreInteractions(itemStorage);
+    }
+
+    @Test
+    void search_filtersTrigramFalsePositivesWithoutDatabase() {
+        searchIndex.rebuild();
+        // Содержит обе триграммы "абвг", но не саму строку
+        Item scattered = Item.builder().id(3L).owner(owner).name("абв бвг").description("-").available(true).build();
+        Item exact = Item.builder().id(4L).owner(owner).name("абвг").description("-").available(true).build();
+        searchIndex.onItemChanged(ItemChangedEvent.created(scattered));
+        searchIndex.onItemChanged(ItemChangedEvent.created(exact));
+        when(itemStorage.findAllById(List.of(4L))).thenReturn(List.of(exact));
+        clearInvocations(itemStorage);
+
+        assertEquals(List.of(exact), searchIndex.search("абвг", 0, 10));
+        verify(itemStorage, times(1)).findAllById(List.of(4L));
+        verifyNoMoreInteractions(itemStorage);
+    }
+
+    @Test
+    void onItemChanged_removesUnavailableAndIndexesNewItems() {
+        searchIndex.rebuild();
+        ItemChangedEvent.Snapshot before = ItemChangedEvent.Snapshot.of(saw);
+        saw.setAvailable(false);
+        searchIndex.onItemChanged(ItemChangedEvent.updated(before, saw));
+
+        Item hammer = Item.builder().id(3L).owner(owner).name("Молоток").description("Тяжелый").available(true).build();
+        searchIndex.onItemChanged(ItemChangedEvent.created(hammer));
+        when(itemStorage.findAllById(List.of(3L))).thenReturn(List.of(hammer));
+
+        assertEquals(List.of(drill), searchIndex.search("дрель", 0, 10));
+        assertEquals(List.of(hammer), searchIndex.search("молот", 0, 10));
+    }
+
+    private static ItemSearchView view(Item item) {
+        return new ItemSearchView() {
+            @Override
+            public Long getId() {
+                return item.getId();
+            }
+
+            @Override
+            public String getName() {
+                return item.getName();
+            }
+
+            @Override
+            public String getDescription() {
+                return item.getDescription();
+            }
+        };
+    }
+}
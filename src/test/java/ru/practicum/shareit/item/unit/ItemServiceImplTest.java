@@ -4,21 +4,30 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.boot.test.context.SpringBootTest;
-import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import ru.practicum.shareit.booking.calendar.ItemAvailabilityCalendar;
+import ru.practicum.shareit.booking.dto.LastAndNextBookings;
 import ru.practicum.shareit.booking.model.Booking;
 import ru.practicum.shareit.booking.storage.BookingJpaRepository;
 import ru.practicum.shareit.error.ElementAccessException;
 import ru.practicum.shareit.error.EntityNotExistsExeption;
 import ru.practicum.shareit.error.PermissionException;
+import ru.practicum.shareit.item.cache.ItemViewCache;
+import ru.practicum.shareit.item.dashboard.OwnerDashboardProjection;
 import ru.practicum.shareit.item.dto.CommentDtoRequest;
 import ru.practicum.shareit.item.dto.ItemDto;
 import ru.practicum.shareit.item.dto.ItemDtoOwner;
 import ru.practicum.shareit.item.dto.ItemDtoRequest;
+import ru.practicum.shareit.item.dto.ItemListView;
+import ru.practicum.shareit.item.event.CommentCreatedEvent;
+import ru.practicum.shareit.item.event.ItemChangedEvent;
 import ru.practicum.shareit.item.model.Comment;
 import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.search.ItemSearchIndex;
 import ru.practicum.shareit.item.service.ItemServiceImpl;
 import ru.practicum.shareit.item.storage.CommentJpaRepository;
 import ru.practicum.shareit.item.storage.ItemJpaRepository;
@@ -27,11 +36,16 @@ import ru.practicum.shareit.request.model.Reply;
 import ru.practicum.shareit.request.storage.ItemRequestJpaRepository;
 import ru.practicum.shareit.request.storage.ReplyJpaRepository;
 import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.user.registry.UserRegistry;
 import ru.practicum.shareit.user.storage.UserJpaRepository;
 
+import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.*;
@@ -45,13 +59,25 @@ class ItemServiceImplTest {
     @Mock
     private UserJpaRepository userStorage;
     @Mock
+    private UserRegistry userRegistry;
+    @Mock
     private BookingJpaRepository bookingStorage;
     @Mock
+    private ItemAvailabilityCalendar availabilityCalendar;
+    @Mock
     private CommentJpaRepository commentStorage;
     @Mock
     private ItemRequestJpaRepository itemRequestStorage;
     @Mock
     private ReplyJpaRepository replyStorage;
+    @Mock
+    private ItemSearchIndex searchIndex;
+    @Mock
+    private ItemViewCache itemViewCache;
+    @Mock
+    private OwnerDashboardProjection ownerDashboard;
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
 
     @InjectMocks
     private ItemServiceImpl itemService;
@@ -89,41 +115,66 @@ class ItemServiceImplTest {
     @Test
     void getItem_successIfUserItemOwner() {
 
-        when(userStorage.findById(itemOwner.getId())).thenReturn(Optional.of(itemOwner));
+        when(userRegistry.exists(itemOwner.getId())).thenReturn(true);
         when(itemStorage.findById(item.getId())).thenReturn(Optional.of(item));
-        when(bookingStorage.findLastBookingForItem(item.getId())).thenReturn(Collections.emptyList());
-        when(bookingStorage.findNextBookingForItem(item.getId())).thenReturn(Collections.emptyList());
+        when(availabilityCalendar.lastAndNext(eq(item.getId()), any(LocalDateTime.class)))
+                .thenReturn(LastAndNextBookings.NONE);
         when(commentStorage.findByItemId(item.getId())).thenReturn(Collections.emptyList());
 
         ItemDtoOwner result = itemService.getItem(itemOwner.getId(), item.getId());
 
         assertNotNull(result);
-        verify(userStorage, times(1)).findById(itemOwner.getId());
+        verify(userRegistry, times(1)).exists(itemOwner.getId());
         verify(itemStorage, times(1)).findById(item.getId());
-        verify(bookingStorage, times(1)).findLastBookingForItem(item.getId());
-        verify(bookingStorage, times(1)).findNextBookingForItem(item.getId());
+        verify(availabilityCalendar, times(1)).lastAndNext(eq(item.getId()), any(LocalDateTime.class));
+    }
+
+    @Test
+    void getItem_servedFromViewCache() {
+        ItemDtoOwner cachedView = ItemDtoOwner.builder().id(item.getId()).name(item.getName()).build();
+        when(userRegistry.exists(itemSearcher.getId())).thenReturn(true);
+        when(itemViewCache.get(item.getId(), itemSearcher.getId())).thenReturn(cachedView);
+
+        ItemDtoOwner result = itemService.getItem(itemSearcher.getId(), item.getId());
+
+        assertSame(cachedView, result);
+        verify(itemStorage, never()).findById(anyLong());
+        verify(commentStorage, never()).findByItemId(anyLong());
+    }
+
+    @Test
+    void getItem_assembledViewPutIntoCache() {
+        when(userRegistry.exists(itemOwner.getId())).thenReturn(true);
+        when(itemViewCache.version(item.getId())).thenReturn(7L);
+        when(itemStorage.findById(item.getId())).thenReturn(Optional.of(item));
+        when(availabilityCalendar.lastAndNext(eq(item.getId()), any(LocalDateTime.class)))
+                .thenReturn(LastAndNextBookings.NONE);
+        when(commentStorage.findByItemId(item.getId())).thenReturn(Collections.emptyList());
+
+        ItemDtoOwner result = itemService.getItem(itemOwner.getId(), item.getId());
+
+        verify(itemViewCache, times(1)).put(item.getId(), itemOwner.getId(), true, result, null, 7L);
     }
 
     @Test
     void getItem_successIfUserNotOwner() {
 
-        when(userStorage.findById(itemSearcher.getId())).thenReturn(Optional.of(itemSearcher));
+        when(userRegistry.exists(itemSearcher.getId())).thenReturn(true);
         when(itemStorage.findById(item.getId())).thenReturn(Optional.of(item));
         when(commentStorage.findByItemId(item.getId())).thenReturn(Collections.emptyList());
 
         ItemDtoOwner result = itemService.getItem(itemSearcher.getId(), item.getId());
 
         assertNotNull(result);
-        verify(userStorage, times(1)).findById(itemSearcher.getId());
+        verify(userRegistry, times(1)).exists(itemSearcher.getId());
         verify(itemStorage, times(1)).findById(item.getId());
-        verify(bookingStorage, times(0)).findLastBookingForItem(item.getId());
-        verify(bookingStorage, times(0)).findNextBookingForItem(item.getId());
+        verify(availabilityCalendar, never()).lastAndNext(anyLong(), any(LocalDateTime.class));
     }
 
     @Test
     void getItem_failedIfUserNotExists() {
 
-        when(userStorage.findById(itemSearcher.getId())).thenReturn(Optional.empty());
+        when(userRegistry.exists(itemSearcher.getId())).thenReturn(false);
 
         Exception exception = assertThrows(EntityNotExistsExeption.class,
                 () -> itemService.getItem(itemSearcher.getId(), item.getId()));
@@ -131,15 +182,14 @@ class ItemServiceImplTest {
         assertEquals(itemSearcher.getId().toString(),
                 exception.getMessage());
 
-        verify(userStorage, times(1)).findById(itemSearcher.getId());
+        verify(userRegistry, times(1)).exists(itemSearcher.getId());
         verify(itemStorage, times(0)).findById(item.getId());
-        verify(bookingStorage, times(0)).findLastBookingForItem(item.getId());
-        verify(bookingStorage, times(0)).findNextBookingForItem(item.getId());
+        verify(availabilityCalendar, never()).lastAndNext(anyLong(), any(LocalDateTime.class));
     }
 
     @Test
     void getItem_failedIfItemNotExists() {
-        when(userStorage.findById(itemSearcher.getId())).thenReturn(Optional.of(itemSearcher));
+        when(userRegistry.exists(itemSearcher.getId())).thenReturn(true);
         when(itemStorage.findById(item.getId())).thenReturn(Optional.empty());
 
         Exception exception = assertThrows(EntityNotExistsExeption.class,
@@ -148,10 +198,9 @@ class ItemServiceImplTest {
         assertEquals(item.getId().toString(),
                 exception.getMessage());
 
-        verify(userStorage, times(1)).findById(itemSearcher.getId());
+        verify(userRegistry, times(1)).exists(itemSearcher.getId());
         verify(itemStorage, times(1)).findById(item.getId());
-        verify(bookingStorage, times(0)).findLastBookingForItem(item.getId());
-        verify(bookingStorage, times(0)).findNextBookingForItem(item.getId());
+        verify(availabilityCalendar, never()).lastAndNext(anyLong(), any(LocalDateTime.class));
     }
 
     @Test
@@ -162,18 +211,68 @@ class ItemServiceImplTest {
         List<Item> items = Collections.singletonList(item);
         Pageable pageable = PageRequest.of(from / size, size);
 
-        when(userStorage.findById(itemOwner.getId())).thenReturn(Optional.of(itemOwner));
+        when(userRegistry.exists(itemOwner.getId())).thenReturn(true);
         when(itemStorage.findByOwnerId(anyLong(), any(Pageable.class))).thenReturn(items);
-        when(bookingStorage.findLastBookingForItem(anyLong())).thenReturn(Collections.emptyList());
-        when(bookingStorage.findNextBookingForItem(anyLong())).thenReturn(Collections.emptyList());
-        when(commentStorage.findByItemId(anyLong())).thenReturn(Collections.emptyList());
+        when(bookingStorage.findLastBookingsForItems(anyList())).thenReturn(Collections.emptyList());
+        when(bookingStorage.findNextBookingsForItems(anyList())).thenReturn(Collections.emptyList());
+        when(commentStorage.findByItemIdIn(anyList())).thenReturn(Collections.emptyList());
 
         List<ItemDtoOwner> result = itemService.getItems(itemOwner.getId(), from, size);
 
         assertNotNull(result);
         assertEquals(1, result.size());
-        verify(userStorage, times(1)).findById(itemOwner.getId());
+        verify(userRegistry, times(1)).exists(itemOwner.getId());
         verify(itemStorage, times(1)).findByOwnerId(itemOwner.getId(), pageable);
+        verify(bookingStorage, times(1)).findLastBookingsForItems(List.of(item.getId()));
+        verify(bookingStorage, times(1)).findNextBookingsForItems(List.of(item.getId()));
+        verify(commentStorage, never()).findByItemId(anyLong());
+    }
+
+    @Test
+    void getItems_servedFromReadModelWhenFresh() {
+        ItemDtoOwner view = ItemDtoOwner.builder().id(item.getId()).name(item.getName()).build();
+        when(userRegistry.exists(itemOwner.getId())).thenReturn(true);
+        when(ownerDashboard.isFresh(itemOwner.getId())).thenReturn(true);
+        when(ownerDashboard.getItems(itemOwner.getId(), 0, 10)).thenReturn(List.of(view));
+
+        List<ItemDtoOwner> result = itemService.getItems(itemOwner.getId(), 0, 10);
+
+        assertEquals(List.of(view), result);
+        verify(itemStorage, never()).findByOwnerId(anyLong(), any(Pageable.class));
+        verify(bookingStorage, never()).findLastBookingsForItems(anyList());
+        verify(commentStorage, never()).findByItemIdIn(anyList());
+    }
+
+    @Test
+    void streamItems_loadsBookingsAndCommentsPerChunk() {
+        List<ItemListView> views = LongStream.rangeClosed(1, 250)
+                .mapToObj(ItemServiceImplTest::listView)
+                .collect(Collectors.toList());
+
+        when(userRegistry.exists(itemOwner.getId())).thenReturn(true);
+        when(itemStorage.streamByOwnerId(itemOwner.getId())).thenReturn(views.stream());
+        when(bookingStorage.findLastBookingsForItems(anyList())).thenReturn(Collections.emptyList());
+        when(bookingStorage.findNextBookingsForItems(anyList())).thenReturn(Collections.emptyList());
+        when(commentStorage.findViewsByItemIdIn(anyList())).thenReturn(Collections.emptyList());
+
+        List<Long> streamed = new ArrayList<>();
+        itemService.streamItems(itemOwner.getId(), dto -> streamed.add(dto.getId()));
+
+        assertEquals(LongStream.rangeClosed(1, 250).boxed().collect(Collectors.toList()), streamed);
+        verify(bookingStorage, times(3)).findLastBookingsForItems(anyList());
+        verify(bookingStorage, times(3)).findNextBookingsForItems(anyList());
+        verify(commentStorage, times(3)).findViewsByItemIdIn(anyList());
+        verify(commentStorage, never()).findByItemIdIn(anyList());
+    }
+
+    @Test
+    void streamItems_failedUserNotExists() {
+        when(userRegistry.exists(itemOwner.getId())).thenReturn(false);
+
+        assertThrows(EntityNotExistsExeption.class,
+                () -> itemService.streamItems(itemOwner.getId(), dto -> fail("нет вещей для выгрузки")));
+
+        verify(itemStorage, never()).streamByOwnerId(anyLong());
     }
 
     @Test
@@ -184,7 +283,7 @@ class ItemServiceImplTest {
         List<Item> items = Collections.singletonList(item);
         Pageable pageable = PageRequest.of(from / size, size);
 
-        when(userStorage.findById(itemOwner.getId())).thenReturn(Optional.empty());
+        when(userRegistry.exists(itemOwner.getId())).thenReturn(false);
 
         Exception exception = assertThrows(EntityNotExistsExeption.class,
                 () -> itemService.getItem(itemOwner.getId(), item.getId()));
@@ -192,7 +291,7 @@ class ItemServiceImplTest {
         assertEquals(itemOwner.getId().toString(),
                 exception.getMessage());
 
-        verify(userStorage, times(1)).findById(itemOwner.getId());
+        verify(userRegistry, times(1)).exists(itemOwner.getId());
         verify(itemStorage, times(0)).findByOwnerId(itemOwner.getId(), pageable);
     }
 
@@ -203,15 +302,16 @@ class ItemServiceImplTest {
         int size = 10;
 
         List<Item> items = Collections.singletonList(item);
-        Pageable pageable = PageRequest.of(from / size, size);
+        Pageable pageable = PageRequest.of(from / size, size, Sort.by(Sort.Direction.ASC, "id"));
 
-        when(itemStorage.findAll(pageable)).thenReturn(new PageImpl<>(items));
+        when(itemStorage.search("%test%", pageable)).thenReturn(items);
 
         List<ItemDto> result = itemService.findItems(text, from, size);
 
         assertNotNull(result);
         assertEquals(1, result.size());
-        verify(itemStorage, times(1)).findAll(pageable);
+        verify(itemStorage, times(1)).search("%test%", pageable);
+        verify(itemStorage, never()).findAll(any(Pageable.class));
     }
 
     @Test
@@ -220,15 +320,36 @@ class ItemServiceImplTest {
         int from = 0;
         int size = 10;
 
-        List<Item> items = Collections.singletonList(item);
-        Pageable pageable = PageRequest.of(from / size, size);
+        Pageable pageable = PageRequest.of(from / size, size, Sort.by(Sort.Direction.ASC, "id"));
 
-        when(itemStorage.findAll(pageable)).thenReturn(new PageImpl<>(items));
+        when(itemStorage.search("%test343423%", pageable)).thenReturn(Collections.emptyList());
 
         List<ItemDto> result = itemService.findItems(text, from, size);
 
         assertEquals(0, result.size());
-        verify(itemStorage, times(1)).findAll(pageable);
+        verify(itemStorage, times(1)).search("%test343423%", pageable);
+    }
+
+    @Test
+    void findItems_escapesLikeWildcards() {
+        Pageable pageable = PageRequest.of(0, 10, Sort.by(Sort.Direction.ASC, "id"));
+
+        List<ItemDto> result = itemService.findItems("50%_OFF_!", 0, 10);
+
+        assertEquals(0, result.size());
+        verify(itemStorage, times(1)).search("%50!%!_off!_!!%", pageable);
+    }
+
+    @Test
+    void findItems_usesSearchIndexWhenReady() {
+        when(searchIndex.supports("test")).thenReturn(true);
+        when(searchIndex.search("test", 0, 10)).thenReturn(Collections.singletonList(item));
+
+        List<ItemDto> result = itemService.findItems("test", 0, 10);
+
+        assertEquals(1, result.size());
+        verify(searchIndex, times(1)).search("test", 0, 10);
+        verify(itemStorage, never()).search(anyString(), any(Pageable.class));
     }
 
     @Test
@@ -328,7 +449,7 @@ class ItemServiceImplTest {
         when(itemStorage.findById(item.getId())).thenReturn(Optional.of(item));
         when(bookingStorage.findCompletedBookingForUserAndItem(item.getId(), itemSearcher.getId()))
                 .thenReturn(Collections.singletonList(new Booking()));
-        when(commentStorage.save(any(Comment.class))).thenReturn(new Comment());
+        when(commentStorage.save(any(Comment.class))).thenAnswer(invocation -> invocation.getArgument(0));
 
         Comment result = itemService.createComment(itemSearcher.getId(), commentDtoRequest, item.getId());
 
@@ -336,6 +457,7 @@ class ItemServiceImplTest {
         verify(userStorage, times(1)).findById(itemSearcher.getId());
         verify(itemStorage, times(1)).findById(item.getId());
         verify(commentStorage, times(1)).save(any(Comment.class));
+        verify(eventPublisher, times(1)).publishEvent(CommentCreatedEvent.of(result));
     }
 
     @Test
@@ -402,7 +524,7 @@ class ItemServiceImplTest {
                 .name("Updated Item")
                 .available(false).build();
 
-        when(userStorage.findById(itemOwner.getId())).thenReturn(Optional.of(itemOwner));
+        when(userRegistry.exists(itemOwner.getId())).thenReturn(true);
         when(itemStorage.findById(item.getId())).thenReturn(Optional.of(item));
         when(itemStorage.save(any(Item.class))).thenAnswer(invocation -> invocation.getArgument(0));
 
@@ -412,7 +534,8 @@ class ItemServiceImplTest {
         assertEquals(itemDtoRequest.getName(), result.getName());
         assertEquals(item.getDescription(), result.getDescription());
         assertEquals(itemDtoRequest.getAvailable(), result.getAvailable());
-        verify(userStorage, times(1)).findById(itemOwner.getId());
+        assertEquals(itemOwner, result.getOwner());
+        verify(userStorage, never()).findById(anyLong());
         verify(itemStorage, times(1)).findById(item.getId());
         verify(itemStorage, times(1)).save(any(Item.class));
     }
@@ -423,7 +546,7 @@ class ItemServiceImplTest {
                 .name("Updated Item")
                 .description("Updated Description").build();
 
-        when(userStorage.findById(itemOwner.getId())).thenReturn(Optional.empty());
+        when(userRegistry.exists(itemOwner.getId())).thenReturn(false);
 
         Exception exception = assertThrows(EntityNotExistsExeption.class,
                 () -> itemService.updateItem(itemDtoRequest, item.getId(), itemOwner.getId()));
@@ -431,7 +554,7 @@ class ItemServiceImplTest {
         assertEquals(itemOwner.getId().toString(),
                 exception.getMessage());
 
-        verify(userStorage, times(1)).findById(itemOwner.getId());
+        verify(userRegistry, times(1)).exists(itemOwner.getId());
         verify(itemStorage, times(0)).findById(item.getId());
         verify(itemStorage, times(0)).save(any(Item.class));
     }
@@ -442,7 +565,7 @@ class ItemServiceImplTest {
                 .name("Updated Item")
                 .description("Updated Description").build();
 
-        when(userStorage.findById(itemOwner.getId())).thenReturn(Optional.of(itemOwner));
+        when(userRegistry.exists(itemOwner.getId())).thenReturn(true);
         when(itemStorage.findById(item.getId())).thenReturn(Optional.empty());
 
         Exception exception = assertThrows(EntityNotExistsExeption.class,
@@ -451,7 +574,7 @@ class ItemServiceImplTest {
         assertEquals(item.getId().toString(),
                 exception.getMessage());
 
-        verify(userStorage, times(1)).findById(itemOwner.getId());
+        verify(userRegistry, times(1)).exists(itemOwner.getId());
         verify(itemStorage, times(1)).findById(item.getId());
         verify(itemStorage, times(0)).save(any(Item.class));
     }
@@ -462,7 +585,7 @@ class ItemServiceImplTest {
                 .name("Updated Item")
                 .description("Updated Description").build();
 
-        when(userStorage.findById(itemSearcher.getId())).thenReturn(Optional.of(itemSearcher));
+        when(userRegistry.exists(itemSearcher.getId())).thenReturn(true);
         when(itemStorage.findById(item.getId())).thenReturn(Optional.of(item));
 
         Exception exception = assertThrows(PermissionException.class,
@@ -471,7 +594,7 @@ class ItemServiceImplTest {
         assertEquals(itemSearcher.getId().toString(),
                 exception.getMessage());
 
-        verify(userStorage, times(1)).findById(itemSearcher.getId());
+        verify(userRegistry, times(1)).exists(itemSearcher.getId());
         verify(itemStorage, times(1)).findById(item.getId());
         verify(itemStorage, times(0)).save(any(Item.class));
     }
@@ -484,6 +607,7 @@ class ItemServiceImplTest {
 
         verify(itemStorage, times(1)).findById(item.getId());
         verify(itemStorage, times(1)).delete(any(Item.class));
+        verify(eventPublisher, times(1)).publishEvent(any(ItemChangedEvent.class));
     }
 
     @Test
@@ -513,4 +637,28 @@ class ItemServiceImplTest {
         verify(itemStorage, times(1)).findById(item.getId());
         verify(itemStorage, times(0)).delete(any(Item.class));
     }
+
+    private static ItemListView listView(long id) {
+        return new ItemListView() {
+            @Override
+            public Long getId() {
+                return id;
+            }
+
+            @Override
+            public String getName() {
+                return "Item " + id;
+            }
+
+            @Override
+            public String getDescription() {
+                return "Description " + id;
+            }
+
+            @Override
+            public Boolean getAvailable() {
+                return true;
+            }
+        };
+    }
 }
@@ -0,0 +1,136 @@
+package ru.practicum.shareit.item.unit;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.practicum.shareit.booking.event.BookingStatusChangedEvent;
+import ru.practicum.shareit.item.cache.ItemViewCache;
+import ru.practicum.shareit.item.dto.ItemDtoOwner;
+import ru.practicum.shareit.item.event.CommentCreatedEvent;
+import ru.practicum.shareit.item.storage.CommentJpaRepository;
+import ru.practicum.shareit.user.event.UserChangedEvent;
+import ru.practicum.shareit.utils.enums.BookingStatus;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class ItemViewCacheTest {
+    private static final Long ITEM_ID = 1L;
+    private static final Long OWNER_ID = 10L;
+    private static final Long OTHER_ID = 20L;
+
+    private CommentJpaRepository commentStorage;
+    private ItemViewCache cache;
+    private ItemDtoOwner ownerView;
+    private ItemDtoOwner publicView;
+
+    @BeforeEach
+    void setUp() {
+        commentStorage = mock(CommentJpaRepository.class);
+        cache = new ItemViewCache(commentStorage, 100, Duration.ofMinutes(10));
+        ownerView = ItemDtoOwner.builder().id(ITEM_ID).name("Дрель").build();
+        publicView = ItemDtoOwner.builder().id(ITEM_ID).name("Дрель").build();
+    }
+
+    @Test
+    void get_returnsViewMatchingOwnership() {
+        cache.put(ITEM_ID, OWNER_ID, true, ownerView, null, cache.version(ITEM_ID));
+        cache.put(ITEM_ID, OWNER_ID, false, publicView, null, cache.version(ITEM_ID));
+
+        assertSame(ownerView, cache.get(ITEM_ID, OWNER_ID));
+        assertSame(publicView, cache.get(ITEM_ID, OTHER_ID));
+    }
+
+    @Test
+    void get_ownerViewNotServedToOthers() {
+        cache.put(ITEM_ID, OWNER_ID, true, ownerView, null, cache.version(ITEM_ID));
+
+        assertNull(cache.get(ITEM_ID, OTHER_ID));
+    }
+
+    @Test
+    void get_ownerViewExpiresWhenNextBookingStarts() {
+        cache.put(ITEM_ID, OWNER_ID, true, ownerView, LocalDateTime.now().minusSeconds(1), cache.version(ITEM_ID));
+
+        assertNull(cache.get(ITEM_ID, OWNER_ID));
+    }
+
+    @Test
+    void put_ignoredIfChangedWhileAssembling() {
+        long seenVersion = cache.version(ITEM_ID);
+        cache.onCommentCreated(new CommentCreatedEvent(5L, ITEM_ID, OWNER_ID));
+
+        cache.put(ITEM_ID, OWNER_ID, false, publicView, null, seenVersion);
+
+        assertNull(cache.get(ITEM_ID, OTHER_ID));
+    }
+
+    @Test
+    void onBookingStatusChanged_evictsOnlyOwnerView() {
+        cache.put(ITEM_ID, OWNER_ID, true, ownerView, null, cache.version(ITEM_ID));
+        cache.put(ITEM_ID, OWNER_ID, false, publicView, null, cache.version(ITEM_ID));
+
+        cache.onBookingStatusChanged(new BookingStatusChangedEvent(3L, ITEM_ID, OTHER_ID,
+                LocalDateTime.now().plusDays(1), LocalDateTime.now().plusDays(2),
+                BookingStatus.WAITING, BookingStatus.APPROVED, OWNER_ID));
+
+        assertNull(cache.get(ITEM_ID, OWNER_ID));
+        assertSame(publicView, cache.get(ITEM_ID, OTHER_ID));
+    }
+
+    @Test
+    void onBookingStatusChanged_ignoresBookingsOutsideApproved() {
+        cache.put(ITEM_ID, OWNER_ID, true, ownerView, null, cache.version(ITEM_ID));
+
+        cache.onBookingStatusChanged(new BookingStatusChangedEvent(3L, ITEM_ID, OTHER_ID,
+                LocalDateTime.now().plusDays(1), LocalDateTime.now().plusDays(2),
+                null, BookingStatus.WAITING, OWNER_ID));
+
+        assertSame(ownerView, cache.get(ITEM_ID, OWNER_ID));
+    }
+
+    @Test
+    void put_notDiscardedByChangesOfOtherItems() {
+        long seenVersion = cache.version(ITEM_ID);
+        cache.onCommentCreated(new CommentCreatedEvent(5L, ITEM_ID + 1, OWNER_ID));
+
+        cache.put(ITEM_ID, OWNER_ID, false, publicView, null, seenVersion);
+
+        assertSame(publicView, cache.get(ITEM_ID, OTHER_ID));
+    }
+
+    @Test
+    void onCommentCreated_evictsViews() {
+        cache.put(ITEM_ID, OWNER_ID, false, publicView, null, cache.version(ITEM_ID));
+        cache.onCommentCreated(new CommentCreatedEvent(5L, ITEM_ID, OWNER_ID));
+
+        assertNull(cache.get(ITEM_ID, OTHER_ID));
+    }
+
+    @Test
+    void onUserChanged_evictsOnlyItemsCommentedByRenamedUser() {
+        Long otherItemId = ITEM_ID + 1;
+        cache.put(ITEM_ID, OWNER_ID, false, publicView, null, cache.version(ITEM_ID));
+        cache.put(otherItemId, OWNER_ID, false, publicView, null, cache.version(otherItemId));
+        when(commentStorage.findItemIdsByAuthorId(OTHER_ID)).thenReturn(List.of(ITEM_ID));
+
+        cache.onUserChanged(new UserChangedEvent(OTHER_ID, false, false));
+
+        assertNull(cache.get(ITEM_ID, OTHER_ID));
+        assertSame(publicView, cache.get(otherItemId, OTHER_ID));
+    }
+
+    @Test
+    void onUserChanged_ignoresCreatedAndDeletedUsers() {
+        cache.put(ITEM_ID, OWNER_ID, false, publicView, null, cache.version(ITEM_ID));
+
+        cache.onUserChanged(new UserChangedEvent(OTHER_ID, true, false));
+        cache.onUserChanged(UserChangedEvent.deleted(OTHER_ID));
+
+        assertSame(publicView, cache.get(ITEM_ID, OTHER_ID));
+        verify(commentStorage, never()).findItemIdsByAuthorId(anyLong());
+    }
+}
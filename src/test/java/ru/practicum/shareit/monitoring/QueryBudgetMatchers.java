@@ -0,0 +1,44 @@
+package ru.practicum.shareit.monitoring;
+
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.ResultMatcher;
+
+// Проверки бюджета SQL-запросов для MockMvc: mockMvc.perform(...).andExpect(withinDeclaredBudget()).
+// Итоги берутся из атрибутов запроса, которые оставляет QueryBudgetInterceptor
+public final class QueryBudgetMatchers {
+
+    private QueryBudgetMatchers() {
+    }
+
+    // Бюджет из @QueryBudget обработчика, shareit.query-budget.endpoints или default-budget
+    public static ResultMatcher withinDeclaredBudget() {
+        return result -> {
+            Integer budget = (Integer) result.getRequest().getAttribute(QueryBudgetInterceptor.BUDGET_ATTRIBUTE);
+            if (budget == null) {
+                throw new AssertionError("Запрос не прошел через QueryBudgetInterceptor");
+            }
+            assertWithin(result, budget);
+        };
+    }
+
+    public static ResultMatcher atMost(int budget) {
+        return result -> assertWithin(result, budget);
+    }
+
+    public static RequestQueryStats statsOf(MvcResult result) {
+        RequestQueryStats stats = (RequestQueryStats) result.getRequest()
+                .getAttribute(QueryBudgetInterceptor.STATS_ATTRIBUTE);
+        if (stats == null) {
+            throw new AssertionError("Запрос не прошел через QueryBudgetInterceptor");
+        }
+        return stats;
+    }
+
+    private static void assertWithin(MvcResult result, int budget) {
+        RequestQueryStats stats = statsOf(result);
+        if (stats.getStatements() > budget) {
+            throw new AssertionError(String.format("%s %s: %s при бюджете %d",
+                    result.getRequest().getMethod(), result.getRequest().getRequestURI(), stats, budget));
+        }
+    }
+}
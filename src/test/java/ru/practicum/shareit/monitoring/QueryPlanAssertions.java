@@ -0,0 +1,81 @@
+package ru.practicum.shareit.monitoring;
+
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+
+import javax.persistence.EntityManager;
+import java.sql.ParameterMetaData;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.StringJoiner;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+// Проверка планов горячих запросов репозиториев: каждый должен идти по индексу из миграций,
+// а не полным просмотром таблицы. Проверяется SQL, который сгенерировал Hibernate: он перехватывается
+// RequestStatementInspector во время вызова репозитория, а затем выполняется EXPLAIN на том же соединении.
+// Тесту нужен @Import(QueryBudgetConfiguration.class), который подключает перехватчик
+public final class QueryPlanAssertions {
+
+    private QueryPlanAssertions() {
+    }
+
+    // Ответ из кэша запросов не доходит до базы, и проверять было бы нечего
+    public static void evictSecondLevelCache(EntityManager entityManager) {
+        entityManager.getEntityManagerFactory().unwrap(SessionFactory.class).getCache().evictAllRegions();
+    }
+
+    public static void assertIndexed(EntityManager entityManager, Runnable repositoryCall) {
+        RequestQueryStats stats = RequestQueryStats.startCapturing();
+        try {
+            repositoryCall.run();
+        } finally {
+            RequestQueryStats.finish();
+        }
+
+        assertFalse(stats.getSql().isEmpty(), "Вызов репозитория не выполнил ни одного запроса");
+        for (String sql : stats.getSql()) {
+            String plan = explain(entityManager, sql);
+            assertFalse(plan.contains("tableScan"), () -> "Полный просмотр таблицы в плане:\n" + sql + "\n" + plan);
+        }
+    }
+
+    // Параметры подставляются значениями подходящего типа: план H2 от конкретных значений не зависит
+    private static String explain(EntityManager entityManager, String sql) {
+        return entityManager.unwrap(Session.class).doReturningWork(connection -> {
+            try (PreparedStatement statement = connection.prepareStatement("EXPLAIN " + sql)) {
+                ParameterMetaData parameters = statement.getParameterMetaData();
+                for (int i = 1; i <= parameters.getParameterCount(); i++) {
+                    statement.setObject(i, sampleValue(parameters.getParameterType(i)));
+                }
+
+                StringJoiner plan = new StringJoiner("\n");
+                try (ResultSet rows = statement.executeQuery()) {
+                    while (rows.next()) {
+                        plan.add(rows.getString(1));
+                    }
+                }
+                return plan.toString();
+            }
+        });
+    }
+
+    private static Object sampleValue(int sqlType) {
+        switch (sqlType) {
+            case Types.TIMESTAMP:
+            case Types.TIMESTAMP_WITH_TIMEZONE:
+            case Types.DATE:
+                return Timestamp.valueOf(LocalDateTime.now());
+            case Types.CHAR:
+            case Types.VARCHAR:
+                return "APPROVED";
+            case Types.BOOLEAN:
+                return true;
+            default:
+                return 1L;
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package ru.practicum.shareit.monitoring.integrity;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.storage.BookingJpaRepository;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.storage.ItemJpaRepository;
+import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.user.storage.UserJpaRepository;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+import static ru.practicum.shareit.monitoring.QueryBudgetMatchers.atMost;
+import static ru.practicum.shareit.monitoring.QueryBudgetMatchers.statsOf;
+import static ru.practicum.shareit.monitoring.QueryBudgetMatchers.withinDeclaredBudget;
+
+// Без транзакции теста: запрос сам открывает транзакцию контроллера и ходит в базу,
+// как в работающем приложении, поэтому строки и время JDBC настоящие
+@SpringBootTest
+@AutoConfigureMockMvc
+public class QueryBudgetTest {
+    @Autowired
+    private MockMvc mvc;
+    @Autowired
+    private UserJpaRepository userStorage;
+    @Autowired
+    private ItemJpaRepository itemStorage;
+    @Autowired
+    private BookingJpaRepository bookingStorage;
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private User owner;
+    private User booker;
+    private final List<Item> items = new ArrayList<>();
+    private final List<Booking> bookings = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        owner = userStorage.save(User.builder().name("Owner").email("budget.owner@email.com").build());
+        booker = userStorage.save(User.builder().name("Booker").email("budget.booker@email.com").build());
+        for (int i = 0; i < 3; i++) {
+            Item item = itemStorage.save(Item.builder()
+                    .name("Item " + i)
+                    .description("Description " + i)
+                    .available(true)
+                    .owner(owner)
+                    .build());
+            items.add(item);
+            bookings.add(bookingStorage.save(Booking.builder()
+                    .item(item)
+                    .booker(booker)
+                    .startDate(LocalDateTime.now().minusDays(2))
+                    .endDate(LocalDateTime.now().minusDays(1))
+                    .build()));
+            bookings.add(bookingStorage.save(Booking.builder()
+                    .item(item)
+                    .booker(booker)
+                    .startDate(LocalDateTime.now().plusDays(1))
+                    .endDate(LocalDateTime.now().plusDays(2))
+                    .build()));
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        bookingStorage.deleteAll(bookings);
+        itemStorage.deleteAll(items);
+        userStorage.delete(booker);
+        userStorage.delete(owner);
+    }
+
+    @Test
+    void getItems_staysWithinDeclaredBudget() throws Exception {
+        MvcResult result = mvc.perform(get("/items").header("X-Sharer-User-Id", owner.getId()))
+                .andExpect(status().isOk())
+                .andExpect(withinDeclaredBudget())
+                .andReturn();
+
+        assertTrue(statsOf(result).getRepeatedLoads().isEmpty());
+        assertTrue(meterRegistry.get("shareit.sql.statements")
+                .tag("endpoint", "ItemController.getAll").summary().count() > 0);
+    }
+
+    @Test
+    void getBookingsForOwner_staysWithinDeclaredBudget() throws Exception {
+        MvcResult result = mvc.perform(get("/bookings/owner").header("X-Sharer-User-Id", owner.getId()))
+                .andExpect(status().isOk())
+                .andExpect(withinDeclaredBudget())
+                .andReturn();
+
+        assertTrue(statsOf(result).getRows() >= bookings.size());
+        assertTrue(statsOf(result).getJdbcTime().toNanos() > 0);
+        assertTrue(meterRegistry.get("shareit.sql.rows")
+                .tag("endpoint", "BookingController.getBookingsForOwner").summary().totalAmount() > 0);
+        assertTrue(meterRegistry.get("shareit.sql.jdbc.time")
+                .tag("endpoint", "BookingController.getBookingsForOwner").timer().totalTime(TimeUnit.NANOSECONDS) > 0);
+    }
+
+    @Test
+    void atMost_failsWhenBudgetIsExceeded() {
+        AssertionError error = assertThrows(AssertionError.class, () ->
+                mvc.perform(get("/bookings/owner").header("X-Sharer-User-Id", owner.getId()))
+                        .andExpect(atMost(0)));
+
+        assertTrue(error.getMessage().startsWith("GET /bookings/owner: "));
+        assertTrue(error.getMessage().endsWith("при бюджете 0"));
+    }
+}
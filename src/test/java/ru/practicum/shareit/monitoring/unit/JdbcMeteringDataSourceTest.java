@@ -0,0 +1,70 @@
+package ru.practicum.shareit.monitoring.unit;
+
+import org.h2.jdbc.JdbcConnection;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import ru.practicum.shareit.monitoring.JdbcMeteringDataSource;
+import ru.practicum.shareit.monitoring.RequestQueryStats;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JdbcMeteringDataSourceTest {
+    private final JdbcMeteringDataSource dataSource = new JdbcMeteringDataSource(h2());
+
+    @AfterEach
+    void tearDown() {
+        RequestQueryStats.finish();
+    }
+
+    @Test
+    void countsRowsAndTimeOfCurrentRequest() throws Exception {
+        RequestQueryStats stats = RequestQueryStats.start();
+
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement("select x from system_range(1, 3)");
+             ResultSet resultSet = statement.executeQuery()) {
+            while (resultSet.next()) {
+                assertTrue(resultSet.getLong(1) > 0);
+            }
+        }
+
+        assertEquals(3, stats.getRows());
+        assertTrue(stats.getJdbcTime().toNanos() > 0);
+    }
+
+    @Test
+    void countsRowsOfResultSetReturnedAfterExecute() throws Exception {
+        RequestQueryStats stats = RequestQueryStats.start();
+
+        try (Connection connection = dataSource.getConnection();
+             Statement statement = connection.createStatement()) {
+            assertTrue(statement.execute("select x from system_range(1, 2)"));
+            try (ResultSet resultSet = statement.getResultSet()) {
+                while (resultSet.next()) {
+                    resultSet.getLong(1);
+                }
+            }
+        }
+
+        assertEquals(2, stats.getRows());
+    }
+
+    @Test
+    void leavesConnectionsOutsideRequestUnwrapped() throws Exception {
+        try (Connection connection = dataSource.getConnection()) {
+            assertTrue(connection instanceof JdbcConnection);
+        }
+    }
+
+    private static JdbcDataSource h2() {
+        JdbcDataSource h2 = new JdbcDataSource();
+        h2.setURL("jdbc:h2:mem:metering;DB_CLOSE_DELAY=-1");
+        return h2;
+    }
+}
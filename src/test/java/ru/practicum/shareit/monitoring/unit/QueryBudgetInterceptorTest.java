@@ -0,0 +1,146 @@
+package ru.practicum.shareit.monitoring.unit;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.boot.test.system.CapturedOutput;
+import org.springframework.boot.test.system.OutputCaptureExtension;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.method.HandlerMethod;
+import ru.practicum.shareit.monitoring.EntityLoadInterceptor;
+import ru.practicum.shareit.monitoring.QueryBudgetInterceptor;
+import ru.practicum.shareit.monitoring.QueryBudgetProperties;
+import ru.practicum.shareit.monitoring.RequestQueryStats;
+import ru.practicum.shareit.monitoring.RequestStatementInspector;
+import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.utils.annotations.QueryBudget;
+
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.*;
+
+@ExtendWith(OutputCaptureExtension.class)
+class QueryBudgetInterceptorTest {
+    private final QueryBudgetProperties properties = new QueryBudgetProperties();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final QueryBudgetInterceptor interceptor = new QueryBudgetInterceptor(properties, meterRegistry);
+    private final RequestStatementInspector statementInspector = new RequestStatementInspector();
+    private final EntityLoadInterceptor loadInterceptor = new EntityLoadInterceptor();
+    private final MockHttpServletRequest request = new MockHttpServletRequest();
+    private final MockHttpServletResponse response = new MockHttpServletResponse();
+
+    @AfterEach
+    void tearDown() {
+        RequestQueryStats.finish();
+    }
+
+    @Test
+    void warnsWhenEndpointExceedsItsBudget(CapturedOutput output) throws Exception {
+        properties.setEndpoints(Map.of("SampleController.getAll", 2));
+        HandlerMethod handler = new HandlerMethod(new SampleController(), "getAll");
+
+        interceptor.preHandle(request, response, handler);
+        statementInspector.inspect("select * from items");
+        statementInspector.inspect("select * from users");
+        statementInspector.inspect("select * from users");
+        loadInterceptor.onLoad(new User(), 1L, null, null, null);
+        loadInterceptor.onLoad(new User(), 1L, null, null, null);
+        loadInterceptor.onLoad(new User(), 2L, null, null, null);
+        interceptor.afterCompletion(request, response, handler, null);
+
+        assertThat(output).contains("SampleController.getAll выполнил 3 SQL-запросов при бюджете 2");
+        assertThat(output).contains("{User#1=2}");
+        assertNull(RequestQueryStats.current());
+        assertEquals(1, meterRegistry.get("shareit.sql.budget.exceeded")
+                .tag("endpoint", "SampleController.getAll").counter().count());
+    }
+
+    @Test
+    void usesDeclaredBudgetUnlessOverridden() throws Exception {
+        HandlerMethod handler = new HandlerMethod(new SampleController(), "getOne");
+
+        interceptor.preHandle(request, response, handler);
+        statementInspector.inspect("select * from items");
+        interceptor.afterCompletion(request, response, handler, null);
+
+        assertEquals(1, request.getAttribute(QueryBudgetInterceptor.BUDGET_ATTRIBUTE));
+
+        properties.setEndpoints(Map.of("SampleController.getOne", 4));
+        interceptor.preHandle(request, response, handler);
+        interceptor.afterCompletion(request, response, handler, null);
+
+        assertEquals(4, request.getAttribute(QueryBudgetInterceptor.BUDGET_ATTRIBUTE));
+    }
+
+    @Test
+    void recordsStatementsPerEndpoint() throws Exception {
+        properties.setJdbcMetering(true);
+        HandlerMethod handler = new HandlerMethod(new SampleController(), "getAll");
+
+        interceptor.preHandle(request, response, handler);
+        statementInspector.inspect("select * from items");
+        statementInspector.inspect("select * from users");
+        interceptor.afterCompletion(request, response, handler, null);
+
+        RequestQueryStats stats = (RequestQueryStats) request.getAttribute(QueryBudgetInterceptor.STATS_ATTRIBUTE);
+        assertEquals(2, stats.getStatements());
+        assertEquals(1, meterRegistry.get("shareit.sql.statements")
+                .tag("endpoint", "SampleController.getAll").summary().count());
+        assertEquals(2, meterRegistry.get("shareit.sql.statements")
+                .tag("endpoint", "SampleController.getAll").summary().totalAmount());
+        assertEquals(1, meterRegistry.get("shareit.sql.jdbc.time")
+                .tag("endpoint", "SampleController.getAll").timer().count());
+        assertTrue(meterRegistry.find("shareit.sql.budget.exceeded").counters().isEmpty());
+    }
+
+    @Test
+    void skipsRowsAndTimeWithoutJdbcMetering() throws Exception {
+        HandlerMethod handler = new HandlerMethod(new SampleController(), "getAll");
+
+        interceptor.preHandle(request, response, handler);
+        statementInspector.inspect("select * from items");
+        interceptor.afterCompletion(request, response, handler, null);
+
+        assertEquals(1, meterRegistry.get("shareit.sql.statements")
+                .tag("endpoint", "SampleController.getAll").summary().count());
+        assertTrue(meterRegistry.find("shareit.sql.rows").summaries().isEmpty());
+        assertTrue(meterRegistry.find("shareit.sql.jdbc.time").timers().isEmpty());
+    }
+
+    @Test
+    void staysQuietWithinDefaultBudget(CapturedOutput output) throws Exception {
+        HandlerMethod handler = new HandlerMethod(new SampleController(), "getAll");
+
+        interceptor.preHandle(request, response, handler);
+        statementInspector.inspect("select * from items");
+        interceptor.afterCompletion(request, response, handler, null);
+
+        assertThat(output).doesNotContain("при бюджете");
+    }
+
+    @Test
+    void countsOnlyStatementsOfCurrentRequest() {
+        assertEquals("select 1", statementInspector.inspect("select 1"));
+        assertNull(RequestQueryStats.current());
+
+        RequestQueryStats stats = RequestQueryStats.start();
+        statementInspector.inspect("select 1");
+
+        assertEquals(1, stats.getStatements());
+        assertTrue(stats.getRepeatedLoads().isEmpty());
+    }
+
+    static class SampleController {
+        public String getAll() {
+            return "";
+        }
+
+        @QueryBudget(1)
+        public String getOne() {
+            return "";
+        }
+    }
+}
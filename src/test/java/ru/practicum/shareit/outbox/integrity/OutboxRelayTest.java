@@ -0,0 +1,216 @@
+package ru.practicum.shareit.outbox.integrity;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.dto.ItemDtoRequest;
+import ru.practicum.shareit.item.event.CommentCreatedEvent;
+import ru.practicum.shareit.item.event.ItemChangedEvent;
+import ru.practicum.shareit.item.service.ItemService;
+import ru.practicum.shareit.outbox.event.OutboxMessage;
+import ru.practicum.shareit.outbox.model.OutboxRecord;
+import ru.practicum.shareit.outbox.service.OutboxRelay;
+import ru.practicum.shareit.outbox.storage.OutboxRecordJpaRepository;
+import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.user.storage.UserJpaRepository;
+
+import javax.persistence.EntityManager;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@Transactional
+@Import(OutboxRelayTest.RecordingListener.class)
+public class OutboxRelayTest {
+    @Autowired
+    private ItemService itemService;
+    @Autowired
+    private UserJpaRepository userStorage;
+    @Autowired
+    private OutboxRecordJpaRepository outboxRepository;
+    @Autowired
+    private OutboxRelay outboxRelay;
+    @Autowired
+    private RecordingListener listener;
+    @Autowired
+    private EntityManager entityManager;
+    @Autowired
+    private MeterRegistry meterRegistry;
+    @Value("${shareit.outbox.relay.max-attempts:10}")
+    private int maxAttempts;
+
+    private User owner;
+
+    @BeforeEach
+    void setUp() {
+        owner = userStorage.save(User.builder()
+                .name("Owner")
+                .email("outbox.owner@email.com")
+                .build());
+        listener.clear();
+    }
+
+    @Test
+    void createItem_writesOutboxRecordInSameTransaction() {
+        ItemDto itemDto = itemService.createItem(ItemDtoRequest.builder()
+                .name("Drill")
+                .description("outbox")
+                .available(true)
+                .build(), owner.getId());
+
+        OutboxRecord record = lastRecord();
+        assertEquals(ItemChangedEvent.class.getName(), record.getEventType());
+        assertTrue(record.getPayload().contains("\"itemId\":" + itemDto.getId()));
+        assertEquals(owner.getId(), record.getOwnerId());
+        assertNull(record.getPublishedAt());
+        assertNotNull(record.getCreatedAt());
+    }
+
+    @Test
+    void relay_deliversTypedMessagesAndMarksRecordsPublished() {
+        ItemDto itemDto = itemService.createItem(ItemDtoRequest.builder()
+                .name("Drill")
+                .description("outbox")
+                .available(true)
+                .build(), owner.getId());
+        OutboxRecord record = lastRecord();
+
+        outboxRelay.relay();
+
+        List<OutboxMessage<ItemChangedEvent>> delivered = listener.itemMessages.stream()
+                .filter(message -> message.getId().equals(record.getId()))
+                .collect(Collectors.toList());
+        assertEquals(1, delivered.size());
+        ItemChangedEvent event = delivered.get(0).getPayload();
+        assertEquals(itemDto.getId(), event.getItemId());
+        assertNull(event.getBefore());
+        assertEquals("Drill", event.getAfter().getName());
+        assertTrue(listener.commentMessages.isEmpty());
+
+        entityManager.flush();
+        entityManager.clear();
+        assertNotNull(outboxRepository.findById(record.getId()).orElseThrow().getPublishedAt());
+        assertEquals(0, outboxRelay.relayBatch());
+    }
+
+    @Test
+    void relay_skipsUnreadableRecord() {
+        OutboxRecord unreadable = outboxRepository.save(OutboxRecord.builder()
+                .eventType(String.class.getName())
+                .payload("\"not an event\"")
+                .build());
+
+        outboxRelay.relay();
+
+        assertNotNull(outboxRepository.findById(unreadable.getId()).orElseThrow().getPublishedAt());
+        assertTrue(listener.itemMessages.stream().noneMatch(message -> message.getId().equals(unreadable.getId())));
+    }
+
+    // Откат пачки и учет попыток проверяются на зафиксированных транзакциях, поэтому тест работает без общей
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    void relay_parksPoisonRecordAfterMaxAttemptsAndDeliversNext() {
+        OutboxRecord poison = outboxRepository.save(OutboxRecord.builder()
+                .eventType(ItemChangedEvent.class.getName())
+                .payload("{\"itemId\":999,\"before\":null,\"after\":null,\"ownerId\":null}")
+                .build());
+        OutboxRecord next = outboxRepository.save(OutboxRecord.builder()
+                .eventType(ItemChangedEvent.class.getName())
+                .payload("{\"itemId\":1000,\"before\":null,\"after\":null,\"ownerId\":null}")
+                .build());
+        listener.failingItemIds.add(999L);
+        double parkedBefore = meterRegistry.counter("shareit.outbox.parked").count();
+        try {
+            for (int attempt = 1; attempt < maxAttempts; attempt++) {
+                assertEquals(0, outboxRelay.relayBatch());
+                OutboxRecord failed = outboxRepository.findById(poison.getId()).orElseThrow();
+                assertEquals(attempt, failed.getAttempts());
+                assertTrue(failed.getLastError().contains("poison item 999"));
+                assertNull(failed.getParkedAt());
+                assertNull(outboxRepository.findById(next.getId()).orElseThrow().getPublishedAt());
+            }
+
+            assertEquals(1, outboxRelay.relayBatch());
+
+            OutboxRecord parked = outboxRepository.findById(poison.getId()).orElseThrow();
+            assertEquals(maxAttempts, parked.getAttempts());
+            assertNotNull(parked.getParkedAt());
+            assertNull(parked.getPublishedAt());
+            assertNotNull(outboxRepository.findById(next.getId()).orElseThrow().getPublishedAt());
+            assertTrue(listener.itemMessages.stream().anyMatch(message -> message.getId().equals(next.getId())));
+            assertEquals(parkedBefore + 1, meterRegistry.counter("shareit.outbox.parked").count());
+            assertEquals(0, outboxRelay.relayBatch());
+        } finally {
+            outboxRepository.deleteAll(List.of(poison, next));
+            userStorage.delete(owner);
+        }
+    }
+
+    @Test
+    void purge_removesOnlyOldPublishedRecords() {
+        OutboxRecord old = outboxRepository.save(OutboxRecord.builder()
+                .eventType(ItemChangedEvent.class.getName())
+                .payload("{}")
+                .build());
+        old.setPublishedAt(LocalDateTime.now().minusDays(2));
+        OutboxRecord pending = outboxRepository.save(OutboxRecord.builder()
+                .eventType(ItemChangedEvent.class.getName())
+                .payload("{}")
+                .build());
+        entityManager.flush();
+
+        outboxRelay.purge();
+        entityManager.clear();
+
+        assertTrue(outboxRepository.findById(old.getId()).isEmpty());
+        assertTrue(outboxRepository.findById(pending.getId()).isPresent());
+    }
+
+    private OutboxRecord lastRecord() {
+        entityManager.flush();
+        return outboxRepository.findAll().stream()
+                .max((first, second) -> first.getId().compareTo(second.getId()))
+                .orElseThrow();
+    }
+
+    @Component
+    static class RecordingListener {
+        private final List<OutboxMessage<ItemChangedEvent>> itemMessages = new ArrayList<>();
+        private final List<OutboxMessage<CommentCreatedEvent>> commentMessages = new ArrayList<>();
+        private final Set<Long> failingItemIds = new HashSet<>();
+
+        @EventListener
+        public void onItemChanged(OutboxMessage<ItemChangedEvent> message) {
+            if (failingItemIds.contains(message.getPayload().getItemId())) {
+                throw new IllegalStateException("poison item " + message.getPayload().getItemId());
+            }
+            itemMessages.add(message);
+        }
+
+        @EventListener
+        public void onCommentCreated(OutboxMessage<CommentCreatedEvent> message) {
+            commentMessages.add(message);
+        }
+
+        void clear() {
+            itemMessages.clear();
+            commentMessages.clear();
+            failingItemIds.clear();
+        }
+    }
+}
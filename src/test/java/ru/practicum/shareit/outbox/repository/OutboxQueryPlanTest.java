@@ -0,0 +1,33 @@
+package ru.practicum.shareit.outbox.repository;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import ru.practicum.shareit.config.QueryBudgetConfiguration;
+import ru.practicum.shareit.outbox.storage.OutboxRecordJpaRepository;
+
+import javax.persistence.EntityManager;
+
+import static ru.practicum.shareit.monitoring.QueryPlanAssertions.assertIndexed;
+import static ru.practicum.shareit.monitoring.QueryPlanAssertions.evictSecondLevelCache;
+
+@DataJpaTest
+@Import(QueryBudgetConfiguration.class)
+public class OutboxQueryPlanTest {
+    @Autowired
+    private EntityManager entityManager;
+    @Autowired
+    private OutboxRecordJpaRepository outboxRepository;
+
+    @BeforeEach
+    void setUp() {
+        evictSecondLevelCache(entityManager);
+    }
+
+    @Test
+    void undeliveredEventsOfOwner() {
+        assertIndexed(entityManager, () -> outboxRepository.existsUnpublishedForOwner(1L));
+    }
+}
@@ -0,0 +1,51 @@
+package ru.practicum.shareit.request.repository;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Sort;
+import ru.practicum.shareit.config.QueryBudgetConfiguration;
+import ru.practicum.shareit.request.model.ItemRequest;
+import ru.practicum.shareit.request.storage.ItemRequestJpaRepository;
+import ru.practicum.shareit.user.model.User;
+
+import javax.persistence.EntityManager;
+
+import static ru.practicum.shareit.monitoring.QueryPlanAssertions.assertIndexed;
+import static ru.practicum.shareit.monitoring.QueryPlanAssertions.evictSecondLevelCache;
+
+@DataJpaTest
+@Import(QueryBudgetConfiguration.class)
+public class ItemRequestQueryPlanTest {
+    @Autowired
+    private EntityManager entityManager;
+    @Autowired
+    private ItemRequestJpaRepository itemRequestRepository;
+
+    @BeforeEach
+    void setUp() {
+        evictSecondLevelCache(entityManager);
+    }
+
+    @Test
+    void requestsOfApplicant() {
+        assertIndexed(entityManager, () -> itemRequestRepository.findByApplicantId(1L,
+                Sort.by(Sort.Direction.DESC, "createdAt")));
+    }
+
+    @Test
+    void repliesOfRequest() {
+        User applicant = User.builder().name("Applicant").email("plan.applicant@email.com").build();
+        entityManager.persist(applicant);
+        ItemRequest request = ItemRequest.builder().applicant(applicant).description("Drill").build();
+        entityManager.persist(request);
+        entityManager.flush();
+        entityManager.clear();
+        evictSecondLevelCache(entityManager);
+
+        assertIndexed(entityManager,
+                () -> itemRequestRepository.findById(request.getId()).orElseThrow().getReplies().size());
+    }
+}
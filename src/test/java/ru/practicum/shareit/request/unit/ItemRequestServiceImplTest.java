@@ -5,16 +5,19 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import ru.practicum.shareit.error.EntityNotExistsExeption;
 import ru.practicum.shareit.request.dto.ItemRequestCreateDto;
 import ru.practicum.shareit.request.dto.ItemRequestResponseDto;
+import ru.practicum.shareit.request.event.ItemRequestCreatedEvent;
 import ru.practicum.shareit.request.model.ItemRequest;
 import ru.practicum.shareit.request.service.ItemRequestServiceImpl;
 import ru.practicum.shareit.request.storage.ItemRequestJpaRepository;
 import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.user.registry.UserRegistry;
 import ru.practicum.shareit.user.storage.UserJpaRepository;
 
 import java.time.LocalDateTime;
@@ -32,6 +35,10 @@ public class ItemRequestServiceImplTest {
     private ItemRequestJpaRepository itemRequestStorage;
     @Mock
     private UserJpaRepository userJpaRepository;
+    @Mock
+    private UserRegistry userRegistry;
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
     @InjectMocks
     private ItemRequestServiceImpl itemRequestService;
 
@@ -39,7 +46,10 @@ public class ItemRequestServiceImplTest {
     void createItemRequest_success() {
         Long userId = 1L;
         User user = new User();
+        user.setId(userId);
         ItemRequest itemRequest = new ItemRequest();
+        itemRequest.setId(7L);
+        itemRequest.setApplicant(user);
         ItemRequestCreateDto itemRequestCreateDto = ItemRequestCreateDto.builder().description("testTesttest").build();
         itemRequestCreateDto.setDescription("Test Item Request");
 
@@ -51,6 +61,7 @@ public class ItemRequestServiceImplTest {
         assertNotNull(result);
         verify(userJpaRepository, times(1)).findById(userId);
         verify(itemRequestStorage, times(1)).save(any(ItemRequest.class));
+        verify(eventPublisher).publishEvent(new ItemRequestCreatedEvent(7L, userId));
     }
 
     @Test
@@ -92,7 +103,7 @@ public class ItemRequestServiceImplTest {
                 .build();
 
         List<ItemRequest> itemRequests = Arrays.asList(itemRequest1, itemRequest2);
-        when(userJpaRepository.findById(userId)).thenReturn(Optional.of(user));
+        when(userRegistry.exists(userId)).thenReturn(true);
         when(itemRequestStorage.findByApplicantId(userId, Sort.by(Sort.Direction.DESC, "createdAt"))).thenReturn(itemRequests);
 
         List<ItemRequestResponseDto> result = itemRequestService.getAllRequestsForUser(userId);
@@ -102,7 +113,7 @@ public class ItemRequestServiceImplTest {
         assertEquals(itemRequest1.getDescription(), result.get(0).getDescription());
         assertEquals(itemRequest2.getDescription(), result.get(1).getDescription());
 
-        verify(userJpaRepository, times(1)).findById(userId);
+        verify(userRegistry, times(1)).exists(userId);
         verify(itemRequestStorage, times(1)).findByApplicantId(userId, Sort.by(Sort.Direction.DESC, "createdAt"));
     }
 
@@ -110,11 +121,11 @@ public class ItemRequestServiceImplTest {
     void getAllRequestsForUser_userNotFound() {
         Long userId = 1L;
 
-        when(userJpaRepository.findById(userId)).thenReturn(Optional.empty());
+        when(userRegistry.exists(userId)).thenReturn(false);
 
         assertThrows(EntityNotExistsExeption.class, () -> itemRequestService.getAllRequestsForUser(userId));
 
-        verify(userJpaRepository, times(1)).findById(userId);
+        verify(userRegistry, times(1)).exists(userId);
         verify(itemRequestStorage, times(0)).findByApplicantId(anyLong(), any(Sort.class));
     }
 
@@ -174,7 +185,7 @@ public class ItemRequestServiceImplTest {
                 .build();
 
         when(itemRequestStorage.findById(requestId)).thenReturn(Optional.of(itemRequest));
-        when(userJpaRepository.findById(userId)).thenReturn(Optional.of(user));
+        when(userRegistry.exists(userId)).thenReturn(true);
 
         ItemRequestResponseDto result = itemRequestService.getItemRequest(userId, requestId);
 
@@ -194,7 +205,7 @@ public class ItemRequestServiceImplTest {
                 .build();
 
         when(itemRequestStorage.findById(requestId)).thenReturn(Optional.empty());
-        when(userJpaRepository.findById(userId)).thenReturn(Optional.of(user));
+        when(userRegistry.exists(userId)).thenReturn(true);
 
         assertThrows(EntityNotExistsExeption.class, () -> itemRequestService.getItemRequest(userId, requestId));
 
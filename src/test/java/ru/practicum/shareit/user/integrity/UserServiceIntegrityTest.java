@@ -1,15 +1,19 @@
 package ru.practicum.shareit.user.integrity;
 
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 import ru.practicum.shareit.user.dto.UserDto;
 import ru.practicum.shareit.user.model.User;
 import ru.practicum.shareit.user.service.UserServiceImpl;
 import ru.practicum.shareit.user.storage.UserJpaRepository;
 
+import javax.persistence.EntityManagerFactory;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -25,6 +29,9 @@ public class UserServiceIntegrityTest {
     @Autowired
     private UserJpaRepository userStorage;
 
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
     private User user;
     private UserDto userDto;
     private User anotherUser;
@@ -117,4 +124,27 @@ public class UserServiceIntegrityTest {
         assertNull(deletedUser);
     }
 
+    // Кэш второго уровня заполняется при коммите, поэтому тест работает без общей транзакции
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    void getUser_servedFromSecondLevelCacheUntilUpdated() {
+        User savedUser = userStorage.save(user);
+        try {
+            Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+            statistics.setStatisticsEnabled(true);
+            statistics.clear();
+
+            User cached = userService.getUser(savedUser.getId());
+
+            assertEquals(0, statistics.getPrepareStatementCount());
+            assertEquals(1, statistics.getSecondLevelCacheHitCount());
+            assertEquals(savedUser.getName(), cached.getName());
+
+            userService.updateUser(UserDto.builder().name("Updated Name").build(), savedUser.getId());
+
+            assertEquals("Updated Name", userService.getUser(savedUser.getId()).getName());
+        } finally {
+            userService.deleteUser(savedUser.getId());
+        }
+    }
 }
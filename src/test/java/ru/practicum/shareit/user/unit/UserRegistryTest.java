@@ -0,0 +1,90 @@
+package ru.practicum.shareit.user.unit;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+import ru.practicum.shareit.user.event.UserChangedEvent;
+import ru.practicum.shareit.user.registry.UserRegistry;
+import ru.practicum.shareit.user.storage.UserJpaRepository;
+
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class UserRegistryTest {
+    private UserJpaRepository userStorage;
+    private UserRegistry userRegistry;
+
+    @BeforeEach
+    void setUp() {
+        userStorage = mock(UserJpaRepository.class);
+        userRegistry = new UserRegistry(userStorage, mock(PlatformTransactionManager.class), true, 1_000_000);
+
+        when(userStorage.streamAllIds()).thenReturn(Stream.of(1L, 2L, 70_000L));
+    }
+
+    @Test
+    void exists_loadedUsersAnsweredWithoutDatabase() {
+        userRegistry.load();
+
+        assertTrue(userRegistry.exists(1L));
+        assertTrue(userRegistry.exists(70_000L));
+        verify(userStorage, never()).existsById(anyLong());
+    }
+
+    @Test
+    void exists_unknownUserCheckedInDatabase() {
+        userRegistry.load();
+        when(userStorage.existsById(3L)).thenReturn(false);
+
+        assertFalse(userRegistry.exists(3L));
+        assertFalse(userRegistry.exists(3L));
+        verify(userStorage, times(2)).existsById(3L);
+    }
+
+    @Test
+    void exists_userFoundInDatabaseRemembered() {
+        when(userStorage.existsById(5L)).thenReturn(true);
+
+        assertTrue(userRegistry.exists(5L));
+        assertTrue(userRegistry.exists(5L));
+        verify(userStorage, times(1)).existsById(5L);
+    }
+
+    @Test
+    void onUserChanged_createdAndDeletedUsersTracked() {
+        userRegistry.load();
+
+        userRegistry.onUserChanged(new UserChangedEvent(10L, true, false));
+        assertTrue(userRegistry.exists(10L));
+
+        userRegistry.onUserChanged(UserChangedEvent.deleted(1L));
+        assertFalse(userRegistry.exists(1L));
+        verify(userStorage, times(1)).existsById(1L);
+        verify(userStorage, never()).existsById(10L);
+    }
+
+    @Test
+    void exists_disabledRegistryAlwaysChecksDatabase() {
+        UserRegistry disabled = new UserRegistry(userStorage, mock(PlatformTransactionManager.class), false, 1_000_000);
+        disabled.load();
+        disabled.onUserChanged(new UserChangedEvent(10L, true, false));
+        when(userStorage.existsById(1L)).thenReturn(true);
+
+        assertTrue(disabled.exists(1L));
+        assertFalse(disabled.exists(10L));
+        verify(userStorage, never()).streamAllIds();
+        verify(userStorage, times(1)).existsById(1L);
+        verify(userStorage, times(1)).existsById(10L);
+    }
+
+    @Test
+    void exists_idsAboveLimitAlwaysCheckedInDatabase() {
+        when(userStorage.existsById(2_000_000L)).thenReturn(true);
+
+        assertTrue(userRegistry.exists(2_000_000L));
+        assertTrue(userRegistry.exists(2_000_000L));
+        verify(userStorage, times(2)).existsById(2_000_000L);
+    }
+}
@@ -6,9 +6,12 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
 import ru.practicum.shareit.error.EntityNotExistsExeption;
 import ru.practicum.shareit.user.dto.UserDto;
+import ru.practicum.shareit.user.event.UserChangedEvent;
 import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.user.registry.UserRegistry;
 import ru.practicum.shareit.user.service.UserServiceImpl;
 import ru.practicum.shareit.user.storage.UserJpaRepository;
 
@@ -23,6 +26,10 @@ public class UserServiceImplTest {
 
     @Mock
     private UserJpaRepository userStorage;
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+    @Mock
+    private UserRegistry userRegistry;
 
     @InjectMocks
     private UserServiceImpl userService;
@@ -66,6 +73,17 @@ public class UserServiceImplTest {
         verify(userStorage, times(1)).findById(user.getId());
     }
 
+    @Test
+    void checkUserExists_shouldThrowException_whenUserDoesNotExist() {
+        when(userRegistry.exists(user.getId())).thenReturn(false);
+
+        EntityNotExistsExeption exception = assertThrows(EntityNotExistsExeption.class,
+                () -> userService.checkUserExists(user.getId()));
+
+        assertEquals(user.getId().toString(), exception.getMessage());
+        verify(userStorage, never()).findById(any());
+    }
+
     @Test
     void getUsers_shouldReturnAllUsers() {
         List<User> users = List.of(user);
@@ -90,6 +108,7 @@ public class UserServiceImplTest {
         assertEquals(user.getName(), result.getName());
         assertEquals(user.getEmail(), result.getEmail());
         verify(userStorage, times(1)).save(any(User.class));
+        verify(eventPublisher, times(1)).publishEvent(UserChangedEvent.created(user));
     }
 
     @Test
@@ -125,6 +144,7 @@ public class UserServiceImplTest {
         userService.deleteUser(user.getId());
 
         verify(userStorage, times(1)).delete(any(User.class));
+        verify(eventPublisher, times(1)).publishEvent(UserChangedEvent.deleted(user.getId()));
     }
 
     @Test
@@ -134,5 +154,6 @@ public class UserServiceImplTest {
         assertThrows(EntityNotExistsExeption.class, () -> userService.deleteUser(user.getId()));
 
         verify(userStorage, times(0)).delete(any(User.class));
+        verify(eventPublisher, never()).publishEvent(any(Object.class));
     }
 }